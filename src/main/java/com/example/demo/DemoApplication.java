@@ -6,11 +6,14 @@ import com.example.demo.assets.service.NotEnoughAssetException;
 import com.example.demo.customers.model.AppSecurityRoles;
 import com.example.demo.customers.model.Customer;
 import com.example.demo.customers.service.CustomerService;
+import com.example.demo.journal.JournalRecovery;
 import com.example.demo.orders.model.Order;
 import com.example.demo.orders.service.OrderService;
 import com.example.demo.assets.service.AssetNotFoundException;
 import com.example.demo.assets.service.NotEnoughMoneyException;
 import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.risk.RiskLimitExceededException;
+import com.example.demo.utils.FixedPoint;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -27,6 +30,7 @@ public class DemoApplication implements CommandLineRunner {
 	private final CustomerService customerService;
 	private final AssetService assetService;
 	private final OrderService orderService;
+	private final JournalRecovery journalRecovery;
 
 	public static void main(String[] args) {
 		SpringApplication.run(DemoApplication.class, args);
@@ -35,9 +39,13 @@ public class DemoApplication implements CommandLineRunner {
 
 	@Override
 	public void run(String... args) throws Exception {
-		createCustomers();
-		createAssets();
-		createOrders();
+		// With the journal enabled, the state of the previous
+		// run is replayed and the demo data is not seeded again.
+		if (!journalRecovery.recover()) {
+			createCustomers();
+			createAssets();
+			createOrders();
+		}
 
 		printUserNames();
 		printAPIEndPoints();
@@ -58,11 +66,11 @@ public class DemoApplication implements CommandLineRunner {
 		System.out.println("CUSTOMER: iremtola@gmail.com/irem");
 	}
 
-	private void createOrders() throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException {
+	private void createOrders() throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException, RiskLimitExceededException {
 		Order orderBuyKCHol = Order.builder()
 				.assetName("KCHOL")
 				.createDate(new Date(System.currentTimeMillis()))
-				.price(1.733)
+				.price(FixedPoint.of(1.733))
 				.orderSide(OrderSide.BUY)
 				.size(10)
 				.customerId(1L)
@@ -72,7 +80,7 @@ public class DemoApplication implements CommandLineRunner {
 		Order orderBuySASA = Order.builder()
 				.assetName("SASA")
 				.createDate(new Date(System.currentTimeMillis()))
-				.price(1)
+				.price(FixedPoint.of(1))
 				.orderSide(OrderSide.BUY)
 				.size(100)
 				.customerId(1L)
@@ -83,32 +91,32 @@ public class DemoApplication implements CommandLineRunner {
 	private void createAssets() {
 		Asset omerTRY = Asset.builder()
 				.assetName("TRY")
-				.size(10_000)
-				.usableSize(10_000)
+				.size(FixedPoint.of(10_000))
+				.usableSize(FixedPoint.of(10_000))
 				.customerId(1L)
 				.build();
 		assetService.create(omerTRY);
 
 		Asset omerISYAT = Asset.builder()
 				.assetName("ISYAT")
-				.size(10_000)
-				.usableSize(10_000)
+				.size(FixedPoint.of(10_000))
+				.usableSize(FixedPoint.of(10_000))
 				.customerId(1L)
 				.build();
 		assetService.create(omerISYAT);
 
 		Asset defneTRY = Asset.builder()
 				.assetName("TRY")
-				.size(5_000)
-				.usableSize(5_000)
+				.size(FixedPoint.of(5_000))
+				.usableSize(FixedPoint.of(5_000))
 				.customerId(2L)
 				.build();
 		assetService.create(defneTRY);
 
 		Asset iremTRY = Asset.builder()
 				.assetName("TRY")
-				.size(5_000)
-				.usableSize(5_000)
+				.size(FixedPoint.of(5_000))
+				.usableSize(FixedPoint.of(5_000))
 				.customerId(3L)
 				.build();
 		assetService.create(iremTRY);
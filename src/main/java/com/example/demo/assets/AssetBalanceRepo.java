@@ -0,0 +1,23 @@
+package com.example.demo.assets;
+
+/**
+ * Balance changes done in one guarded UPDATE statement: the check
+ * and the change of usableSize run in the database, which locks the
+ * row only from that statement until commit. No select for update
+ * before, no Hibernate merge after.
+ * <p>
+ * Every method returns the number of updated rows. It is 0 when the
+ * asset does not exist or, for the guarded ones, when its usableSize
+ * is not enough; the row is left untouched then.
+ */
+public interface AssetBalanceRepo {
+
+    // usableSize -= amount, if usableSize >= amount
+    int reserve(long customerId, String assetName, long amount);
+
+    // usableSize += amount
+    int release(long customerId, String assetName, long amount);
+
+    // size -= amount and usableSize -= amount, if usableSize >= amount
+    int withdraw(long customerId, String assetName, long amount);
+}
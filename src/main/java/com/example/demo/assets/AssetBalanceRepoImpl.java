@@ -0,0 +1,90 @@
+package com.example.demo.assets;
+
+import com.example.demo.assets.model.AssetBalance;
+import com.example.demo.assets.service.BalanceCache;
+import com.example.demo.journal.JournalEntityListener;
+import com.example.demo.journal.JournalRecord;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JPQL bulk updates behind {@link AssetBalanceRepo}. The version
+ * is increased by every statement, so an OPTIMISTIC reader of the
+ * row still detects the change at commit.
+ * <p>
+ * Bulk updates bypass the persistence context: an Asset already
+ * loaded in the same transaction is not refreshed, and its entity
+ * listeners are not called. When the journal is enabled the new
+ * row image is read back once and handed to the
+ * {@link JournalEntityListener} and the {@link BalanceCache} here
+ * instead. Otherwise nothing is read back, a guarded update stays a
+ * single statement, and the cached balance of the row is evicted.
+ */
+@RequiredArgsConstructor
+class AssetBalanceRepoImpl implements AssetBalanceRepo {
+
+    private final EntityManager entityManager;
+    private final JournalEntityListener journalEntityListener;
+    private final BalanceCache balanceCache;
+
+    @Override
+    public int reserve(long customerId, String assetName, long amount) {
+        return update("""
+                UPDATE Asset a
+                SET a.usableSize = a.usableSize - :amount, a.version = a.version + 1
+                WHERE a.customerId = :customerId and a.assetName = :name and a.usableSize >= :amount""",
+                customerId, assetName, amount);
+    }
+
+    @Override
+    public int release(long customerId, String assetName, long amount) {
+        return update("""
+                UPDATE Asset a
+                SET a.usableSize = a.usableSize + :amount, a.version = a.version + 1
+                WHERE a.customerId = :customerId and a.assetName = :name""",
+                customerId, assetName, amount);
+    }
+
+    @Override
+    public int withdraw(long customerId, String assetName, long amount) {
+        return update("""
+                UPDATE Asset a
+                SET a.size = a.size - :amount, a.usableSize = a.usableSize - :amount, a.version = a.version + 1
+                WHERE a.customerId = :customerId and a.assetName = :name and a.usableSize >= :amount""",
+                customerId, assetName, amount);
+    }
+
+    private int update(String statement, long customerId, String assetName, long amount) {
+        int updatedRows = entityManager.createQuery(statement)
+                .setParameter("customerId", customerId)
+                .setParameter("name", assetName)
+                .setParameter("amount", amount)
+                .executeUpdate();
+        if (updatedRows == 0) {
+            return 0;
+        }
+        if (journalEntityListener.isEnabled()) {
+            JournalRecord.AssetImage image = image(customerId, assetName);
+            journalEntityListener.onBulkUpdate(() -> image);
+            balanceCache.onChange(customerId, assetName, new AssetBalance(image.usableSize(), image.version()));
+        } else {
+            balanceCache.evict(customerId, assetName);
+        }
+        return updatedRows;
+    }
+
+    // Scalar query, not served from the persistence context.
+    // The row is locked by the update, the image is exact.
+    private JournalRecord.AssetImage image(long customerId, String assetName) {
+        Object[] row = entityManager.createQuery("""
+                        SELECT a.id, a.customerId, a.assetName, a.size, a.usableSize, a.version
+                        FROM Asset a WHERE a.customerId = :customerId and a.assetName = :name""",
+                        Object[].class)
+                .setParameter("customerId", customerId)
+                .setParameter("name", assetName)
+                .getSingleResult();
+        return new JournalRecord.AssetImage(
+                (Long) row[0], (Long) row[1], (String) row[2],
+                (Long) row[3], (Long) row[4], (Long) row[5]);
+    }
+}
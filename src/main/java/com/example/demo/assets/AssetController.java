@@ -1,13 +1,17 @@
 package com.example.demo.assets;
 
-import com.example.demo.assets.model.Asset;
+import com.example.demo.assets.model.AssetView;
 import com.example.demo.assets.model.DepositMoneyDto;
 import com.example.demo.assets.model.WithdrawMoneyDto;
 import com.example.demo.assets.service.AssetNotFoundException;
 import com.example.demo.assets.service.AssetService;
 import com.example.demo.assets.service.NotEnoughMoneyException;
 import com.example.demo.customers.service.CustomerNotFoundException;
+import com.example.demo.paging.InvalidCursorException;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.paging.Paging;
 import com.example.demo.utils.ControllerUtils;
+import com.example.demo.utils.FixedPoint;
 import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +22,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -34,6 +39,7 @@ import java.util.List;
 public class AssetController {
 
     private final AssetService assetService; // Service to manage assets
+    private final Paging paging; // Page size limits of list endpoints
 
     /**
      * Retrieves all assets. Only ADMINs can access.
@@ -51,7 +57,9 @@ public class AssetController {
      *   </li>
      * </ul>
      *
-     * @return list of all assets.
+     * @param cursor opaque cursor of the page, from the X-Next-Cursor header of the previous one.
+     * @param limit page size, capped by orders.paging.max-size.
+     * @return one page of all assets, ordered by id.
      *
      * Example:
      * ```bash
@@ -61,14 +69,18 @@ public class AssetController {
     @GetMapping
     @PreAuthorize("hasAuthority('ADMIN')")
     @Observed(name = "getAllAssets", contextualName = "get-all-assets")
-    public ResponseEntity<List<Asset>> getAllAssets() {
+    public ResponseEntity<List<AssetView>> getAllAssets(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) throws InvalidCursorException {
         log.info("Get All Assets Called..");
         try {
             Thread.sleep(200); // Simulates delay
         } catch (Throwable e) {
             // Handle exception if necessary
         }
-        return ResponseEntity.ok(assetService.getAllAssets());
+        return Paging.toResponse(
+                assetService.getAllAssets(PageCursor.decode(cursor), paging.pageSize(limit)));
     }
 
     /**
@@ -103,7 +115,7 @@ public class AssetController {
             name = "getAssetsOfCustomer",
             contextualName = "get-assets-of-customer",
             lowCardinalityKeyValues = {"customer", "admin", "customer-1", "customer-2"})
-    public ResponseEntity<List<Asset>> getAssetsOfCustomer(
+    public ResponseEntity<List<AssetView>> getAssetsOfCustomer(
             @PathVariable("customerId") long customerId
     ) throws CustomerNotFoundException {
         log.info("Getting assets for customer ID: " + customerId);
@@ -138,7 +150,8 @@ public class AssetController {
      * @param customerId ID of the customer.
      * @param depositMoneyDto deposit details.
      * @param bindingResult result of validation.
-     * @return updated balance, or BAD_REQUEST if validation fails.
+     * @return updated TRY balance as a decimal, like the amount of the request
+     *         (see FixedPointJson), or BAD_REQUEST if validation fails.
      * @throws AssetNotFoundException if the asset is not found.
      *
      * Example:
@@ -149,7 +162,7 @@ public class AssetController {
      */
     @PostMapping("/deposit/{customerId}")
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
-    public ResponseEntity<Double> depositMoney(
+    public ResponseEntity<BigDecimal> depositMoney(
             @PathVariable("customerId") long customerId,
             @Valid @RequestBody DepositMoneyDto depositMoneyDto,
             BindingResult bindingResult
@@ -158,7 +171,8 @@ public class AssetController {
             ControllerUtils.logErrors(bindingResult); // Log validation errors
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } else {
-            return ResponseEntity.ok(assetService.depositMoney(customerId, depositMoneyDto));
+            return ResponseEntity.ok(FixedPoint.toBigDecimal(
+                    assetService.depositMoney(customerId, depositMoneyDto)));
         }
     }
 
@@ -185,7 +199,8 @@ public class AssetController {
      * @param customerId ID of the customer.
      * @param withdrawMoneyDto withdrawal details.
      * @param bindingResult result of validation.
-     * @return updated balance, or BAD_REQUEST if validation fails.
+     * @return updated TRY balance as a decimal, like the amount of the request
+     *         (see FixedPointJson), or BAD_REQUEST if validation fails.
      * @throws NotEnoughMoneyException if balance is insufficient.
      * @throws AssetNotFoundException if the asset is not found.
      *
@@ -198,7 +213,7 @@ public class AssetController {
      */
     @PostMapping("/withdraw/{customerId}")
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
-    public ResponseEntity<Double> withdrawMoney(
+    public ResponseEntity<BigDecimal> withdrawMoney(
             @PathVariable("customerId") long customerId,
             @Valid @RequestBody WithdrawMoneyDto withdrawMoneyDto,
             BindingResult bindingResult
@@ -207,7 +222,8 @@ public class AssetController {
             ControllerUtils.logErrors(bindingResult); // Log validation errors
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } else {
-            return ResponseEntity.ok(assetService.withdrawMoney(customerId, withdrawMoneyDto));
+            return ResponseEntity.ok(FixedPoint.toBigDecimal(
+                    assetService.withdrawMoney(customerId, withdrawMoneyDto)));
         }
     }
 }
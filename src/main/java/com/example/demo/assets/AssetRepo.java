@@ -1,26 +1,81 @@
 package com.example.demo.assets;
 
 import com.example.demo.assets.model.Asset;
+import com.example.demo.assets.model.AssetBalance;
+import com.example.demo.assets.model.AssetNames;
+import com.example.demo.assets.model.AssetView;
 import jakarta.persistence.LockModeType;
-import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AssetRepo extends JpaRepository<Asset, Long> {
+public interface AssetRepo extends JpaRepository<Asset, Long>, AssetBalanceRepo {
 
-    @Transactional
-    List<Asset> findAllByCustomerId(long customerId);
+    // Read endpoints: views of the columns, in read-only
+    // transactions, nothing is flushed or dirty checked.
+    @Transactional(readOnly = true)
+    @Query(AssetView.SELECT + " FROM Asset a WHERE a.customerId = :customerId ORDER BY a.id")
+    List<AssetView> findViewsByCustomerId(long customerId);
+
+    // Keyset page, see Paging
+    @Transactional(readOnly = true)
+    @Query(AssetView.SELECT + " FROM Asset a WHERE a.id > :id ORDER BY a.id")
+    List<AssetView> findViewsByIdGreaterThan(long id, Limit limit);
 
     // Locking implemented to prevent
     // concurrent updates to Asset usable size
-    // field.
+    // field. Still taken in SHARDED execution
+    // mode: settlement updates the assets of
+    // two customers at once, outside their
+    // shards, but requests of one customer no
+    // longer wait on it for each other.
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Asset a WHERE a.customerId = :customerId and a.assetName = :name")
     Optional<Asset> findByCustomerIdAndAssetName(long customerId, String name);
+
+    // Locks the TRY asset of a customer on its own. Taken
+    // before the locks of its other assets, the order of
+    // TradeSettlementService and the single order workflows.
+    default Optional<Asset> lockTry(long customerId) {
+        return findByCustomerIdAndAssetName(customerId, AssetNames.TRY.name());
+    }
+
+    // OPTIMISTIC execution mode: read without a lock,
+    // the version is checked when the transaction
+    // commits, see OptimisticRetry.
+    @Lock(LockModeType.OPTIMISTIC)
+    @Query("SELECT a FROM Asset a WHERE a.customerId = :customerId and a.assetName = :name")
+    Optional<Asset> findByCustomerIdAndAssetNameOptimistic(long customerId, String name);
+
+    @Lock(LockModeType.OPTIMISTIC)
+    @Query("SELECT a FROM Asset a WHERE a.customerId = :customerId and a.assetName IN :names ORDER BY a.id")
+    List<Asset> findAllByCustomerIdAndAssetNamesOptimistic(long customerId, Collection<String> names);
+
+    // Tells a missing asset from a too small balance
+    // once a guarded update of AssetBalanceRepo failed.
+    boolean existsByCustomerIdAndAssetName(long customerId, String assetName);
+
+    // Committed balance, read without a lock once a
+    // guarded update failed, for the BalanceCache.
+    @Query("""
+            SELECT new com.example.demo.assets.model.AssetBalance(a.usableSize, a.version)
+            FROM Asset a WHERE a.customerId = :customerId and a.assetName = :name""")
+    Optional<AssetBalance> findBalance(long customerId, String name);
+
+    @Query("SELECT a.size FROM Asset a WHERE a.customerId = :customerId and a.assetName = :name")
+    Optional<Long> findSize(long customerId, String name);
+
+    // Locks the given assets of a customer at once,
+    // in ascending id order, for batch processing.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Asset a WHERE a.customerId = :customerId and a.assetName IN :names ORDER BY a.id")
+    List<Asset> findAllByCustomerIdAndAssetNamesForUpdate(long customerId, Collection<String> names);
 }
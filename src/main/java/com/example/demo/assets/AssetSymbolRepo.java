@@ -0,0 +1,14 @@
+package com.example.demo.assets;
+
+import com.example.demo.assets.model.AssetSymbol;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AssetSymbolRepo extends JpaRepository<AssetSymbol, Integer> {
+
+    // Backed by the unique index on name.
+    Optional<AssetSymbol> findByName(String name);
+}
@@ -1,14 +1,19 @@
 package com.example.demo.assets.model;
 
+import com.example.demo.assets.service.AssetSymbolListener;
+import com.example.demo.assets.service.BalanceCacheListener;
+import com.example.demo.journal.JournalEntityListener;
+import com.example.demo.utils.FixedPointJson;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.*;
 
 @Entity
+@EntityListeners({ AssetSymbolListener.class, JournalEntityListener.class, BalanceCacheListener.class })
 @Table(name = "assets",
         uniqueConstraints = {
-            @UniqueConstraint(columnNames = { "customerId", "assetName" })
+            @UniqueConstraint(columnNames = { "customerId", "symbol_id" })
         })
 @Data
 @NoArgsConstructor
@@ -17,20 +22,33 @@ import lombok.*;
 public class Asset {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assets_seq")
+    @SequenceGenerator(name = "assets_seq", sequenceName = "assets_seq", allocationSize = 50)
     private long id;
 
     @NotNull
     @PositiveOrZero
     private long customerId;
 
+    // Stored as its int id of asset_symbols, the unique
+    // index on (customerId, symbol_id) is 12 bytes a row.
     @NotNull
+    @Convert(converter = AssetSymbolConverter.class)
+    @Column(name = "symbol_id")
     private String assetName;
 
+    // FixedPoint units, TRY and shares alike
     @PositiveOrZero
-    private double size;
+    @FixedPointJson
+    private long size;
 
     @PositiveOrZero
-    private double usableSize;
+    @FixedPointJson
+    private long usableSize;
+
+    // Checked and incremented on every update, a
+    // concurrent change fails the optimistic writer.
+    @Version
+    private long version;
 
 }
@@ -0,0 +1,9 @@
+package com.example.demo.assets.model;
+
+// usableSize of an asset row in FixedPoint units, with
+// the row version it was read at.
+public record AssetBalance(
+        long usableSize,
+        long version
+) {
+}
@@ -0,0 +1,33 @@
+package com.example.demo.assets.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+// Dictionary entry of an asset name, e.g. "KCHOL". Asset,
+// order and execution rows store the int id instead of the
+// name, see AssetSymbolConverter. Entries are only ever
+// inserted. Not journaled: a replay registers the names of
+// the journaled rows again.
+@Entity
+@Table(name = "asset_symbols",
+        uniqueConstraints = {
+            @UniqueConstraint(columnNames = { "name" })
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetSymbol {
+
+    // Dense small ids, the in-memory dictionary
+    // resolves an id to its name by array index.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_symbols_seq")
+    @SequenceGenerator(name = "asset_symbols_seq", sequenceName = "asset_symbols_seq", allocationSize = 1)
+    private int id;
+
+    @NotEmpty
+    private String name;
+
+}
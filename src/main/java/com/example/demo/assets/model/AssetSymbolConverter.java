@@ -0,0 +1,40 @@
+package com.example.demo.assets.model;
+
+import com.example.demo.assets.service.AssetSymbols;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stores an assetName as its int id of the asset_symbols table.
+ * Entities, queries and JSON keep working with the name, the
+ * rows and the indexes on them hold 4 byte ids.
+ * <p>
+ * Never registers a name: an unknown name, i.e. a lookup or an
+ * order of an asset nobody holds, is bound as a sentinel id which
+ * matches no row. New rows register their name beforehand, see
+ * AssetSymbolListener.
+ * <p>
+ * Created by Hibernate through the Spring bean container, the
+ * dictionary is looked up lazily: it needs repositories which
+ * need the EntityManagerFactory this converter is part of.
+ */
+@Converter
+@RequiredArgsConstructor
+public class AssetSymbolConverter implements AttributeConverter<String, Integer> {
+
+    private final ObjectProvider<AssetSymbols> assetSymbols;
+
+    @Override
+    public Integer convertToDatabaseColumn(String assetName) {
+        return assetName == null
+                ? null
+                : assetSymbols.getObject().find(assetName).orElse(AssetSymbols.UNKNOWN);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer symbolId) {
+        return symbolId == null ? null : assetSymbols.getObject().nameOf(symbolId);
+    }
+}
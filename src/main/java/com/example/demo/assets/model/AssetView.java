@@ -0,0 +1,18 @@
+package com.example.demo.assets.model;
+
+import com.example.demo.utils.FixedPointJson;
+
+// Read model of an asset, read with a constructor expression,
+// not managed and never dirty checked. Same JSON as an Asset.
+public record AssetView(
+        long id,
+        long customerId,
+        String assetName,
+        @FixedPointJson long size,
+        @FixedPointJson long usableSize,
+        long version
+) {
+
+    public static final String SELECT = "SELECT new com.example.demo.assets.model.AssetView("
+            + "a.id, a.customerId, a.assetName, a.size, a.usableSize, a.version)";
+}
@@ -1,10 +1,12 @@
 package com.example.demo.assets.model;
 
+import com.example.demo.utils.FixedPointJson;
 import jakarta.validation.constraints.Positive;
 
 public record DepositMoneyDto(
 
         @Positive(message = "deposit amount must be positive")
-        double depositAmount
+        @FixedPointJson
+        long depositAmount
 ) {
 }
@@ -1,5 +1,6 @@
 package com.example.demo.assets.model;
 
+import com.example.demo.utils.FixedPointJson;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -8,7 +9,8 @@ import jakarta.validation.constraints.Size;
 public record WithdrawMoneyDto(
 
         @Positive(message = "witdraw amount must be positive")
-        double withdrawAmount,
+        @FixedPointJson
+        long withdrawAmount,
 
         @NotNull(message = "iban shall exists")
         @NotEmpty(message = "iban shall not be empty-string")
@@ -2,6 +2,7 @@ package com.example.demo.assets.service;
 
 import com.example.demo.assets.model.Asset;
 import com.example.demo.assets.model.AssetDto;
+import com.example.demo.utils.FixedPoint;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -10,8 +11,8 @@ public class AssetMapper {
     public Asset toAsset(AssetDto dto) {
         return Asset.builder()
                 .assetName(dto.assetName())
-                .size(dto.assetSize())
-                .usableSize(dto.assetSize()) // at creation usable size must be equal to size
+                .size(FixedPoint.of(dto.assetSize()))
+                .usableSize(FixedPoint.of(dto.assetSize())) // at creation usable size must be equal to size
                 .customerId(dto.customerId())
                 .build();
 
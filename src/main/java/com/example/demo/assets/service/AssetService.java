@@ -3,11 +3,18 @@ package com.example.demo.assets.service;
 import com.example.demo.assets.AssetRepo;
 import com.example.demo.assets.model.*;
 import com.example.demo.customers.service.CustomerNotFoundException;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.sharding.CustomerSharded;
+import com.example.demo.sharding.OptimisticRetry;
+import com.example.demo.utils.FixedPoint;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -15,52 +22,62 @@ public class AssetService {
 
     private final AssetRepo assetRepo;
 
-    public List<Asset> getAssetsOfCustomer(
+    public List<AssetView> getAssetsOfCustomer(
             long customerId) throws CustomerNotFoundException {
-        return assetRepo.findAllByCustomerId(customerId);
+        return assetRepo.findViewsByCustomerId(customerId);
     }
 
+    @CustomerSharded
     @Transactional
-    public Double depositMoney(
+    public long depositMoney(
             long customerId,
             DepositMoneyDto depositMoneyDto
     ) throws AssetNotFoundException {
         var depositAmount = depositMoneyDto.depositAmount();
 
-        Asset asset = assetRepo.findByCustomerIdAndAssetName(
-                customerId, AssetNames.TRY.name()
-        ).orElseThrow(AssetNotFoundException::new);
+        Asset asset = findTryAsset(customerId)
+                .orElseThrow(AssetNotFoundException::new);
 
-        asset.setSize(asset.getSize() + depositAmount);
-        asset.setUsableSize(asset.getUsableSize() + depositAmount);
+        asset.setSize(FixedPoint.add(asset.getSize(), depositAmount));
+        asset.setUsableSize(FixedPoint.add(asset.getUsableSize(), depositAmount));
         assetRepo.save(asset);
         return asset.getSize();
     }
 
+    @CustomerSharded
     @Transactional
-    public Double withdrawMoney(
+    public long withdrawMoney(
             long customerId,
             WithdrawMoneyDto depositMoneyDto
     ) throws NotEnoughMoneyException,
             AssetNotFoundException {
         var amount = depositMoneyDto.withdrawAmount();
 
-        Asset asset = assetRepo.findByCustomerIdAndAssetName(
-                customerId, AssetNames.TRY.name()
-        ).orElseThrow(AssetNotFoundException::new);
-
-        if(asset.getUsableSize() >= amount) {
-            asset.setSize(asset.getSize() - amount);
-            asset.setUsableSize(asset.getUsableSize() - amount);
-            assetRepo.save(asset);
-            return asset.getSize();
-        } else {
+        // Check and decrease the money in one guarded
+        // UPDATE, the TRY asset stays locked until commit.
+        if (assetRepo.withdraw(customerId, AssetNames.TRY.name(), amount) == 0) {
+            if (!assetRepo.existsByCustomerIdAndAssetName(customerId, AssetNames.TRY.name())) {
+                throw new AssetNotFoundException();
+            }
             throw new NotEnoughMoneyException();
         }
+        return assetRepo.findSize(customerId, AssetNames.TRY.name())
+                .orElseThrow(AssetNotFoundException::new);
+    }
+
+    // Locked, unless the call is retried on version
+    // conflicts in OPTIMISTIC execution mode.
+    private Optional<Asset> findTryAsset(long customerId) {
+        return OptimisticRetry.isActive()
+                ? assetRepo.findByCustomerIdAndAssetNameOptimistic(customerId, AssetNames.TRY.name())
+                : assetRepo.findByCustomerIdAndAssetName(customerId, AssetNames.TRY.name());
     }
 
-    public List<Asset> getAllAssets() {
-        return assetRepo.findAll();
+    public KeysetPage<AssetView> getAllAssets(PageCursor after, int pageSize) {
+        return KeysetPage.of(
+                assetRepo.findViewsByIdGreaterThan(after.id(), Limit.of(pageSize + 1)),
+                pageSize,
+                asset -> PageCursor.afterId(asset.id()));
     }
 
     public Asset create(Asset asset) {
@@ -0,0 +1,31 @@
+package com.example.demo.assets.service;
+
+import com.example.demo.assets.model.Asset;
+import com.example.demo.orders.model.Order;
+import jakarta.persistence.PrePersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the asset name of a new Asset or Order row in the
+ * {@link AssetSymbols} before it is inserted. This is the only
+ * place a symbol is created: names only bound as query parameters
+ * never are, see AssetSymbolConverter. Executions and archived
+ * orders reuse the name of an order already inserted.
+ */
+@Component
+@RequiredArgsConstructor
+public class AssetSymbolListener {
+
+    private final ObjectProvider<AssetSymbols> assetSymbols;
+
+    @PrePersist
+    public void register(Object entity) {
+        if (entity instanceof Asset asset && asset.getAssetName() != null) {
+            assetSymbols.getObject().idOf(asset.getAssetName());
+        } else if (entity instanceof Order order && order.getAssetName() != null) {
+            assetSymbols.getObject().idOf(order.getAssetName());
+        }
+    }
+}
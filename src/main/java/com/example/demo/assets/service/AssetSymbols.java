@@ -0,0 +1,105 @@
+package com.example.demo.assets.service;
+
+import com.example.demo.assets.AssetSymbolRepo;
+import com.example.demo.assets.model.AssetSymbol;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory dictionary of asset names to the small int ids of
+ * the asset_symbols table, cached in both directions: a hash
+ * map from name to id and an array indexed by id for the names.
+ * <p>
+ * Symbols are never renamed or deleted, so the cache cannot go
+ * stale and lookups take no lock. A name is only registered when
+ * an asset or order row is created with it, see AssetSymbolListener,
+ * once, in its own transaction: the id stays valid even if the
+ * transaction which first used the name is rolled back.
+ */
+@Log
+@Service
+public class AssetSymbols {
+
+    // Bound for a name never registered, matches no row.
+    public static final int UNKNOWN = -1;
+
+    private final AssetSymbolRepo assetSymbolRepo;
+    private final TransactionTemplate ownTransaction;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // replaced, never changed in place, once published
+    private volatile String[] names = new String[16];
+
+    public AssetSymbols(AssetSymbolRepo assetSymbolRepo, PlatformTransactionManager transactionManager) {
+        this.assetSymbolRepo = assetSymbolRepo;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void load() {
+        assetSymbolRepo.findAll().forEach(this::cache);
+        log.info("Loaded " + ids.size() + " asset symbols");
+    }
+
+    /**
+     * Id of the asset name, registered when seen first.
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    /**
+     * Id of the asset name, empty when it was never registered.
+     */
+    public OptionalInt find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? OptionalInt.of(id) : OptionalInt.empty();
+    }
+
+    public String nameOf(int id) {
+        String[] cached = names;
+        if (id >= 0 && id < cached.length && cached[id] != null) {
+            return cached[id];
+        }
+        return ownTransaction.execute(status -> assetSymbolRepo.findById(id))
+                .map(this::cache)
+                .orElseThrow(() -> new IllegalStateException("Unknown asset symbol: " + id));
+    }
+
+    private synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        AssetSymbol symbol = ownTransaction.execute(status -> assetSymbolRepo.findByName(name)
+                .orElseGet(() -> assetSymbolRepo.save(AssetSymbol.builder().name(name).build())));
+        cache(symbol);
+        log.info("Registered asset symbol " + name + " as " + symbol.getId());
+        return symbol.getId();
+    }
+
+    // The name is published before its id, a reader which
+    // found the id always finds the name.
+    private synchronized String cache(AssetSymbol symbol) {
+        int id = symbol.getId();
+        String[] cached = names;
+        String[] updated = id < cached.length
+                ? cached.clone()
+                : Arrays.copyOf(cached, Math.max(id + 1, 2 * cached.length));
+        updated[id] = symbol.getName();
+        names = updated;
+        ids.put(symbol.getName(), id);
+        return symbol.getName();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.assets.service;
+
+import com.example.demo.assets.model.AssetBalance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-through cache of the usableSize of asset rows, per
+ * customer and asset symbol, for pre-trade checks: an order
+ * which obviously lacks funds is rejected from memory, without
+ * a transaction and without the guarded UPDATE of the row.
+ * <p>
+ * Changes are cached once their transaction commits, from the
+ * Asset entity listener and only when their row version is newer
+ * than the cached one: commits reaching the cache out of order
+ * never take it back. The guarded bulk updates of AssetBalanceRepo
+ * do not read their row back, they evict its balance instead. A
+ * failed guarded update caches the balance it read back, so
+ * repeated rejections of a customer are served from memory.
+ * <p>
+ * Only a rejection is answered from the cache. A miss, or a
+ * balance which is enough, still goes to the guarded UPDATE.
+ * <p>
+ * Configuration: orders.balance-cache.enabled.
+ * Metric: <code>orders.balance-cache.rejections</code>.
+ */
+@Service
+public class BalanceCache {
+
+    private record Key(long customerId, int symbolId) {
+    }
+
+    private final AssetSymbols assetSymbols;
+    private final boolean enabled;
+    private final Counter rejections;
+
+    private final Map<Key, AssetBalance> balances = new ConcurrentHashMap<>();
+
+    public BalanceCache(
+            AssetSymbols assetSymbols,
+            MeterRegistry meterRegistry,
+            @Value("${orders.balance-cache.enabled:true}") boolean enabled) {
+        this.assetSymbols = assetSymbols;
+        this.enabled = enabled;
+        this.rejections = Counter.builder("orders.balance-cache.rejections")
+                .description("Orders rejected from the balance cache, without a transaction")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * True only when the cached usableSize is below the amount,
+     * false when it is enough or not cached.
+     */
+    public boolean lacks(long customerId, String assetName, long amount) {
+        if (!enabled) {
+            return false;
+        }
+        // never registers a symbol for an unknown name
+        OptionalInt symbolId = assetSymbols.find(assetName);
+        if (symbolId.isEmpty()) {
+            return false;
+        }
+        AssetBalance balance = balances.get(new Key(customerId, symbolId.getAsInt()));
+        if (balance == null || balance.usableSize() >= amount) {
+            return false;
+        }
+        rejections.increment();
+        return true;
+    }
+
+    /**
+     * Caches the balance of a changed row once the current
+     * transaction commits, nothing if it is rolled back.
+     */
+    public void onChange(long customerId, String assetName, AssetBalance balance) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(customerId, assetName, balance);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(customerId, assetName, balance);
+            }
+        });
+    }
+
+    /**
+     * Drops the cached balance of a row changed by a bulk update
+     * once the current transaction commits, nothing if it is
+     * rolled back. The next failed guarded update caches it again.
+     */
+    public void evict(long customerId, String assetName) {
+        if (!enabled) {
+            return;
+        }
+        OptionalInt symbolId = assetSymbols.find(assetName);
+        if (symbolId.isEmpty()) {
+            return;
+        }
+        Key key = new Key(customerId, symbolId.getAsInt());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balances.remove(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                balances.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Caches a balance read from a row the current transaction
+     * did not change, it is committed already.
+     */
+    public void onRead(long customerId, String assetName, AssetBalance balance) {
+        if (enabled) {
+            put(customerId, assetName, balance);
+        }
+    }
+
+    private void put(long customerId, String assetName, AssetBalance balance) {
+        balances.merge(new Key(customerId, assetSymbols.idOf(assetName)), balance,
+                (cached, committed) -> committed.version() > cached.version() ? committed : cached);
+    }
+}
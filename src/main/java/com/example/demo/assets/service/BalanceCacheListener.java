@@ -0,0 +1,31 @@
+package com.example.demo.assets.service;
+
+import com.example.demo.assets.model.Asset;
+import com.example.demo.assets.model.AssetBalance;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands every insert and update of an Asset to the
+ * {@link BalanceCache}: deposits, settlements, auctions and
+ * admin matches all end up in a flush of the entity. Bulk
+ * updates skip it, AssetBalanceRepo hands those in itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceCacheListener {
+
+    private final ObjectProvider<BalanceCache> balanceCache;
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Asset asset) {
+        balanceCache.getObject().onChange(
+                asset.getCustomerId(),
+                asset.getAssetName(),
+                new AssetBalance(asset.getUsableSize(), asset.getVersion()));
+    }
+}
@@ -3,6 +3,10 @@ package com.example.demo.customers;
 import com.example.demo.utils.ControllerUtils;
 import com.example.demo.customers.service.CustomerService;
 import com.example.demo.customers.model.Customer;
+import com.example.demo.customers.model.CustomerView;
+import com.example.demo.paging.InvalidCursorException;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.paging.Paging;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -19,20 +23,30 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final Paging paging;
 
 
     // TODO - LIST ALL CUSTOMERS REQUIREMENT
+    // KEYSET PAGED, NEXT PAGE CURSOR IN X-Next-Cursor
     @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        return ResponseEntity.ok(customerService.getAllCustomers());
+    public ResponseEntity<List<CustomerView>> getAllCustomers(
+            @RequestParam(name = "cursor", required = false)
+            String cursor,
+
+            @RequestParam(name = "limit", required = false)
+            Integer limit
+    ) throws InvalidCursorException {
+        return Paging.toResponse(
+                customerService.getAllCustomers(PageCursor.decode(cursor), paging.pageSize(limit))
+        );
     }
 
 
     // TODO - GET CUSTOMER BY ID REQUIREMENT
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
     @GetMapping("/{customerId}")
-    public ResponseEntity<Customer> getCustomer(
+    public ResponseEntity<CustomerView> getCustomer(
             @PathVariable("customerId")
             long customerId
     ) {
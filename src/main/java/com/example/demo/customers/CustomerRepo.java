@@ -1,15 +1,30 @@
 package com.example.demo.customers;
 
 import com.example.demo.customers.model.Customer;
-import jakarta.transaction.Transactional;
+import com.example.demo.customers.model.CustomerView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepo extends JpaRepository<Customer, Long> {
 
-    @Transactional
+    @Transactional(readOnly = true)
     Optional<Customer> findByEmail(String email);
+
+    // Read endpoints: views of the columns, in read-only
+    // transactions, nothing is flushed or dirty checked.
+    @Transactional(readOnly = true)
+    @Query(CustomerView.SELECT + " FROM Customer c WHERE c.id = :id")
+    Optional<CustomerView> findViewById(long id);
+
+    // Keyset page, see Paging
+    @Transactional(readOnly = true)
+    @Query(CustomerView.SELECT + " FROM Customer c WHERE c.id > :id ORDER BY c.id")
+    List<CustomerView> findViewsByIdGreaterThan(long id, Limit limit);
 }
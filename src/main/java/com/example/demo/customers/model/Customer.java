@@ -1,5 +1,6 @@
 package com.example.demo.customers.model;
 
+import com.example.demo.journal.JournalEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -17,7 +18,12 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "customers")
+@EntityListeners(JournalEntityListener.class)
+// email is the login name, looked up on every sign in.
+@Table(name = "customers",
+        indexes = {
+            @Index(name = "idx_customers_email", columnList = "email")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,7 +31,8 @@ import java.util.List;
 public class Customer implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_seq")
+    @SequenceGenerator(name = "customers_seq", sequenceName = "customers_seq", allocationSize = 50)
     private long id;
 
     @NotNull(message = "Firstname cannot be omitted")
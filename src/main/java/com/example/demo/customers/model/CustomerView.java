@@ -0,0 +1,17 @@
+package com.example.demo.customers.model;
+
+// Read model of a customer, read with a constructor expression:
+// the columns only, no managed entity and no UserDetails
+// methods. Same JSON fields as the customer columns, except
+// the password hash, which is never selected nor served.
+public record CustomerView(
+        long id,
+        String firstName,
+        String lastName,
+        String email,
+        AppSecurityRoles role
+) {
+
+    public static final String SELECT = "SELECT new com.example.demo.customers.model.CustomerView("
+            + "c.id, c.firstName, c.lastName, c.email, c.role)";
+}
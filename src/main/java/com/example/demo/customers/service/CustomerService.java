@@ -2,11 +2,14 @@ package com.example.demo.customers.service;
 
 import com.example.demo.customers.CustomerRepo;
 import com.example.demo.customers.model.Customer;
+import com.example.demo.customers.model.CustomerView;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -21,11 +24,14 @@ public class CustomerService {
         return customerRepo.save(customer);
     }
 
-    public Optional<Customer> getCustomer(long customerId) {
-        return customerRepo.findById(customerId);
+    public Optional<CustomerView> getCustomer(long customerId) {
+        return customerRepo.findViewById(customerId);
     }
 
-    public List<Customer> getAllCustomers() {
-        return customerRepo.findAll();
+    public KeysetPage<CustomerView> getAllCustomers(PageCursor after, int pageSize) {
+        return KeysetPage.of(
+                customerRepo.findViewsByIdGreaterThan(after.id(), Limit.of(pageSize + 1)),
+                pageSize,
+                customer -> PageCursor.afterId(customer.id()));
     }
 }
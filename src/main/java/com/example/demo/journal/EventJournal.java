@@ -0,0 +1,208 @@
+package com.example.demo.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of committed row changes, kept in a memory
+ * mapped file. An append is a copy into the mapping, no system
+ * call and no JPA flush, the page cache writes it out.
+ * <p>
+ * Group fsync: a single flusher thread forces the mapping every
+ * orders.journal.fsync-interval-ms, all records appended since the
+ * last force become durable together. {@link #awaitDurable(int)}
+ * lets a committer wait for the force covering its records.
+ * <p>
+ * Every record is framed as [length][CRC32][payload]. The file is
+ * zero filled beyond the last record, so reading stops at the first
+ * zero length, and a record torn by a crash fails its checksum and
+ * ends the journal there.
+ * <p>
+ * Only created with orders.journal.enabled=true.
+ */
+@Log
+@Service
+@ConditionalOnProperty(name = "orders.journal.enabled", havingValue = "true")
+public class EventJournal {
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+
+    // guarded by this
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private int durablePosition;
+
+    public EventJournal(
+            @Value("${orders.journal.path:data/orders.journal}") String path,
+            @Value("${orders.journal.initial-size-mb:64}") int initialSizeMb,
+            @Value("${orders.journal.fsync-interval-ms:2}") long fsyncIntervalMs) throws IOException {
+        Path file = Path.of(path).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = map(Math.max(channel.size(), (long) initialSizeMb << 20));
+        this.writePosition = endOfRecords();
+        this.durablePosition = writePosition;
+        log.info("Journal " + file + " opened, " + writePosition + " bytes of records");
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends the records as one group, in the given order.
+     *
+     * @return the position following the last record, to be
+     *         passed to {@link #awaitDurable(int)}
+     */
+    public synchronized int append(List<byte[]> records) {
+        for (byte[] payload : records) {
+            ensureCapacity(HEADER_SIZE + payload.length);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            // payload before length, a zero length ends a reader
+            // before it could see a half written record.
+            buffer.put(writePosition + HEADER_SIZE, payload);
+            buffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+            buffer.putInt(writePosition, payload.length);
+            writePosition += HEADER_SIZE + payload.length;
+        }
+        return writePosition;
+    }
+
+    /**
+     * Waits until the group fsync covering the given position is done.
+     */
+    public synchronized void awaitDurable(int position) throws InterruptedException {
+        while (durablePosition < position) {
+            wait();
+        }
+    }
+
+    /**
+     * Position following the last appended record.
+     */
+    public synchronized int position() {
+        return writePosition;
+    }
+
+    /**
+     * Payloads of all records, oldest first.
+     */
+    public List<byte[]> readAll() {
+        return readFrom(0);
+    }
+
+    /**
+     * Payloads of the records starting at the given position,
+     * e.g. the position a snapshot was taken at, oldest first.
+     */
+    public synchronized List<byte[]> readFrom(int from) {
+        List<byte[]> records = new ArrayList<>();
+        int position = from;
+        while (position < writePosition) {
+            byte[] payload = new byte[buffer.getInt(position)];
+            buffer.get(position + HEADER_SIZE, payload);
+            records.add(payload);
+            position += HEADER_SIZE + payload.length;
+        }
+        return records;
+    }
+
+    private void flush() {
+        MappedByteBuffer mapped;
+        int target;
+        synchronized (this) {
+            if (durablePosition >= writePosition) {
+                return;
+            }
+            mapped = buffer;
+            target = writePosition;
+        }
+        // forced outside the lock, appends go on meanwhile
+        // and join the next group.
+        mapped.force(0, target);
+        synchronized (this) {
+            durablePosition = Math.max(durablePosition, target);
+            notifyAll();
+        }
+    }
+
+    private int endOfRecords() {
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_SIZE, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (buffer.getInt(position + Integer.BYTES) != (int) crc.getValue()) {
+                log.warning("Journal record at " + position + " is torn, ignoring it and what follows");
+                break;
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    // A mapping cannot grow, a larger one is mapped instead.
+    // The old one is forced first so that no write is left
+    // behind in a mapping the flusher no longer sees.
+    private void ensureCapacity(int recordSize) {
+        long required = (long) writePosition + recordSize;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("journal is full");
+        }
+        long size = Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity()));
+        try {
+            buffer.force();
+            buffer = map(size);
+        } catch (IOException e) {
+            throw new IllegalStateException("journal cannot grow to " + size + " bytes", e);
+        }
+    }
+
+    private MappedByteBuffer map(long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flusher.shutdown();
+        synchronized (this) {
+            buffer.force();
+            durablePosition = writePosition;
+            notifyAll();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.journal;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Journals every insert and update of customers, assets, orders
+ * and executions, whichever service or thread makes it: create,
+ * cancel, match, settlement, auction, deposit and withdraw all
+ * end up in a flush of these entities.
+ * <p>
+ * Images are taken at flush time and collected per transaction,
+ * they are appended as one group only once it commits, so a
+ * rolled back change is never journaled. The committing thread
+ * then waits for the group fsync, an acknowledged change is on
+ * disk.
+ * <p>
+ * Bulk updates skip the entity listeners, their repositories hand
+ * the new images in through {@link #onBulkUpdate(Supplier)}.
+ * <p>
+ * Does nothing unless the {@link EventJournal} is enabled.
+ */
+@Component
+@RequiredArgsConstructor
+public class JournalEntityListener {
+
+    private final ObjectProvider<EventJournal> eventJournal;
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Object entity) {
+        EventJournal journal = eventJournal.getIfAvailable();
+        if (journal == null) {
+            return;
+        }
+        JournalRecord.of(entity)
+                .map(JournalRecord::encode)
+                .ifPresent(record -> record(journal, record));
+    }
+
+    public boolean isEnabled() {
+        return eventJournal.getIfAvailable() != null;
+    }
+
+    /**
+     * Journals a row changed by a bulk update. The image is
+     * only taken, i.e. read back, when the journal is enabled.
+     */
+    public void onBulkUpdate(Supplier<JournalRecord> image) {
+        EventJournal journal = eventJournal.getIfAvailable();
+        if (journal == null) {
+            return;
+        }
+        record(journal, JournalRecord.encode(image.get()));
+    }
+
+    private void record(EventJournal journal, byte[] record) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending(journal).add(record);
+        } else {
+            append(journal, List.of(record));
+        }
+    }
+
+    private static void append(EventJournal journal, List<byte[]> records) {
+        try {
+            journal.awaitDurable(journal.append(records));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<byte[]> pending(EventJournal journal) {
+        List<byte[]> records = (List<byte[]>) TransactionSynchronizationManager.getResource(this);
+        if (records != null) {
+            return records;
+        }
+        List<byte[]> transactionRecords = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, transactionRecords);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(JournalEntityListener.this);
+                if (status == STATUS_COMMITTED) {
+                    append(journal, transactionRecords);
+                }
+            }
+        });
+        return transactionRecords;
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.demo.journal;
+
+import com.example.demo.assets.model.Asset;
+import com.example.demo.customers.model.AppSecurityRoles;
+import com.example.demo.customers.model.Customer;
+import com.example.demo.orders.model.*;
+
+import java.io.*;
+import java.sql.Timestamp;
+import java.util.Optional;
+
+/**
+ * One entry of the {@link EventJournal}: the image of a row right
+ * after it was inserted or updated. Replaying keeps the image of
+ * the highest version of every row, so a record never depends on
+ * the records before it and the journal stays valid whatever
+ * transaction, service or writer thread produced the change, and
+ * in whatever order concurrent commits appended their records.
+ * <p>
+ * Enums are kept as ordinals, like the JPA columns they rebuild,
+ * amounts as their {@link com.example.demo.utils.FixedPoint} units.
+ * Assets are kept by name, not by their symbol id: the journal
+ * does not depend on the asset_symbols table of the database.
+ */
+public sealed interface JournalRecord {
+
+    byte CUSTOMER = 1;
+    byte ASSET = 2;
+    byte ORDER = 3;
+    byte EXECUTION = 4;
+
+    // Column of the asset symbol id, row() holds the asset
+    // name there, resolved to its id when it is inserted.
+    String SYMBOL_ID = "symbol_id";
+
+    long id();
+
+    String table();
+
+    String[] columns();
+
+    // Optimistic lock version of the image, rows without one
+    // (customers, immutable executions) keep the last image.
+    default long version() {
+        return 0;
+    }
+
+    Object[] row();
+
+    record CustomerImage(
+            long id,
+            String firstName,
+            String lastName,
+            String email,
+            String password,
+            AppSecurityRoles role
+    ) implements JournalRecord {
+
+        private static final String[] COLUMNS =
+                { "id", "first_name", "last_name", "email", "password", "role" };
+
+        @Override
+        public String table() {
+            return "customers";
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public Object[] row() {
+            return new Object[] { id, firstName, lastName, email, password, column(role) };
+        }
+    }
+
+    record AssetImage(
+            long id,
+            long customerId,
+            String assetName,
+            long size,
+            long usableSize,
+            long version
+    ) implements JournalRecord {
+
+        private static final String[] COLUMNS =
+                { "id", "customer_id", SYMBOL_ID, "size", "usable_size", "version" };
+
+        @Override
+        public String table() {
+            return "assets";
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public Object[] row() {
+            return new Object[] { id, customerId, assetName, size, usableSize, version };
+        }
+    }
+
+    record OrderImage(
+            long id,
+            long customerId,
+            String assetName,
+            OrderSide orderSide,
+            int size,
+            long price,
+            int filledSize,
+            OrderStatus orderStatus,
+            OrderType orderType,
+            String clientOrderId,
+            long createDate,
+            long version
+    ) implements JournalRecord {
+
+        private static final String[] COLUMNS =
+                { "id", "customer_id", SYMBOL_ID, "order_side", "size", "price", "filled_size",
+                  "order_status", "order_type", "client_order_id", "create_date", "version" };
+
+        @Override
+        public String table() {
+            return "orders";
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public Object[] row() {
+            return new Object[] { id, customerId, assetName, column(orderSide), size, price, filledSize,
+                    column(orderStatus), column(orderType), clientOrderId, new Timestamp(createDate), version };
+        }
+    }
+
+    record ExecutionImage(
+            long id,
+            long orderId,
+            long customerId,
+            String assetName,
+            OrderSide orderSide,
+            int size,
+            long price,
+            long createDate
+    ) implements JournalRecord {
+
+        private static final String[] COLUMNS =
+                { "id", "order_id", "customer_id", SYMBOL_ID, "order_side", "size", "price", "create_date" };
+
+        @Override
+        public String table() {
+            return "executions";
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public Object[] row() {
+            return new Object[] { id, orderId, customerId, assetName, column(orderSide), size, price,
+                    new Timestamp(createDate) };
+        }
+    }
+
+    /**
+     * Image of a journaled entity, empty for any other object.
+     */
+    static Optional<JournalRecord> of(Object entity) {
+        if (entity instanceof Customer customer) {
+            return Optional.of(new CustomerImage(
+                    customer.getId(),
+                    customer.getFirstName(),
+                    customer.getLastName(),
+                    customer.getEmail(),
+                    customer.getPassword(),
+                    customer.getRole()));
+        }
+        if (entity instanceof Asset asset) {
+            return Optional.of(new AssetImage(
+                    asset.getId(),
+                    asset.getCustomerId(),
+                    asset.getAssetName(),
+                    asset.getSize(),
+                    asset.getUsableSize(),
+                    asset.getVersion()));
+        }
+        if (entity instanceof Order order) {
+            return Optional.of(new OrderImage(
+                    order.getId(),
+                    order.getCustomerId(),
+                    order.getAssetName(),
+                    order.getOrderSide(),
+                    order.getSize(),
+                    order.getPrice(),
+                    order.getFilledSize(),
+                    order.getOrderStatus(),
+                    order.getOrderType(),
+                    order.getClientOrderId(),
+                    order.getCreateDate().getTime(),
+                    order.getVersion()));
+        }
+        if (entity instanceof Execution execution) {
+            return Optional.of(new ExecutionImage(
+                    execution.getId(),
+                    execution.getOrderId(),
+                    execution.getCustomerId(),
+                    execution.getAssetName(),
+                    execution.getOrderSide(),
+                    execution.getSize(),
+                    execution.getPrice(),
+                    execution.getCreateDate().getTime()));
+        }
+        return Optional.empty();
+    }
+
+    static byte[] encode(JournalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (record instanceof CustomerImage customer) {
+                out.writeByte(CUSTOMER);
+                out.writeLong(customer.id());
+                writeString(out, customer.firstName());
+                writeString(out, customer.lastName());
+                writeString(out, customer.email());
+                writeString(out, customer.password());
+                out.writeByte(ordinal(customer.role()));
+            } else if (record instanceof AssetImage asset) {
+                out.writeByte(ASSET);
+                out.writeLong(asset.id());
+                out.writeLong(asset.customerId());
+                writeString(out, asset.assetName());
+                out.writeLong(asset.size());
+                out.writeLong(asset.usableSize());
+                out.writeLong(asset.version());
+            } else if (record instanceof OrderImage order) {
+                out.writeByte(ORDER);
+                out.writeLong(order.id());
+                out.writeLong(order.customerId());
+                writeString(out, order.assetName());
+                out.writeByte(ordinal(order.orderSide()));
+                out.writeInt(order.size());
+                out.writeLong(order.price());
+                out.writeInt(order.filledSize());
+                out.writeByte(ordinal(order.orderStatus()));
+                out.writeByte(ordinal(order.orderType()));
+                writeString(out, order.clientOrderId());
+                out.writeLong(order.createDate());
+                out.writeLong(order.version());
+            } else if (record instanceof ExecutionImage execution) {
+                out.writeByte(EXECUTION);
+                out.writeLong(execution.id());
+                out.writeLong(execution.orderId());
+                out.writeLong(execution.customerId());
+                writeString(out, execution.assetName());
+                out.writeByte(ordinal(execution.orderSide()));
+                out.writeInt(execution.size());
+                out.writeLong(execution.price());
+                out.writeLong(execution.createDate());
+            }
+        } catch (IOException e) {
+            // never thrown by a ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            return switch (type) {
+                case CUSTOMER -> new CustomerImage(
+                        in.readLong(),
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        valueOf(AppSecurityRoles.values(), in.readByte()));
+                case ASSET -> new AssetImage(
+                        in.readLong(),
+                        in.readLong(),
+                        readString(in),
+                        in.readLong(),
+                        in.readLong(),
+                        in.readLong());
+                case ORDER -> new OrderImage(
+                        in.readLong(),
+                        in.readLong(),
+                        readString(in),
+                        valueOf(OrderSide.values(), in.readByte()),
+                        in.readInt(),
+                        in.readLong(),
+                        in.readInt(),
+                        valueOf(OrderStatus.values(), in.readByte()),
+                        valueOf(OrderType.values(), in.readByte()),
+                        readString(in),
+                        in.readLong(),
+                        in.readLong());
+                case EXECUTION -> new ExecutionImage(
+                        in.readLong(),
+                        in.readLong(),
+                        in.readLong(),
+                        readString(in),
+                        valueOf(OrderSide.values(), in.readByte()),
+                        in.readInt(),
+                        in.readLong(),
+                        in.readLong());
+                default -> throw new IllegalStateException("unknown journal record type " + type);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Integer column(Enum<?> value) {
+        return value == null ? null : value.ordinal();
+    }
+
+    // null is written as -1, e.g. orderType of orders created before order types
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
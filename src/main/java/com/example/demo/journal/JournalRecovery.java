@@ -0,0 +1,128 @@
+package com.example.demo.journal;
+
+import com.example.demo.assets.service.AssetSymbols;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Rebuilds customers, assets, orders and executions into an
+ * empty database at startup, from the latest snapshot and the
+ * {@link EventJournal} records appended after it.
+ * <p>
+ * Records are appended after their transaction committed and its
+ * row locks were released, two commits on the same row may append
+ * in the opposite order. The image of the highest version of every
+ * row wins, appended last on a tie, rows are inserted with
+ * their journaled ids in JDBC batches, bypassing JPA so that
+ * nothing is journaled again. Sequences are then moved past
+ * the highest id so new rows never reuse a journaled id.
+ * Journaled asset names are registered in {@link AssetSymbols}
+ * and inserted as their symbol ids.
+ * <p>
+ * Metric: <code>orders.restore.time</code> whole restore,
+ * reading the snapshot and the journal included.
+ */
+@Log
+@Service
+@RequiredArgsConstructor
+public class JournalRecovery {
+
+    // allocationSize of the @SequenceGenerator of every journaled entity
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final int INSERT_BATCH_SIZE = 1_000;
+
+    private final ObjectProvider<EventJournal> eventJournal;
+    private final ObjectProvider<SnapshotService> snapshotService;
+    private final JdbcTemplate jdbcTemplate;
+    private final AssetSymbols assetSymbols;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @return true when the state was rebuilt from the journal,
+     *         false when there is nothing to replay
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public boolean recover() throws IOException {
+        EventJournal journal = eventJournal.getIfAvailable();
+        if (journal == null) {
+            return false;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Optional<Snapshot> snapshot = snapshotService.getObject().load()
+                .filter(latest -> {
+                    if (latest.journalPosition() > journal.position()) {
+                        // the journal was replaced, it is authoritative
+                        log.warning("Snapshot is ahead of the journal, ignoring it");
+                        return false;
+                    }
+                    return true;
+                });
+        List<JournalRecord> records = new ArrayList<>(
+                snapshot.map(Snapshot::records).orElse(List.of()));
+        journal.readFrom(snapshot.map(Snapshot::journalPosition).orElse(0))
+                .forEach(payload -> records.add(JournalRecord.decode(payload)));
+        if (records.isEmpty()) {
+            return false;
+        }
+        Integer customers = jdbcTemplate.queryForObject("select count(*) from customers", Integer.class);
+        if (customers != null && customers > 0) {
+            log.warning("Database is not empty, journal is not replayed");
+            return false;
+        }
+
+        for (Map<Long, JournalRecord> rows : latestImages(records).values()) {
+            insert(new ArrayList<>(rows.values()));
+        }
+        sample.stop(Timer.builder("orders.restore.time")
+                .description("Time spent restoring the state from the snapshot and the journal")
+                .register(meterRegistry));
+        log.info("Restored " + records.size() + " records"
+                + snapshot.map(s -> ", " + s.records().size() + " of them from the snapshot").orElse(""));
+        return true;
+    }
+
+    // Latest image per table and id, tables in the order first seen.
+    static Map<String, Map<Long, JournalRecord>> latestImages(List<JournalRecord> records) {
+        Map<String, Map<Long, JournalRecord>> latest = new LinkedHashMap<>();
+        for (JournalRecord record : records) {
+            latest.computeIfAbsent(record.table(), table -> new HashMap<>())
+                    .merge(record.id(), record,
+                            (kept, next) -> next.version() >= kept.version() ? next : kept);
+        }
+        return latest;
+    }
+
+    private void insert(List<JournalRecord> rows) {
+        JournalRecord first = rows.get(0);
+        String[] columns = first.columns();
+        String sql = "insert into " + first.table()
+                + " (" + String.join(", ", columns) + ")"
+                + " values (" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+        int symbolColumn = Arrays.asList(columns).indexOf(JournalRecord.SYMBOL_ID);
+        jdbcTemplate.batchUpdate(sql, rows, INSERT_BATCH_SIZE, (statement, record) -> {
+            Object[] row = record.row();
+            for (int i = 0; i < row.length; i++) {
+                statement.setObject(i + 1, i == symbolColumn
+                        ? assetSymbols.idOf((String) row[i])
+                        : row[i]);
+            }
+        });
+
+        long maxId = rows.stream().mapToLong(JournalRecord::id).max().orElse(0);
+        // a pooled sequence hands out the ids up to its value,
+        // the next value shall start a block above maxId.
+        jdbcTemplate.execute("alter sequence " + first.table() + "_seq restart with "
+                + (maxId + ID_ALLOCATION_SIZE + 1));
+    }
+}
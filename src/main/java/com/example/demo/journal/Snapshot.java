@@ -0,0 +1,14 @@
+package com.example.demo.journal;
+
+import java.util.List;
+
+/**
+ * Rows of a snapshot and the journal position it was taken at,
+ * only the journal records from that position on are replayed
+ * on top of it.
+ */
+public record Snapshot(
+        int journalPosition,
+        List<JournalRecord> records
+) {
+}
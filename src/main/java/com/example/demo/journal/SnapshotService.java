@@ -0,0 +1,248 @@
+package com.example.demo.journal;
+
+import com.example.demo.customers.model.AppSecurityRoles;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodic binary snapshots of customers, asset balances, orders
+ * and executions, so a restart replays the snapshot and only the
+ * journal records appended after it. Matched, cancelled and expired
+ * orders and their executions are written too: the journal before
+ * the snapshot is never replayed again, they would be lost.
+ * <p>
+ * Rows are streamed straight from JDBC into the file, inside a
+ * read-only REPEATABLE READ transaction: H2 serves it from an
+ * MVCC view, writers are never blocked. Journal records are row
+ * images, a change both seen by the snapshot and replayed after
+ * it ends in the same state, so the snapshot only needs to start
+ * after the journal position it records.
+ * <p>
+ * The file is [magic][journal position] followed by length
+ * prefixed {@link JournalRecord}s, a zero length and the CRC32 of
+ * everything before it. It is written next to the previous one
+ * and atomically renamed, a crash leaves the previous snapshot.
+ * <p>
+ * Configuration: orders.snapshot.path and orders.snapshot.cron
+ * ("-" disables). Metric: <code>orders.snapshot.time</code>.
+ */
+@Log
+@Service
+@ConditionalOnProperty(name = "orders.journal.enabled", havingValue = "true")
+public class SnapshotService {
+
+    // "SNP3", amounts are FixedPoint units. "SNAP" files of
+    // double amounts and "SNP2" files of pending orders only
+    // are ignored on load, the whole journal is replayed then.
+    private static final int MAGIC = 0x534E5033;
+
+    private static final String CUSTOMERS_SQL =
+            "select id, first_name, last_name, email, password, role from customers";
+
+    // Asset names are written, not their symbol ids,
+    // like in the journal records.
+    private static final String ASSETS_SQL =
+            "select a.id, a.customer_id, s.name asset_name, a.size, a.usable_size, a.version"
+            + " from assets a join asset_symbols s on s.id = a.symbol_id";
+
+    private static final String ORDERS_SQL =
+            "select o.id, o.customer_id, s.name asset_name, o.order_side, o.size, o.price, o.filled_size,"
+            + " o.order_status, o.order_type, o.client_order_id, o.create_date, o.version"
+            + " from orders o join asset_symbols s on s.id = o.symbol_id";
+
+    private static final String EXECUTIONS_SQL =
+            "select e.id, e.order_id, e.customer_id, s.name asset_name, e.order_side, e.size, e.price,"
+            + " e.create_date"
+            + " from executions e join asset_symbols s on s.id = e.symbol_id";
+
+    private final EventJournal eventJournal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readView;
+    private final Path path;
+    private final Timer snapshotTime;
+
+    public SnapshotService(
+            EventJournal eventJournal,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${orders.snapshot.path:data/orders.snapshot}") String path) {
+        this.eventJournal = eventJournal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.path = Path.of(path).toAbsolutePath();
+        this.readView = new TransactionTemplate(transactionManager);
+        readView.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        readView.setReadOnly(true);
+        this.snapshotTime = Timer.builder("orders.snapshot.time")
+                .description("Time spent writing a snapshot")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${orders.snapshot.cron:-}")
+    public void scheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (Exception e) {
+            // the previous snapshot and the journal are still there
+            log.log(Level.SEVERE, "Snapshot failed", e);
+        }
+    }
+
+    public void takeSnapshot() throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start();
+        // Durable first: after a crash the journal must not
+        // end before the position the snapshot continues from.
+        int journalPosition = eventJournal.position();
+        eventJournal.awaitDurable(journalPosition);
+
+        Files.createDirectories(path.getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        int rows;
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(
+                     new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(journalPosition);
+            rows = readView.execute(status ->
+                    write(out, CUSTOMERS_SQL, SnapshotService::customer)
+                    + write(out, ASSETS_SQL, SnapshotService::asset)
+                    + write(out, ORDERS_SQL, SnapshotService::order)
+                    + write(out, EXECUTIONS_SQL, SnapshotService::execution));
+            out.writeInt(0);
+            out.writeLong(crc.getValue());
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sample.stop(snapshotTime);
+        log.info("Snapshot of " + rows + " rows taken at journal position " + journalPosition);
+    }
+
+    /**
+     * The latest snapshot, empty when there is none or when it
+     * is damaged, the whole journal is replayed then.
+     */
+    public Optional<Snapshot> load() throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path));
+        int checked = content.capacity() - Long.BYTES;
+        if (checked < 3 * Integer.BYTES || content.getInt(0) != MAGIC) {
+            log.warning("Snapshot " + path + " is not valid, ignoring it");
+            return Optional.empty();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content.array(), 0, checked);
+        if (content.getLong(checked) != crc.getValue()) {
+            log.warning("Snapshot " + path + " is damaged, ignoring it");
+            return Optional.empty();
+        }
+
+        int journalPosition = content.getInt(Integer.BYTES);
+        content.position(2 * Integer.BYTES);
+        List<JournalRecord> records = new ArrayList<>();
+        for (int length = content.getInt(); length > 0; length = content.getInt()) {
+            byte[] payload = new byte[length];
+            content.get(payload);
+            records.add(JournalRecord.decode(payload));
+        }
+        return Optional.of(new Snapshot(journalPosition, records));
+    }
+
+    private int write(DataOutputStream out, String sql, RowMapper<JournalRecord> image) {
+        int[] rows = { 0 };
+        jdbcTemplate.query(sql, (RowCallbackHandler) resultSet -> {
+            byte[] payload = JournalRecord.encode(image.mapRow(resultSet, rows[0]++));
+            try {
+                out.writeInt(payload.length);
+                out.write(payload);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows[0];
+    }
+
+    private static JournalRecord customer(ResultSet row, int rowNumber) throws SQLException {
+        return new JournalRecord.CustomerImage(
+                row.getLong("id"),
+                row.getString("first_name"),
+                row.getString("last_name"),
+                row.getString("email"),
+                row.getString("password"),
+                valueOf(AppSecurityRoles.values(), row, "role"));
+    }
+
+    private static JournalRecord asset(ResultSet row, int rowNumber) throws SQLException {
+        return new JournalRecord.AssetImage(
+                row.getLong("id"),
+                row.getLong("customer_id"),
+                row.getString("asset_name"),
+                row.getLong("size"),
+                row.getLong("usable_size"),
+                row.getLong("version"));
+    }
+
+    private static JournalRecord order(ResultSet row, int rowNumber) throws SQLException {
+        return new JournalRecord.OrderImage(
+                row.getLong("id"),
+                row.getLong("customer_id"),
+                row.getString("asset_name"),
+                valueOf(OrderSide.values(), row, "order_side"),
+                row.getInt("size"),
+                row.getLong("price"),
+                row.getInt("filled_size"),
+                valueOf(OrderStatus.values(), row, "order_status"),
+                valueOf(OrderType.values(), row, "order_type"),
+                row.getString("client_order_id"),
+                row.getTimestamp("create_date").getTime(),
+                row.getLong("version"));
+    }
+
+    private static JournalRecord execution(ResultSet row, int rowNumber) throws SQLException {
+        return new JournalRecord.ExecutionImage(
+                row.getLong("id"),
+                row.getLong("order_id"),
+                row.getLong("customer_id"),
+                row.getString("asset_name"),
+                valueOf(OrderSide.values(), row, "order_side"),
+                row.getInt("size"),
+                row.getLong("price"),
+                row.getTimestamp("create_date").getTime());
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, ResultSet row, String column) throws SQLException {
+        int ordinal = row.getInt(column);
+        return row.wasNull() ? null : values[ordinal];
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.orders;
+
+import com.example.demo.orders.model.ArchivedOrder;
+import com.example.demo.orders.model.OrderView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Read side of the orders archive, rows are
+// only inserted by the OrderArchiver.
+@Repository
+public interface ArchivedOrderRepo extends JpaRepository<ArchivedOrder, Long> {
+
+    @Transactional(readOnly = true)
+    @Query(OrderView.SELECT + " FROM ArchivedOrder o WHERE o.id = :id")
+    Optional<OrderView> findViewById(long id);
+
+    // Same keyset as OrderRepo.findPageBetween.
+    @Transactional(readOnly = true)
+    @Query(OrderView.SELECT + " FROM ArchivedOrder o WHERE o.customerId = :customerId"
+            + " and o.createDate > :startDate and o.createDate < :endDate"
+            + " and (o.createDate > :afterDate or (o.createDate = :afterDate and o.id > :afterId))"
+            + " ORDER BY o.createDate, o.id")
+    List<OrderView> findPageBetween(long customerId, Date startDate, Date endDate,
+                                    Date afterDate, long afterId, Limit limit);
+
+    // Cursors of the exports, merged by id with the ones of
+    // OrderRepo, see OrderRepo.EXPORT_FETCH_SIZE.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + OrderRepo.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM ArchivedOrder o ORDER BY o.id")
+    Stream<ArchivedOrder> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + OrderRepo.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.customerId = :customerId"
+            + " and o.createDate > :startDate and o.createDate < :endDate ORDER BY o.id")
+    Stream<ArchivedOrder> streamByCustomerIdBetween(long customerId, Date startDate, Date endDate);
+
+    // A client order id stays used once archived.
+    Optional<ArchivedOrder> findByCustomerIdAndClientOrderId(long customerId, String clientOrderId);
+
+    List<ArchivedOrder> findByCustomerIdAndClientOrderIdIn(long customerId, Collection<String> clientOrderIds);
+}
@@ -0,0 +1,15 @@
+package com.example.demo.orders;
+
+import com.example.demo.orders.model.Execution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Append-only: executions are saved in batches
+// with saveAll and never updated.
+@Repository
+public interface ExecutionRepo extends JpaRepository<Execution, Long> {
+
+    List<Execution> findByCustomerIdAndOrderIdOrderByIdAsc(long customerId, long orderId);
+}
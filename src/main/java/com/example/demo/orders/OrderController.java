@@ -4,11 +4,32 @@ import com.example.demo.assets.service.AssetNotFoundException;
 import com.example.demo.assets.service.NotEnoughAssetException;
 import com.example.demo.assets.service.NotEnoughMoneyException;
 import com.example.demo.customers.service.CustomerNotFoundException;
+import com.example.demo.orders.async.OrderQueueFullException;
+import com.example.demo.orders.async.OrderRequestQueue;
+import com.example.demo.orders.async.OrderRequestStatus;
+import com.example.demo.orders.auction.AuctionResult;
+import com.example.demo.orders.auction.AuctionService;
+import com.example.demo.orders.export.ExportFormat;
+import com.example.demo.orders.export.OrderExporter;
+import com.example.demo.orders.export.UnsupportedExportFormatException;
+import com.example.demo.orders.matching.MarketDepth;
+import com.example.demo.orders.model.BulkOrderResult;
+import com.example.demo.orders.model.Execution;
 import com.example.demo.orders.model.Order;
 import com.example.demo.orders.model.OrderDto;
+import com.example.demo.orders.model.OrderSearch;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderView;
+import com.example.demo.orders.risk.RiskLimitExceededException;
+import com.example.demo.orders.service.InvalidOrderSearchException;
 import com.example.demo.orders.service.OrderNotFoundException;
 import com.example.demo.orders.service.OrderService;
 import com.example.demo.orders.service.OrderStatusIsNotValidException;
+import com.example.demo.orders.service.PreTradeCheck;
+import com.example.demo.paging.InvalidCursorException;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.paging.Paging;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -16,7 +37,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.Date;
 import java.util.List;
 
@@ -26,20 +49,34 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final AuctionService auctionService;
+    private final OrderRequestQueue orderRequestQueue;
+    private final PreTradeCheck preTradeCheck;
+    private final OrderExporter orderExporter;
+    private final Paging paging;
 
 
     // TODO - LIST ALL ORDERS REQUIREMENT
+    // KEYSET PAGED, NEXT PAGE CURSOR IN X-Next-Cursor
     @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.findAll());
+    public ResponseEntity<List<OrderView>> getAllOrders(
+            @RequestParam(name = "cursor", required = false)
+            String cursor,
+
+            @RequestParam(name = "limit", required = false)
+            Integer limit
+    ) throws InvalidCursorException {
+        return Paging.toResponse(
+                orderService.findAll(PageCursor.decode(cursor), paging.pageSize(limit))
+        );
     }
 
 
     // TODO - GET ORDERS BY DATE REQUIREMENT
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
     @GetMapping("/{customerId}")
-    public ResponseEntity<List<Order>> getOrdersByDate(
+    public ResponseEntity<List<OrderView>> getOrdersByDate(
             @PathVariable("customerId") Long customerId,
 
             @DateTimeFormat(pattern="yyyyMMdd")
@@ -48,17 +85,113 @@ public class OrderController {
 
             @DateTimeFormat(pattern="yyyyMMdd")
             @RequestParam(name="end-date", required = true)
-            Date endDate
-    ) {
-        return ResponseEntity.ok(
-                orderService.findAllBetween(customerId, startDate, endDate)
+            Date endDate,
+
+            @RequestParam(name = "cursor", required = false)
+            String cursor,
+
+            @RequestParam(name = "limit", required = false)
+            Integer limit
+    ) throws InvalidCursorException {
+        return Paging.toResponse(
+                orderService.findAllBetween(customerId, startDate, endDate,
+                        PageCursor.decode(cursor), paging.pageSize(limit))
+        );
+    }
+
+    // EXPORT ALL ORDERS, STREAMED ROW BY ROW,
+    // ?format=ndjson OR ?format=csv
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping(params = "format")
+    public ResponseEntity<StreamingResponseBody> exportAllOrders(
+            @RequestParam(name = "format")
+            String format
+    ) throws UnsupportedExportFormatException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(orderExporter.exportAll(exportFormat));
+    }
+
+
+    // EXPORT ORDERS BY DATE, STREAMED ROW BY ROW,
+    // ?format=ndjson OR ?format=csv
+    @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
+    @GetMapping(value = "/{customerId}", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportOrdersByDate(
+            @PathVariable("customerId") Long customerId,
+
+            @DateTimeFormat(pattern="yyyyMMdd")
+            @RequestParam(name="start-date")
+            Date startDate,
+
+            @DateTimeFormat(pattern="yyyyMMdd")
+            @RequestParam(name="end-date", required = true)
+            Date endDate,
+
+            @RequestParam(name = "format")
+            String format
+    ) throws UnsupportedExportFormatException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(orderExporter.exportBetween(customerId, startDate, endDate, exportFormat));
+    }
+
+    // SEARCH ORDERS BY ANY OF CUSTOMER, STATUS, SIDE,
+    // ASSET AND DATE RANGE, KEYSET PAGED, INDEX BACKED
+    @PreAuthorize("hasAuthority('ADMIN') || (#customerId != null && #customerId == principal.id)")
+    @GetMapping("/search")
+    public ResponseEntity<List<OrderView>> searchOrders(
+            @RequestParam(name = "customerId", required = false)
+            Long customerId,
+
+            @RequestParam(name = "status", required = false)
+            OrderStatus status,
+
+            @RequestParam(name = "side", required = false)
+            OrderSide side,
+
+            @RequestParam(name = "asset", required = false)
+            String assetName,
+
+            @DateTimeFormat(pattern="yyyyMMdd")
+            @RequestParam(name="start-date", required = false)
+            Date startDate,
+
+            @DateTimeFormat(pattern="yyyyMMdd")
+            @RequestParam(name="end-date", required = false)
+            Date endDate,
+
+            @RequestParam(name = "cursor", required = false)
+            String cursor,
+
+            @RequestParam(name = "limit", required = false)
+            Integer limit
+    ) throws InvalidOrderSearchException, InvalidCursorException {
+        OrderSearch search = new OrderSearch(customerId, status, side, assetName, startDate, endDate);
+        return Paging.toResponse(
+                orderService.search(search, PageCursor.decode(cursor), paging.pageSize(limit))
         );
     }
 
+    // MARKET DEPTH (L2) OF AN ASSET, FROM MEMORY
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/depth/{assetName}")
+    public ResponseEntity<MarketDepth> getDepth(
+            @PathVariable("assetName")
+            String assetName,
+
+            @RequestParam(name = "levels", defaultValue = "20")
+            int levels
+    ) {
+        return ResponseEntity.ok(orderService.getDepth(assetName, levels));
+    }
+
     // TODO - GET ORDERS BY DATE REQUIREMENT
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
     @GetMapping("/{customerId}/{orderId}")
-    public ResponseEntity<Order> getOrder(
+    public ResponseEntity<OrderView> getOrder(
             @PathVariable("customerId") Long customerId,
 
             @PathVariable("orderId") Long orderId
@@ -70,6 +203,17 @@ public class OrderController {
                 );
     }
 
+    // FILLS OF AN ORDER, FROM THE EXECUTIONS TABLE
+    @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
+    @GetMapping("/{customerId}/{orderId}/executions")
+    public ResponseEntity<List<Execution>> getExecutions(
+            @PathVariable("customerId") Long customerId,
+
+            @PathVariable("orderId") Long orderId
+    ) {
+        return ResponseEntity.ok(orderService.findExecutions(customerId, orderId));
+    }
+
 
     // TODO - CREATE ORDER REQUIREMENT
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
@@ -80,13 +224,69 @@ public class OrderController {
 
             @Valid @RequestBody
             OrderDto order
-    ) throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException {
+    ) throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException, RiskLimitExceededException {
+        if (order.orderType() != null && order.orderType().isImmediate()) {
+            // MARKET, IOC, FOK: executed or expired, never PENDING
+            return ResponseEntity.ok(
+                    orderService.executeImmediately(customerId, order)
+            );
+        }
+        // rejected from memory when it obviously lacks funds
+        preTradeCheck.check(customerId, order);
         return ResponseEntity.ok(
                 orderService.createOrder(customerId, order)
         );
     }
 
 
+    // CREATE ORDER ASYNCHRONOUSLY, 202 + STATUS URL,
+    // REQUEST THREAD NEVER WAITS FOR ASSET LOCKS
+    @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
+    @PostMapping(value = "/{customerId}", params = "async=true")
+    public ResponseEntity<OrderRequestStatus> createOrderAsync(
+            @PathVariable(name = "customerId")
+            long customerId,
+
+            @Valid @RequestBody
+            OrderDto order
+    ) throws OrderQueueFullException {
+        OrderRequestStatus status = orderRequestQueue.submit(customerId, order);
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/apis/v1/orders/" + customerId + "/requests/" + status.requestId()))
+                .body(status);
+    }
+
+    // STATUS OF AN ASYNCHRONOUS ORDER REQUEST
+    @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
+    @GetMapping("/{customerId}/requests/{requestId}")
+    public ResponseEntity<OrderRequestStatus> getOrderRequest(
+            @PathVariable("customerId") Long customerId,
+
+            @PathVariable("requestId") String requestId
+    ) {
+        return orderRequestQueue.findStatus(customerId, requestId)
+                .map(ResponseEntity::ok)
+                .orElseGet(
+                        () -> new ResponseEntity<>(HttpStatus.NOT_FOUND)
+                );
+    }
+
+    // BULK CREATE ORDERS, SINGLE TRANSACTION,
+    // ACCEPTED / REJECTED REPORTED PER ORDER
+    @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
+    @PostMapping("/{customerId}/bulk")
+    public ResponseEntity<BulkOrderResult> createOrders(
+            @PathVariable("customerId") long customerId,
+
+            @RequestBody
+            List<@Valid OrderDto> orders
+    ) {
+        return ResponseEntity.ok(
+                orderService.createOrders(customerId, orders)
+        );
+    }
+
     // TODO - DELETE ORDER REQUIREMENT
     @PreAuthorize("hasAuthority('ADMIN') || #customerId == principal.id")
     @DeleteMapping("/{customerId}/{orderId}")
@@ -115,4 +315,30 @@ public class OrderController {
         return ResponseEntity.ok(orderService.matchOrder(orderId));
     }
 
+    // BATCH MATCH ORDERS, SINGLE TRANSACTION
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/match")
+    public ResponseEntity<List<Order>> matchOrders(
+            @RequestBody
+            List<Long> orderIds
+    ) throws OrderNotFoundException,
+            OrderStatusIsNotValidException,
+            AssetNotFoundException {
+        return ResponseEntity.ok(orderService.matchOrders(orderIds));
+    }
+
+    // CALL AUCTION, UNCROSS ALL PENDING ORDERS OF AN ASSET
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/auction/{assetName}")
+    public ResponseEntity<AuctionResult> runAuction(
+            @PathVariable("assetName")
+            String assetName
+    ) throws AssetNotFoundException {
+        return auctionService.runAuction(assetName)
+                .map(ResponseEntity::ok)
+                .orElseGet(
+                        () -> new ResponseEntity<>(HttpStatus.NO_CONTENT)
+                );
+    }
+
 }
@@ -1,21 +1,81 @@
 package com.example.demo.orders;
 
 import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderView;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepo extends JpaRepository<Order, Long> {
+public interface OrderRepo extends JpaRepository<Order, Long>, OrderSearchRepo {
 
     List<Order> findByCustomerIdAndCreateDateGreaterThanAndCreateDateLessThan(Long customerId, Date startDate, Date endDate);
 
+    // Read endpoints: views of the columns, in read-only
+    // transactions, nothing is flushed or dirty checked.
+    @Transactional(readOnly = true)
+    @Query(OrderView.SELECT + " FROM Order o WHERE o.id = :id")
+    Optional<OrderView> findViewById(long id);
+
+    // Keyset pages, see Paging
+    @Transactional(readOnly = true)
+    @Query(OrderView.SELECT + " FROM Order o WHERE o.id > :id ORDER BY o.id")
+    List<OrderView> findViewsByIdGreaterThan(long id, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query(OrderView.SELECT + " FROM Order o WHERE o.customerId = :customerId"
+            + " and o.createDate > :startDate and o.createDate < :endDate"
+            + " and (o.createDate > :afterDate or (o.createDate = :afterDate and o.id > :afterId))"
+            + " ORDER BY o.createDate, o.id")
+    List<OrderView> findPageBetween(long customerId, Date startDate, Date endDate,
+                                    Date afterDate, long afterId, Limit limit);
+
+    // Backed by the unique index on
+    // (customerId, clientOrderId).
+    Optional<Order> findByCustomerIdAndClientOrderId(long customerId, String clientOrderId);
+
+    List<Order> findByCustomerIdAndClientOrderIdIn(long customerId, Collection<String> clientOrderIds);
+
+    // Used by the matching engine to rebuild
+    // the order book of an asset, oldest first.
+    List<Order> findByAssetNameAndOrderStatusOrderByIdAsc(String assetName, OrderStatus orderStatus);
+
+    // Exports: forward-only cursors read in batches of
+    // EXPORT_FETCH_SIZE rows, consumed inside a transaction.
+    int EXPORT_FETCH_SIZE = 500;
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    Stream<Order> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o WHERE o.customerId = :customerId"
+            + " and o.createDate > :startDate and o.createDate < :endDate ORDER BY o.id")
+    Stream<Order> streamByCustomerIdBetween(long customerId, Date startDate, Date endDate);
+
+    // Used to rebuild the pre-trade risk counters.
+    List<Order> findByOrderStatus(OrderStatus orderStatus);
+
     // Locking implemented to prevent
     // lost updates for CANCEL order method,
     // order shall not be full-filled and
@@ -24,5 +84,33 @@ public interface OrderRepo extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.id = :id")
     Optional<Order> findByIdForUpdate(Long id);
 
+    // OPTIMISTIC execution mode: read without a lock,
+    // the version is checked when the transaction
+    // commits, see OptimisticRetry.
+    @Lock(LockModeType.OPTIMISTIC)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdOptimistic(Long id);
+
+    // Locks all orders of a batch in one statement,
+    // rows are locked in ascending id order so that
+    // concurrent batches cannot deadlock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findAllByIdForUpdate(Collection<Long> ids);
+
+    // Locks the whole pending book of an asset
+    // for the duration of a call auction.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.assetName = :assetName and o.orderStatus = :orderStatus ORDER BY o.id")
+    List<Order> findByAssetNameAndOrderStatusForUpdate(String assetName, OrderStatus orderStatus);
+
+    @Query("SELECT DISTINCT o.assetName FROM Order o WHERE o.orderStatus = :orderStatus")
+    List<String> findDistinctAssetNamesByOrderStatus(OrderStatus orderStatus);
+
+    // Next chunk of the OrderArchiver, oldest
+    // first, on the (orderStatus, createDate) index.
+    @Query("SELECT o.id FROM Order o WHERE o.orderStatus IN :orderStatuses and o.createDate < :before"
+            + " ORDER BY o.createDate, o.id")
+    List<Long> findIdsToArchive(Collection<OrderStatus> orderStatuses, Date before, Limit limit);
 
 }
@@ -0,0 +1,21 @@
+package com.example.demo.orders;
+
+import com.example.demo.orders.model.OrderSearch;
+import com.example.demo.orders.model.OrderView;
+import com.example.demo.paging.PageCursor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Order search by any combination of customer, status, side,
+ * asset and date range, one keyset page ordered by (createDate, id).
+ * Every combination with a customer, status, asset or date is
+ * served by one of the indexes of the orders table. Rows are read
+ * as views, in a read-only transaction.
+ */
+public interface OrderSearchRepo {
+
+    @Transactional(readOnly = true)
+    List<OrderView> search(OrderSearch search, PageCursor after, int limit);
+}
@@ -0,0 +1,73 @@
+package com.example.demo.orders;
+
+import com.example.demo.orders.model.OrderSearch;
+import com.example.demo.orders.model.OrderView;
+import com.example.demo.paging.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * JPQL behind {@link OrderSearchRepo}, only the given filters are
+ * added to the statement, so the database plans every combination
+ * on its own and picks the index matching it.
+ */
+@RequiredArgsConstructor
+class OrderSearchRepoImpl implements OrderSearchRepo {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<OrderView> search(OrderSearch search, PageCursor after, int limit) {
+        StringBuilder statement = new StringBuilder(OrderView.SELECT + " FROM Order o WHERE 1 = 1");
+        if (search.customerId() != null) {
+            statement.append(" and o.customerId = :customerId");
+        }
+        if (search.orderStatus() != null) {
+            statement.append(" and o.orderStatus = :orderStatus");
+        }
+        if (search.orderSide() != null) {
+            statement.append(" and o.orderSide = :orderSide");
+        }
+        if (search.assetName() != null) {
+            statement.append(" and o.assetName = :assetName");
+        }
+        if (search.startDate() != null) {
+            statement.append(" and o.createDate >= :startDate");
+        }
+        if (search.endDate() != null) {
+            statement.append(" and o.createDate < :endDate");
+        }
+        if (after.createDate() != null) {
+            statement.append(" and (o.createDate > :afterDate or (o.createDate = :afterDate and o.id > :afterId))");
+        }
+        statement.append(" ORDER BY o.createDate, o.id");
+
+        TypedQuery<OrderView> query = entityManager.createQuery(statement.toString(), OrderView.class);
+        if (search.customerId() != null) {
+            query.setParameter("customerId", search.customerId());
+        }
+        if (search.orderStatus() != null) {
+            query.setParameter("orderStatus", search.orderStatus());
+        }
+        if (search.orderSide() != null) {
+            query.setParameter("orderSide", search.orderSide());
+        }
+        if (search.assetName() != null) {
+            query.setParameter("assetName", search.assetName());
+        }
+        if (search.startDate() != null) {
+            query.setParameter("startDate", search.startDate());
+        }
+        if (search.endDate() != null) {
+            query.setParameter("endDate", search.endDate());
+        }
+        if (after.createDate() != null) {
+            query.setParameter("afterDate", after.createDate());
+            query.setParameter("afterId", after.id());
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
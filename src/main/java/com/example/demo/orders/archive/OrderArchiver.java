@@ -0,0 +1,132 @@
+package com.example.demo.orders.archive;
+
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Moves MATCHED, CANCELLED and EXPIRED orders older than
+ * orders.archive.max-age-days from the orders table into
+ * orders_archive, so the live table, its indexes and the rows
+ * locked by findByIdForUpdate only hold pending and recent orders
+ * as the history grows. Reads of a single order and of orders by
+ * date look into both tables, see OrderService.
+ * <p>
+ * Work is done in chunks of orders.archive.batch-size orders,
+ * each copied and deleted in a transaction of its own: no chunk
+ * holds its row locks for long, a failed run leaves the chunks
+ * before it archived. Terminal orders never change again, the
+ * copy is exact. The copy skips ids already archived, an order
+ * the journal replays into the live table is only deleted again.
+ * <p>
+ * Bulk statements bypass the entity listeners, the move of an
+ * order is not journaled.
+ * <p>
+ * Configuration: orders.archive.enabled, orders.archive.max-age-days,
+ * orders.archive.batch-size and orders.archive.interval-ms.
+ * Metric: <code>orders.archive.rows</code> orders moved.
+ */
+@Log
+@Service
+public class OrderArchiver {
+
+    static final Set<OrderStatus> TERMINAL = EnumSet.of(
+            OrderStatus.MATCHED, OrderStatus.CANCELLED, OrderStatus.EXPIRED);
+
+    private final OrderRepo orderRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate chunk;
+    private final Counter archivedRows;
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final int batchSize;
+
+    public OrderArchiver(
+            OrderRepo orderRepo,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${orders.archive.enabled:true}") boolean enabled,
+            @Value("${orders.archive.max-age-days:30}") int maxAgeDays,
+            @Value("${orders.archive.batch-size:500}") int batchSize) {
+        this.orderRepo = orderRepo;
+        this.entityManager = entityManager;
+        this.chunk = new TransactionTemplate(transactionManager);
+        this.archivedRows = Counter.builder("orders.archive.rows")
+                .description("Orders moved to the orders archive")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.maxAgeMillis = TimeUnit.DAYS.toMillis(maxAgeDays);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.archive.interval-ms:60000}",
+            initialDelayString = "${orders.archive.interval-ms:60000}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int rows = archive(new Date(System.currentTimeMillis() - maxAgeMillis));
+            if (rows > 0) {
+                log.info("Archived " + rows + " orders");
+            }
+        } catch (Exception e) {
+            // archived chunks stay archived, the rest is retried next run
+            log.log(Level.SEVERE, "Order archiving failed", e);
+        }
+    }
+
+    /**
+     * Archives every terminal order created before the given
+     * date, chunk by chunk, and returns the number moved.
+     */
+    public int archive(Date before) {
+        int total = 0;
+        while (true) {
+            Integer moved = chunk.execute(status -> archiveChunk(before));
+            total += moved;
+            if (moved < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    private int archiveChunk(Date before) {
+        List<Long> ids = orderRepo.findIdsToArchive(TERMINAL, before, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        entityManager.createQuery("""
+                        INSERT INTO ArchivedOrder (id, customerId, assetName, orderSide, size, price, filledSize,
+                            orderStatus, orderType, clientOrderId, createDate, version)
+                        SELECT o.id, o.customerId, o.assetName, o.orderSide, o.size, o.price, o.filledSize,
+                            o.orderStatus, o.orderType, o.clientOrderId, o.createDate, o.version
+                        FROM Order o
+                        WHERE o.id IN :ids and not exists (SELECT a.id FROM ArchivedOrder a WHERE a.id = o.id)""")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        int deleted = entityManager.createQuery("DELETE FROM Order o WHERE o.id IN :ids and o.orderStatus IN :terminal")
+                .setParameter("ids", ids)
+                .setParameter("terminal", TERMINAL)
+                .executeUpdate();
+        archivedRows.increment(deleted);
+        return ids.size();
+    }
+}
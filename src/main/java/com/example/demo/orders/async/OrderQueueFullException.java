@@ -0,0 +1,11 @@
+package com.example.demo.orders.async;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(
+        value = HttpStatus.SERVICE_UNAVAILABLE,
+        code = HttpStatus.SERVICE_UNAVAILABLE,
+        reason = "Order Queue Is Full")
+public class OrderQueueFullException extends Exception {
+}
@@ -0,0 +1,188 @@
+package com.example.demo.orders.async;
+
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderDto;
+import com.example.demo.orders.service.OrderService;
+import com.example.demo.orders.service.PreTradeCheck;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Asynchronous order acceptance: validated requests are put on a
+ * bounded in-process queue and answered at once, a fixed pool of
+ * workers drains the queue into {@link OrderService}. Request
+ * threads never wait for asset locks on this path, a full queue
+ * is refused instead of blocking.
+ * <p>
+ * Configuration: orders.async.queue-capacity, orders.async.workers
+ * and orders.async.retained-statuses (finished statuses kept for polling).
+ * <p>
+ * Metrics:
+ * <ul>
+ *   <li><code>orders.async.queue.depth</code> requests waiting in the queue</li>
+ *   <li><code>orders.async.queue.time</code> time a request waited for a worker</li>
+ * </ul>
+ */
+@Log
+@Service
+public class OrderRequestQueue {
+
+    private record QueuedOrder(
+            String requestId,
+            long customerId,
+            OrderDto order,
+            long enqueuedAt
+    ) {
+    }
+
+    private final OrderService orderService;
+    private final PreTradeCheck preTradeCheck;
+    private final BlockingQueue<QueuedOrder> queue;
+    private final Map<String, OrderRequestStatus> statuses = new LinkedHashMap<>();
+    private final int retainedStatuses;
+    private final Timer timeInQueue;
+    private final ExecutorService workers;
+
+    public OrderRequestQueue(
+            OrderService orderService,
+            PreTradeCheck preTradeCheck,
+            MeterRegistry meterRegistry,
+            @Value("${orders.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${orders.async.workers:4}") int workerCount,
+            @Value("${orders.async.retained-statuses:100000}") int retainedStatuses) {
+        if (workerCount < 1) {
+            // nothing would ever drain the queue
+            throw new IllegalArgumentException("orders.async.workers must be at least 1: " + workerCount);
+        }
+        this.orderService = orderService;
+        this.preTradeCheck = preTradeCheck;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.retainedStatuses = retainedStatuses;
+
+        Gauge.builder("orders.async.queue.depth", queue, BlockingQueue::size)
+                .description("Number of order requests waiting for a worker")
+                .register(meterRegistry);
+        this.timeInQueue = Timer.builder("orders.async.queue.time")
+                .description("Time an order request waited in the queue")
+                .register(meterRegistry);
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-worker-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * Queues an already validated order request.
+     *
+     * @throws OrderQueueFullException when the queue is full,
+     *                                 nothing is queued then.
+     */
+    public OrderRequestStatus submit(long customerId, OrderDto order) throws OrderQueueFullException {
+        String requestId = UUID.randomUUID().toString();
+        OrderRequestStatus status = OrderRequestStatus.queued(requestId, customerId);
+        // status first, a fast worker may finish before we return.
+        putStatus(status);
+        if (!queue.offer(new QueuedOrder(requestId, customerId, order, System.nanoTime()))) {
+            removeStatus(requestId);
+            throw new OrderQueueFullException();
+        }
+        return status;
+    }
+
+    public Optional<OrderRequestStatus> findStatus(long customerId, String requestId) {
+        synchronized (statuses) {
+            return Optional.ofNullable(statuses.get(requestId))
+                    .filter(status -> status.customerId() == customerId);
+        }
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedOrder queued;
+            try {
+                queued = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            timeInQueue.record(System.nanoTime() - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+            putStatus(process(queued));
+        }
+    }
+
+    private OrderRequestStatus process(QueuedOrder queued) {
+        OrderRequestStatus status = OrderRequestStatus.queued(queued.requestId(), queued.customerId());
+        OrderDto dto = queued.order();
+        try {
+            Order order;
+            if (dto.orderType() != null && dto.orderType().isImmediate()) {
+                order = orderService.executeImmediately(queued.customerId(), dto);
+            } else {
+                preTradeCheck.check(queued.customerId(), dto);
+                order = orderService.createOrder(queued.customerId(), dto);
+            }
+            return status.accepted(order);
+        } catch (Exception e) {
+            // same reason a synchronous request would get.
+            ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(
+                    e.getClass(), ResponseStatus.class);
+            if (responseStatus == null) {
+                log.log(Level.SEVERE, "Queued order request failed: " + queued.requestId(), e);
+                return status.rejected("Internal Error");
+            }
+            return status.rejected(responseStatus.reason());
+        }
+    }
+
+    private void putStatus(OrderRequestStatus status) {
+        synchronized (statuses) {
+            statuses.put(status.requestId(), status);
+            // Oldest finished requests are dropped first, clients
+            // are expected to poll soon after the outcome. QUEUED
+            // requests are kept until their worker is done.
+            Iterator<OrderRequestStatus> oldest = statuses.values().iterator();
+            while (statuses.size() > retainedStatuses && oldest.hasNext()) {
+                if (oldest.next().state() != OrderRequestStatus.State.QUEUED) {
+                    oldest.remove();
+                }
+            }
+        }
+    }
+
+    private void removeStatus(String requestId) {
+        synchronized (statuses) {
+            statuses.remove(requestId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
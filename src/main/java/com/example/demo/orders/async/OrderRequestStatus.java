@@ -0,0 +1,40 @@
+package com.example.demo.orders.async;
+
+import com.example.demo.orders.model.Order;
+
+/**
+ * State of an order request accepted asynchronously, polled
+ * by the client through the status URL of the 202 response.
+ *
+ * @param order  the created order once ACCEPTED
+ * @param reason why the order was not created once REJECTED
+ */
+public record OrderRequestStatus(
+        String requestId,
+        long customerId,
+        State state,
+        Order order,
+        String reason
+) {
+
+    public enum State {
+        // waiting in the queue for a worker
+        QUEUED,
+        // order is created, see order
+        ACCEPTED,
+        // order is not created, see reason
+        REJECTED
+    }
+
+    static OrderRequestStatus queued(String requestId, long customerId) {
+        return new OrderRequestStatus(requestId, customerId, State.QUEUED, null, null);
+    }
+
+    OrderRequestStatus accepted(Order order) {
+        return new OrderRequestStatus(requestId, customerId, State.ACCEPTED, order, null);
+    }
+
+    OrderRequestStatus rejected(String reason) {
+        return new OrderRequestStatus(requestId, customerId, State.REJECTED, null, reason);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.orders.auction;
+
+import com.example.demo.orders.model.Order;
+import com.example.demo.utils.FixedPointJson;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of uncrossing the pending orders of an asset:
+ * every executed order trades at the single clearing price,
+ * executedSizes holds the filled quantity by order id.
+ */
+public record AuctionResult(
+        String assetName,
+        @FixedPointJson
+        long clearingPrice,
+        int volume,
+        List<Order> executedOrders,
+        Map<Long, Integer> executedSizes
+) {
+}
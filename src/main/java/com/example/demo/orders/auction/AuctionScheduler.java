@@ -0,0 +1,70 @@
+package com.example.demo.orders.auction;
+
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.logging.Level;
+
+/**
+ * Triggers the opening and closing call auctions of every
+ * asset with pending orders. Cron expressions are configured
+ * with orders.auction.opening-cron and orders.auction.closing-cron,
+ * "-" disables a session.
+ * <p>
+ * A session starts with a call phase of orders.auction.call-period-ms:
+ * continuous matching is held, new orders only rest in their books,
+ * then the books are uncrossed and matching resumes.
+ */
+@Log
+@Component
+public class AuctionScheduler {
+
+    private final AuctionService auctionService;
+    private final TaskScheduler taskScheduler;
+    private final long callPeriodMillis;
+
+    public AuctionScheduler(
+            AuctionService auctionService,
+            TaskScheduler taskScheduler,
+            @Value("${orders.auction.call-period-ms:60000}") long callPeriodMillis) {
+        this.auctionService = auctionService;
+        this.taskScheduler = taskScheduler;
+        this.callPeriodMillis = callPeriodMillis;
+    }
+
+    @Scheduled(cron = "${orders.auction.opening-cron:-}")
+    public void openingAuction() {
+        startSession("opening");
+    }
+
+    @Scheduled(cron = "${orders.auction.closing-cron:-}")
+    public void closingAuction() {
+        startSession("closing");
+    }
+
+    private void startSession(String session) {
+        log.info("Collecting orders of the " + session + " call auctions..");
+        auctionService.startCallPhase();
+        taskScheduler.schedule(() -> runAuctions(session), Instant.now().plusMillis(callPeriodMillis));
+    }
+
+    private void runAuctions(String session) {
+        log.info("Running " + session + " call auctions..");
+        try {
+            for (String assetName : auctionService.findAssetsWithPendingOrders()) {
+                try {
+                    auctionService.runAuction(assetName);
+                } catch (Exception e) {
+                    // one broken book shall not stop the session
+                    log.log(Level.SEVERE, "Call auction failed for " + assetName, e);
+                }
+            }
+        } finally {
+            auctionService.endCallPhase();
+        }
+    }
+}
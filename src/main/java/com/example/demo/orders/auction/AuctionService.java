@@ -0,0 +1,111 @@
+package com.example.demo.orders.auction;
+
+import com.example.demo.assets.service.AssetNotFoundException;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.matching.MatchingEngine;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.service.OrderService;
+import com.example.demo.utils.FixedPoint;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs call auctions: all pending orders of an asset are
+ * uncrossed at a single clearing price and settled in one
+ * bulk pass instead of individual matches.
+ * <p>
+ * Metrics, tagged by asset:
+ * <ul>
+ *   <li><code>orders.auction.duration</code> whole auction, locking and settlement included</li>
+ *   <li><code>orders.auction.uncross</code> clearing price computation only</li>
+ *   <li><code>orders.auction.book.size</code> pending orders taking part</li>
+ *   <li><code>orders.auction.volume</code> executed quantity</li>
+ * </ul>
+ */
+@Log
+@Service
+@RequiredArgsConstructor
+public class AuctionService {
+
+    private final OrderRepo orderRepo;
+    private final OrderService orderService;
+    private final MatchingEngine matchingEngine;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Holds continuous matching while the orders of a
+     * session are collected, see {@link AuctionScheduler}.
+     */
+    public void startCallPhase() {
+        matchingEngine.startCallPhase();
+    }
+
+    public void endCallPhase() {
+        matchingEngine.endCallPhase();
+    }
+
+    public List<String> findAssetsWithPendingOrders() {
+        return orderRepo.findDistinctAssetNamesByOrderStatus(OrderStatus.PENDING);
+    }
+
+    @Transactional(rollbackOn = Exception.class)
+    public Optional<AuctionResult> runAuction(String assetName) throws AssetNotFoundException {
+        Timer.Sample auctionSample = Timer.start(meterRegistry);
+
+        // Lock the whole pending book of the asset,
+        // no order can be cancelled or matched
+        // while it is being uncrossed.
+        List<Order> pendingOrders = orderRepo.findByAssetNameAndOrderStatusForUpdate(
+                assetName, OrderStatus.PENDING);
+        DistributionSummary.builder("orders.auction.book.size")
+                .description("Number of pending orders taking part in a call auction")
+                .tag("asset", assetName)
+                .register(meterRegistry)
+                .record(pendingOrders.size());
+
+        Optional<AuctionResult> result = Timer.builder("orders.auction.uncross")
+                .description("Time spent computing the clearing price of a call auction")
+                .tag("asset", assetName)
+                .register(meterRegistry)
+                .record(() -> CallAuction.uncross(assetName, pendingOrders));
+
+        Optional<AuctionResult> settledResult = Optional.empty();
+        if (result.isPresent()) {
+            AuctionResult auction = result.get();
+            List<Order> matchedOrders = orderService.settleLockedOrders(
+                    auction.executedOrders(),
+                    order -> auction.executedSizes().get(order.getId()),
+                    order -> auction.clearingPrice());
+            settledResult = Optional.of(new AuctionResult(
+                    assetName, auction.clearingPrice(), auction.volume(),
+                    matchedOrders, auction.executedSizes()));
+        }
+
+        int volume = settledResult.map(AuctionResult::volume).orElse(0);
+        DistributionSummary.builder("orders.auction.volume")
+                .description("Quantity executed by a call auction")
+                .tag("asset", assetName)
+                .register(meterRegistry)
+                .record(volume);
+        long nanos = auctionSample.stop(Timer.builder("orders.auction.duration")
+                .description("Time spent running a call auction")
+                .tag("asset", assetName)
+                .register(meterRegistry));
+
+        log.info("Call auction of " + assetName
+                + ": pending=" + pendingOrders.size()
+                + " volume=" + volume
+                + " price=" + settledResult.map(settled -> FixedPoint.toString(settled.clearingPrice())).orElse("-")
+                + " took=" + nanos / 1_000 + "us");
+        return settledResult;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.demo.orders.auction;
+
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Call auction uncrossing of the pending orders of one asset.
+ * <p>
+ * The clearing price is the limit price which maximises the
+ * executed volume, ties are broken by the smallest surplus and
+ * then by the market pressure: the highest such price when BUY
+ * surplus remains, the lowest one otherwise.
+ * <p>
+ * The executable volume at a price is the smaller of the open
+ * demand and the open supply, both accumulated over the prices
+ * in a single pass. Orders are paired strictly in price-time
+ * priority, an order may be filled in part. Orders of the same
+ * customer never trade with each other, like in the order book:
+ * such a pair is skipped. When that leaves the executed volume
+ * short of the executable one, the next best prices are tried
+ * and the largest executed volume wins.
+ */
+public final class CallAuction {
+
+    private static final Comparator<Order> BUY_PRIORITY =
+            Comparator.comparingLong(Order::getPrice).reversed()
+                    .thenComparingLong(Order::getId);
+
+    private static final Comparator<Order> SELL_PRIORITY =
+            Comparator.comparingLong(Order::getPrice)
+                    .thenComparingLong(Order::getId);
+
+    private CallAuction() {
+    }
+
+    public static Optional<AuctionResult> uncross(String assetName, List<Order> pendingOrders) {
+        List<Order> buys = new ArrayList<>();
+        List<Order> sells = new ArrayList<>();
+        TreeSet<Long> prices = new TreeSet<>();
+        long demand = 0;
+        for (Order order : pendingOrders) {
+            if (order.getOrderSide() == OrderSide.BUY) {
+                buys.add(order);
+                demand += order.remainingSize();
+            } else {
+                sells.add(order);
+            }
+            prices.add(order.getPrice());
+        }
+        buys.sort(BUY_PRIORITY);
+        sells.sort(SELL_PRIORITY);
+
+        // Prices ascending: supply grows by the sells priced up to
+        // the price, demand shrinks by the buys priced below it.
+        List<Execution> candidates = new ArrayList<>();
+        long supply = 0;
+        int nextSell = 0;
+        int nextBuy = buys.size() - 1;
+        for (long price : prices) {
+            for (; nextSell < sells.size() && sells.get(nextSell).getPrice() <= price; nextSell++) {
+                supply += sells.get(nextSell).remainingSize();
+            }
+            for (; nextBuy >= 0 && buys.get(nextBuy).getPrice() < price; nextBuy--) {
+                demand -= buys.get(nextBuy).remainingSize();
+            }
+            candidates.add(new Execution(price, Math.min(demand, supply), demand - supply));
+        }
+
+        // Usually the best price executes its whole volume at once,
+        // only skipped pairs of one customer make other prices tried.
+        long clearingPrice = 0;
+        int volume = 0;
+        Map<Long, Integer> buySizes = Map.of();
+        Map<Long, Integer> sellSizes = Map.of();
+        while (true) {
+            Execution best = null;
+            for (Execution candidate : candidates) {
+                if (candidate.isBetterThan(best)) {
+                    best = candidate;
+                }
+            }
+            if (best == null || best.volume <= volume) {
+                break;
+            }
+            long price = best.price;
+            Map<Long, Integer> candidateBuySizes = new LinkedHashMap<>();
+            Map<Long, Integer> candidateSellSizes = new LinkedHashMap<>();
+            int executed = allocate(
+                    buys.stream().filter(buy -> buy.getPrice() >= price).toList(),
+                    sells.stream().filter(sell -> sell.getPrice() <= price).toList(),
+                    candidateBuySizes, candidateSellSizes);
+            if (executed > volume) {
+                clearingPrice = price;
+                volume = executed;
+                buySizes = candidateBuySizes;
+                sellSizes = candidateSellSizes;
+            }
+            if (executed == best.volume) {
+                break;
+            }
+            candidates.remove(best);
+        }
+        if (volume == 0) {
+            return Optional.empty();
+        }
+
+        List<Order> executedOrders = new ArrayList<>();
+        Map<Long, Integer> executedSizes = new LinkedHashMap<>();
+        for (Order order : buys) {
+            if (buySizes.containsKey(order.getId())) {
+                executedOrders.add(order);
+            }
+        }
+        for (Order order : sells) {
+            if (sellSizes.containsKey(order.getId())) {
+                executedOrders.add(order);
+            }
+        }
+        executedSizes.putAll(buySizes);
+        executedSizes.putAll(sellSizes);
+        return Optional.of(new AuctionResult(
+                assetName, clearingPrice, volume, executedOrders, executedSizes));
+    }
+
+    // Pairs the executable orders of both sides in priority order,
+    // skipping pairs of the same customer, returns the volume.
+    private static int allocate(
+            List<Order> buys,
+            List<Order> sells,
+            Map<Long, Integer> buySizes,
+            Map<Long, Integer> sellSizes) {
+        int[] sellOpen = sells.stream().mapToInt(Order::remainingSize).toArray();
+        int firstOpenSell = 0;
+        int volume = 0;
+        for (Order buy : buys) {
+            int buyOpen = buy.remainingSize();
+            for (int i = firstOpenSell; i < sells.size() && buyOpen > 0; i++) {
+                Order sell = sells.get(i);
+                if (sellOpen[i] == 0 || sell.getCustomerId() == buy.getCustomerId()) {
+                    continue;
+                }
+                int size = Math.min(buyOpen, sellOpen[i]);
+                buyOpen -= size;
+                sellOpen[i] -= size;
+                buySizes.merge(buy.getId(), size, Integer::sum);
+                sellSizes.merge(sell.getId(), size, Integer::sum);
+                volume += size;
+            }
+            while (firstOpenSell < sells.size() && sellOpen[firstOpenSell] == 0) {
+                firstOpenSell++;
+            }
+        }
+        return volume;
+    }
+
+    private static class Execution {
+
+        private final long price;
+        private final long volume;
+        private final long surplus;
+
+        Execution(long price, long volume, long surplus) {
+            this.price = price;
+            this.volume = volume;
+            this.surplus = surplus;
+        }
+
+        boolean isBetterThan(Execution other) {
+            if (other == null || volume != other.volume) {
+                return other == null || volume > other.volume;
+            }
+            if (Math.abs(surplus) != Math.abs(other.surplus)) {
+                return Math.abs(surplus) < Math.abs(other.surplus);
+            }
+            // prices are visited in ascending order
+            return surplus > 0;
+        }
+    }
+}
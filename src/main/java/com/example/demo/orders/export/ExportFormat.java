@@ -0,0 +1,31 @@
+package com.example.demo.orders.export;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+
+    // one JSON order per line
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    // header line, then one order per line
+    CSV(new MediaType("text", "csv"));
+
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat of(String format) throws UnsupportedExportFormatException {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedExportFormatException();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.orders.export;
+
+import com.example.demo.orders.ArchivedOrderRepo;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.model.ArchivedOrder;
+import com.example.demo.orders.model.Order;
+import com.example.demo.utils.FixedPoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams orders to the response as NDJSON or CSV while they are
+ * read: a forward-only cursor of {@link OrderRepo} fetches
+ * {@link OrderRepo#EXPORT_FETCH_SIZE} rows at a time, every order
+ * is written and then detached from the persistence context, and
+ * the response is flushed after every batch. Heap use does not
+ * grow with the number of exported orders.
+ * <p>
+ * Archived orders are exported too: the cursors of the live table
+ * and of {@link ArchivedOrderRepo} are both ordered by id and merged
+ * on the fly. The live cursor is opened first, an order archived in
+ * between is read from both and written once.
+ * <p>
+ * The body is written on an MVC async thread, in its own read
+ * only transaction, the request thread is released at once.
+ * <p>
+ * Metric: <code>orders.export.rows</code> orders written, tagged by format.
+ */
+@Service
+public class OrderExporter {
+
+    static final String CSV_HEADER = "id,customerId,assetName,orderSide,size,price,filledSize,"
+            + "orderStatus,orderType,clientOrderId,createDate";
+
+    private final OrderRepo orderRepo;
+    private final ArchivedOrderRepo archivedOrderRepo;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+    private final TransactionTemplate readOnly;
+    private final MeterRegistry meterRegistry;
+
+    public OrderExporter(
+            OrderRepo orderRepo,
+            ArchivedOrderRepo archivedOrderRepo,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.orderRepo = orderRepo;
+        this.archivedOrderRepo = archivedOrderRepo;
+        this.entityManager = entityManager;
+        this.jsonWriter = objectMapper.writerFor(Order.class);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public StreamingResponseBody exportAll(ExportFormat format) {
+        return out -> export(
+                () -> mergeById(orderRepo.streamAll(), archivedOrderRepo.streamAll()),
+                format, out);
+    }
+
+    public StreamingResponseBody exportBetween(long customerId, Date startDate, Date endDate, ExportFormat format) {
+        return out -> export(
+                () -> mergeById(
+                        orderRepo.streamByCustomerIdBetween(customerId, startDate, endDate),
+                        archivedOrderRepo.streamByCustomerIdBetween(customerId, startDate, endDate)),
+                format, out);
+    }
+
+    // Both cursors ascend by id, the live row wins
+    // over its archived copy. Closing closes both.
+    private Stream<Order> mergeById(Stream<Order> live, Stream<ArchivedOrder> archived) {
+        Iterator<Order> liveOrders = live.iterator();
+        Iterator<Order> archivedOrders = archived.map(order -> {
+            entityManager.detach(order);
+            return order.toOrder();
+        }).iterator();
+        Iterator<Order> merged = new Iterator<>() {
+            private Order nextLive;
+            private Order nextArchived;
+
+            @Override
+            public boolean hasNext() {
+                if (nextLive == null && liveOrders.hasNext()) {
+                    nextLive = liveOrders.next();
+                }
+                if (nextArchived == null && archivedOrders.hasNext()) {
+                    nextArchived = archivedOrders.next();
+                }
+                return nextLive != null || nextArchived != null;
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Order order;
+                if (nextArchived == null
+                        || (nextLive != null && nextLive.getId() <= nextArchived.getId())) {
+                    order = nextLive;
+                    if (nextArchived != null && nextArchived.getId() == order.getId()) {
+                        nextArchived = null;
+                    }
+                    nextLive = null;
+                } else {
+                    order = nextArchived;
+                    nextArchived = null;
+                }
+                return order;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(live::close)
+                .onClose(archived::close);
+    }
+
+    void export(Supplier<Stream<Order>> query, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            long rows = readOnly.execute(status -> {
+                try (Stream<Order> orders = query.get()) {
+                    return write(orders.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            meterRegistry.counter("orders.export.rows", "format", format.name()).increment(rows);
+        } catch (UncheckedIOException e) {
+            // client went away, the cursor is closed already
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private long write(Iterator<Order> orders, ExportFormat format, Writer writer) throws IOException {
+        long rows = 0;
+        while (orders.hasNext()) {
+            Order order = orders.next();
+            switch (format) {
+                case NDJSON -> writer.write(jsonWriter.writeValueAsString(order));
+                case CSV -> writeCsv(order, writer);
+            }
+            writer.write('\n');
+            entityManager.detach(order);
+            if (++rows % OrderRepo.EXPORT_FETCH_SIZE == 0) {
+                writer.flush();
+            }
+        }
+        return rows;
+    }
+
+    private static void writeCsv(Order order, Writer writer) throws IOException {
+        writer.write(String.valueOf(order.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(order.getCustomerId()));
+        writer.write(',');
+        writer.write(csv(order.getAssetName()));
+        writer.write(',');
+        writer.write(csv(order.getOrderSide()));
+        writer.write(',');
+        writer.write(String.valueOf(order.getSize()));
+        writer.write(',');
+        writer.write(FixedPoint.toString(order.getPrice()));
+        writer.write(',');
+        writer.write(String.valueOf(order.getFilledSize()));
+        writer.write(',');
+        writer.write(csv(order.getOrderStatus()));
+        writer.write(',');
+        writer.write(csv(order.getOrderType()));
+        writer.write(',');
+        writer.write(csv(order.getClientOrderId()));
+        writer.write(',');
+        writer.write(order.getCreateDate() == null ? "" : order.getCreateDate().toInstant().toString());
+    }
+
+    // RFC 4180: quoted only when needed, quotes doubled
+    static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.orders.export;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(
+        value = HttpStatus.BAD_REQUEST,
+        code = HttpStatus.BAD_REQUEST,
+        reason = "Unsupported Export Format, use ndjson or csv")
+public class UnsupportedExportFormatException extends Exception {
+}
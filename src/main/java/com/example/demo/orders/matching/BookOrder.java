@@ -0,0 +1,49 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderType;
+
+/**
+ * Immutable snapshot of a pending order as seen by an order book,
+ * {@link #size()} is the quantity still open.
+ * <p>
+ * Books never hold JPA entities, the snapshot is taken on the
+ * request thread and handed over to the book's writer thread.
+ */
+public record BookOrder(
+        long orderId,
+        long customerId,
+        String assetName,
+        OrderSide orderSide,
+        OrderType orderType,
+        long price,
+        int size
+) {
+
+    public static BookOrder of(Order order) {
+        return new BookOrder(
+                order.getId(),
+                order.getCustomerId(),
+                order.getAssetName(),
+                order.getOrderSide(),
+                OrderType.of(order),
+                order.getPrice(),
+                order.remainingSize()
+        );
+    }
+
+    public BookOrder withSize(int openSize) {
+        return new BookOrder(orderId, customerId, assetName, orderSide, orderType, price, openSize);
+    }
+
+    public boolean crosses(long restingPrice) {
+        if (orderType == OrderType.MARKET) {
+            return true;
+        }
+        return switch (orderSide) {
+            case BUY -> restingPrice <= price;
+            case SELL -> restingPrice >= price;
+        };
+    }
+}
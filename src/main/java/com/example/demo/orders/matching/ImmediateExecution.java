@@ -0,0 +1,22 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.orders.model.Order;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Outcome of executing a MARKET, IOC or FOK order against the
+ * resting orders swept from a book.
+ *
+ * @param order      the inserted order, empty when a swept resting
+ *                   order turned out to be stale and nothing was
+ *                   executed
+ * @param openSizes  open size of every swept resting order as read
+ *                   from its locked row, by order id
+ */
+public record ImmediateExecution(
+        Optional<Order> order,
+        Map<Long, Integer> openSizes
+) {
+}
@@ -0,0 +1,13 @@
+package com.example.demo.orders.matching;
+
+import java.util.List;
+
+/**
+ * Level 2 view of an order book, best prices first on both sides.
+ */
+public record MarketDepth(
+        String assetName,
+        List<PriceLevel> bids,
+        List<PriceLevel> asks
+) {
+}
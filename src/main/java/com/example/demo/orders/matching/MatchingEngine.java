@@ -0,0 +1,359 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.assets.service.AssetNotFoundException;
+import com.example.demo.assets.service.AssetSymbols;
+import com.example.demo.assets.service.NotEnoughAssetException;
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Continuous matching engine, one {@link OrderBook} per asset.
+ * <p>
+ * Every book is owned by its own single writer thread, all
+ * changes to a book (new orders, cancels, admin matches) are
+ * queued to that thread, so the books need no locking. Work
+ * is queued only after the changing transaction commits, so
+ * the writer never sees uncommitted orders. Books are kept
+ * by the symbol id of their asset, see {@link AssetSymbols}.
+ * <p>
+ * During the call phase of an auction session nothing is
+ * matched: new orders rest in their books, immediate orders
+ * expire, until the call auctions uncrossed the books.
+ */
+@Log
+@Service
+@RequiredArgsConstructor
+public class MatchingEngine {
+
+    private final OrderRepo orderRepo;
+    private final TradeSettlementService settlementService;
+    private final AssetSymbols assetSymbols;
+
+    private final Map<Integer, AssetBook> books = new ConcurrentHashMap<>();
+    // ids of submitted orders whose book task has not run yet
+    private final Set<Long> queuedOrderIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean callPhase;
+
+    /**
+     * Queues a newly created pending order to cross against
+     * the resting orders of its asset.
+     */
+    public void submit(Order order) {
+        BookOrder bookOrder = BookOrder.of(order);
+        queuedOrderIds.add(bookOrder.orderId());
+        afterRollback(() -> queuedOrderIds.remove(bookOrder.orderId()));
+        afterCommit(() -> {
+            AssetBook assetBook = bookFor(bookOrder.assetName());
+            assetBook.execute(book -> {
+                // already processed while the book was being loaded.
+                boolean loaded = assetBook.loadedOrderIds.remove(bookOrder.orderId());
+                queuedOrderIds.remove(bookOrder.orderId());
+                if (!loaded) {
+                    process(book, bookOrder);
+                }
+            });
+        });
+    }
+
+    /**
+     * Executes a MARKET, IOC or FOK order on the writer thread of
+     * its book and waits for the outcome. The book is swept in a
+     * single pass and the fills are settled in one transaction,
+     * the order never rests: it is inserted once, MATCHED when
+     * completely filled, otherwise EXPIRED. A FOK order which
+     * cannot be filled completely executes nothing.
+     */
+    public Order executeImmediately(Order order) throws NotEnoughMoneyException,
+            NotEnoughAssetException,
+            AssetNotFoundException {
+        BookOrder incoming = BookOrder.of(order);
+        if (assetSymbols.find(incoming.assetName()).isEmpty()) {
+            // nobody ever held or ordered the asset, no book to sweep
+            return settlementService.expire(order);
+        }
+        CompletableFuture<Order> outcome = bookFor(incoming.assetName())
+                .call(book -> {
+                    if (callPhase) {
+                        // executes in the auction only, never rests
+                        return settlementService.expire(order);
+                    }
+                    while (true) {
+                        List<Trade> trades = book.sweep(incoming);
+                        int executableSize = trades.stream().mapToInt(Trade::size).sum();
+                        if (trades.isEmpty()
+                                || (incoming.orderType() == OrderType.FOK && executableSize < incoming.size())) {
+                            return settlementService.expire(order);
+                        }
+                        ImmediateExecution execution = settlementService.executeImmediately(order, trades);
+                        execution.openSizes().forEach(book::resize);
+                        if (execution.order().isPresent()) {
+                            return execution.order().get();
+                        }
+                        // some resting orders were stale, sweep again.
+                    }
+                });
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NotEnoughMoneyException notEnoughMoney) {
+                throw notEnoughMoney;
+            }
+            if (e.getCause() instanceof NotEnoughAssetException notEnoughAsset) {
+                throw notEnoughAsset;
+            }
+            if (e.getCause() instanceof AssetNotFoundException assetNotFound) {
+                throw assetNotFound;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the call phase of an auction session: orders are
+     * collected in their books without being matched.
+     */
+    public void startCallPhase() {
+        callPhase = true;
+    }
+
+    /**
+     * Ends the call phase, new orders are matched again.
+     */
+    public void endCallPhase() {
+        callPhase = false;
+    }
+
+    /**
+     * Queues the new open size of an order partially filled
+     * outside the engine, i.e. in a call auction.
+     */
+    public void update(Order order) {
+        long orderId = order.getId();
+        int openSize = OrderStatus.PENDING.equals(order.getOrderStatus())
+                ? order.remainingSize()
+                : 0;
+        afterCommit(() -> bookFor(order.getAssetName())
+                .execute(book -> book.resize(orderId, openSize)));
+    }
+
+    /**
+     * Queues removal of an order which left the PENDING state
+     * outside the engine, i.e. cancelled or matched by an admin.
+     */
+    public void remove(Order order) {
+        long orderId = order.getId();
+        afterCommit(() -> bookFor(order.getAssetName())
+                .execute(book -> book.remove(orderId)));
+    }
+
+    /**
+     * Aggregated pending quantity per price level of an asset,
+     * read straight from its book without touching the database.
+     */
+    public MarketDepth depth(String assetName, int maxLevels) {
+        // never registers a symbol for an unknown name
+        OptionalInt symbolId = assetSymbols.find(assetName);
+        AssetBook assetBook = symbolId.isPresent() ? books.get(symbolId.getAsInt()) : null;
+        if (assetBook == null) {
+            return new MarketDepth(assetName, List.of(), List.of());
+        }
+        return assetBook.book.depth(Math.max(0, maxLevels));
+    }
+
+    /**
+     * Opens the books of all assets with pending orders, so
+     * that they are matchable and have depth right after startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void openBooks() {
+        orderRepo.findDistinctAssetNamesByOrderStatus(OrderStatus.PENDING)
+                .forEach(this::bookFor);
+    }
+
+    private void process(OrderBook book, BookOrder incoming) {
+        if (callPhase) {
+            book.add(incoming);
+            return;
+        }
+        BookOrder open = incoming;
+        while (true) {
+            Optional<BookOrder> counterOrder = book.findCounterOrder(open);
+            if (counterOrder.isEmpty()) {
+                book.add(open);
+                return;
+            }
+            BookOrder resting = counterOrder.get();
+
+            Trade trade = Trade.between(open, resting);
+            SettlementResult result;
+            try {
+                result = settlementService.settle(trade);
+            } catch (OrderSettlementException e) {
+                // Only the order which cannot be settled leaves the
+                // book, it stays PENDING in the database until cancelled.
+                log.log(Level.SEVERE, "Settlement failed for trade: " + trade
+                        + ", dropping order " + e.getFailedOrder().orderId(), e);
+                if (e.getFailedOrder().orderId() == open.orderId()) {
+                    return;
+                }
+                book.remove(resting.orderId());
+                continue;
+            } catch (Exception e) {
+                // Not caused by either order, both are
+                // kept with the open sizes of their rows.
+                log.log(Level.SEVERE, "Settlement failed for trade: " + trade, e);
+                book.resize(resting.orderId(), storedOpenSize(resting.orderId()));
+                int openSize = storedOpenSize(open.orderId());
+                if (openSize > 0) {
+                    book.add(open.withSize(openSize));
+                }
+                return;
+            }
+
+            // Both orders follow the open sizes of their rows,
+            // a stale resting order is dropped with size zero.
+            book.resize(resting.orderId(), result.openSizeOf(resting.orderSide()));
+            int openSize = result.openSizeOf(open.orderSide());
+            if (openSize == 0) {
+                return;
+            }
+            open = open.withSize(openSize);
+        }
+    }
+
+    private int storedOpenSize(long orderId) {
+        return orderRepo.findById(orderId)
+                .filter(order -> OrderStatus.PENDING.equals(order.getOrderStatus()))
+                .map(Order::remainingSize)
+                .orElse(0);
+    }
+
+    private AssetBook bookFor(String assetName) {
+        return books.computeIfAbsent(assetSymbols.idOf(assetName), symbolId -> openBook(assetName));
+    }
+
+    private AssetBook openBook(String assetName) {
+        AssetBook assetBook = new AssetBook(new OrderBook(assetName));
+        // First task of every writer thread rebuilds the book
+        // from the orders already pending in the database.
+        assetBook.execute(book -> orderRepo
+                .findByAssetNameAndOrderStatusOrderByIdAsc(assetName, OrderStatus.PENDING)
+                .forEach(order -> {
+                    // Only orders whose submission is still queued
+                    // are recorded, each of them is removed again
+                    // when its submission runs.
+                    if (queuedOrderIds.contains(order.getId())) {
+                        assetBook.loadedOrderIds.add(order.getId());
+                    }
+                    process(book, BookOrder.of(order));
+                }));
+        return assetBook;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            action.run();
+                        }
+                    });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                action.run();
+                            }
+                        }
+                    });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        books.values().forEach(AssetBook::shutdown);
+    }
+
+    @FunctionalInterface
+    private interface BookTask<T> {
+        T apply(OrderBook book) throws Exception;
+    }
+
+    private static class AssetBook {
+
+        private final OrderBook book;
+        private final ExecutorService writer;
+        // ids of orders processed by the initial load while
+        // their submissions were queued, those are skipped.
+        private final Set<Long> loadedOrderIds = new HashSet<>();
+
+        AssetBook(OrderBook book) {
+            this.book = book;
+            this.writer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-book-" + book.getAssetName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void execute(Consumer<OrderBook> task) {
+            writer.execute(() -> {
+                try {
+                    task.accept(book);
+                } catch (RuntimeException e) {
+                    log.log(Level.SEVERE, "Order book task failed: " + book.getAssetName(), e);
+                }
+            });
+        }
+
+        <T> CompletableFuture<T> call(BookTask<T> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            writer.execute(() -> {
+                try {
+                    result.complete(task.apply(book));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        }
+
+        void shutdown() {
+            writer.shutdown();
+        }
+    }
+}
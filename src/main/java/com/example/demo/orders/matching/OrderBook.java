@@ -0,0 +1,186 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.orders.model.OrderSide;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Price-time priority order book of a single asset.
+ * <p>
+ * BUY levels are kept best (highest) price first, SELL levels
+ * best (lowest) price first, each level keeps its orders in
+ * arrival order. A partial fill only shrinks the open size of
+ * an order, it keeps its place in the level.
+ * <p>
+ * Not thread-safe: every book is owned by exactly one writer
+ * thread of the {@link MatchingEngine}. Only the aggregated
+ * depth is kept in concurrent maps, updated on every add and
+ * remove, so {@link #depth(int)} can be read from any thread.
+ */
+public class OrderBook {
+
+    private final String assetName;
+
+    private final NavigableMap<Long, LinkedHashMap<Long, BookOrder>> bids =
+            new TreeMap<>(Comparator.reverseOrder());
+
+    private final NavigableMap<Long, LinkedHashMap<Long, BookOrder>> asks =
+            new TreeMap<>();
+
+    private final Map<Long, BookOrder> index = new HashMap<>();
+
+    private final ConcurrentNavigableMap<Long, PriceLevel> bidDepth =
+            new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    private final ConcurrentNavigableMap<Long, PriceLevel> askDepth =
+            new ConcurrentSkipListMap<>();
+
+    public OrderBook(String assetName) {
+        this.assetName = assetName;
+    }
+
+    public String getAssetName() {
+        return assetName;
+    }
+
+    public boolean contains(long orderId) {
+        return index.containsKey(orderId);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Finds the resting order the incoming order shall trade with.
+     * <p>
+     * Levels are visited in price priority, orders of a level in
+     * time priority. Orders of the same customer never trade with
+     * each other. Sizes need not be equal, the smaller side is
+     * filled completely and the larger one in part.
+     */
+    public Optional<BookOrder> findCounterOrder(BookOrder incoming) {
+        for (Map.Entry<Long, LinkedHashMap<Long, BookOrder>> level : opposite(incoming.orderSide()).entrySet()) {
+            if (!incoming.crosses(level.getKey())) {
+                break;
+            }
+            for (BookOrder resting : level.getValue().values()) {
+                if (resting.customerId() != incoming.customerId()) {
+                    return Optional.of(resting);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Trades the incoming order would make, in priority order,
+     * until it is completely filled or nothing crosses anymore.
+     * The book itself is not changed.
+     */
+    public List<Trade> sweep(BookOrder incoming) {
+        List<Trade> trades = new ArrayList<>();
+        int openSize = incoming.size();
+        for (Map.Entry<Long, LinkedHashMap<Long, BookOrder>> level : opposite(incoming.orderSide()).entrySet()) {
+            if (!incoming.crosses(level.getKey())) {
+                break;
+            }
+            for (BookOrder resting : level.getValue().values()) {
+                if (resting.customerId() != incoming.customerId()) {
+                    Trade trade = Trade.between(incoming.withSize(openSize), resting);
+                    trades.add(trade);
+                    openSize -= trade.size();
+                    if (openSize == 0) {
+                        return trades;
+                    }
+                }
+            }
+        }
+        return trades;
+    }
+
+    public void add(BookOrder order) {
+        if (index.putIfAbsent(order.orderId(), order) == null) {
+            same(order.orderSide())
+                    .computeIfAbsent(order.price(), price -> new LinkedHashMap<>())
+                    .put(order.orderId(), order);
+            depthOf(order.orderSide()).merge(
+                    order.price(),
+                    new PriceLevel(order.price(), order.size(), 1),
+                    (level, added) -> level.plus(order));
+        }
+    }
+
+    public boolean remove(long orderId) {
+        BookOrder order = index.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        NavigableMap<Long, LinkedHashMap<Long, BookOrder>> levels = same(order.orderSide());
+        LinkedHashMap<Long, BookOrder> level = levels.get(order.price());
+        level.remove(orderId);
+        if (level.isEmpty()) {
+            levels.remove(order.price());
+        }
+        depthOf(order.orderSide()).computeIfPresent(
+                order.price(),
+                (price, depthLevel) -> depthLevel.orderCount() > 1 ? depthLevel.minus(order) : null);
+        return true;
+    }
+
+    /**
+     * Sets the open size of a resting order after a fill, keeping
+     * its time priority. An open size of zero removes the order.
+     */
+    public void resize(long orderId, int openSize) {
+        BookOrder order = index.get(orderId);
+        if (order == null || order.size() == openSize) {
+            return;
+        }
+        if (openSize <= 0) {
+            remove(orderId);
+            return;
+        }
+        BookOrder resized = order.withSize(openSize);
+        index.put(orderId, resized);
+        // replacing the value keeps the insertion order
+        same(order.orderSide()).get(order.price()).put(orderId, resized);
+        depthOf(order.orderSide()).computeIfPresent(
+                order.price(),
+                (price, depthLevel) -> depthLevel.resized(openSize - order.size()));
+    }
+
+    /**
+     * Aggregated quantity per price level, best prices first.
+     * Safe to call from any thread, costs O(maxLevels).
+     */
+    public MarketDepth depth(int maxLevels) {
+        return new MarketDepth(
+                assetName,
+                bidDepth.values().stream().limit(maxLevels).toList(),
+                askDepth.values().stream().limit(maxLevels).toList()
+        );
+    }
+
+    public Optional<Long> bestBid() {
+        return bids.isEmpty() ? Optional.empty() : Optional.of(bids.firstKey());
+    }
+
+    public Optional<Long> bestAsk() {
+        return asks.isEmpty() ? Optional.empty() : Optional.of(asks.firstKey());
+    }
+
+    private NavigableMap<Long, LinkedHashMap<Long, BookOrder>> same(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    private ConcurrentNavigableMap<Long, PriceLevel> depthOf(OrderSide side) {
+        return side == OrderSide.BUY ? bidDepth : askDepth;
+    }
+
+    private NavigableMap<Long, LinkedHashMap<Long, BookOrder>> opposite(OrderSide side) {
+        return side == OrderSide.BUY ? asks : bids;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.orders.matching;
+
+import lombok.Getter;
+
+/**
+ * A trade could not be settled because of the assets of the
+ * customer of one of its orders, i.e. a missing TRY or traded
+ * asset. The settlement is rolled back, the matching engine
+ * drops that order from its book and keeps the other one.
+ */
+@Getter
+public class OrderSettlementException extends Exception {
+
+    private final BookOrder failedOrder;
+
+    public OrderSettlementException(BookOrder failedOrder, Throwable cause) {
+        super("Order " + failedOrder.orderId() + " cannot be settled", cause);
+        this.failedOrder = failedOrder;
+    }
+}
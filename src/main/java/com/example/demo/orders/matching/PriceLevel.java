@@ -0,0 +1,27 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.utils.FixedPointJson;
+
+/**
+ * Aggregated pending quantity at one price of one side of a book.
+ */
+public record PriceLevel(
+        @FixedPointJson
+        long price,
+        long size,
+        int orderCount
+) {
+
+    PriceLevel plus(BookOrder order) {
+        return new PriceLevel(price, size + order.size(), orderCount + 1);
+    }
+
+    PriceLevel minus(BookOrder order) {
+        return new PriceLevel(price, size - order.size(), orderCount - 1);
+    }
+
+    // an order of the level was partially filled
+    PriceLevel resized(long delta) {
+        return new PriceLevel(price, size + delta, orderCount);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.orders.model.OrderSide;
+
+/**
+ * Open sizes of both orders of a trade as read from their locked
+ * rows once the trade is settled, zero when an order is not
+ * PENDING anymore. The book follows these sizes, so it catches
+ * up with orders changed outside of it.
+ */
+public record SettlementResult(
+        int buyOrderOpenSize,
+        int sellOrderOpenSize
+) {
+
+    public int openSizeOf(OrderSide side) {
+        return side == OrderSide.BUY ? buyOrderOpenSize : sellOrderOpenSize;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.utils.FixedPoint;
+
+/**
+ * A match between a BUY and a SELL order found by an order book.
+ * <p>
+ * Trades execute at the price of the resting order.
+ */
+public record Trade(
+        String assetName,
+        BookOrder buyOrder,
+        BookOrder sellOrder,
+        int size,
+        long price
+) {
+
+    public static Trade between(BookOrder incoming, BookOrder resting) {
+        BookOrder buy = incoming.orderSide() == OrderSide.BUY ? incoming : resting;
+        BookOrder sell = incoming.orderSide() == OrderSide.SELL ? incoming : resting;
+        return new Trade(
+                incoming.assetName(),
+                buy,
+                sell,
+                Math.min(incoming.size(), resting.size()),
+                resting.price()
+        );
+    }
+
+    public BookOrder orderOf(OrderSide side) {
+        return side == OrderSide.BUY ? buyOrder : sellOrder;
+    }
+
+    public Trade withSize(int executedSize) {
+        return new Trade(assetName, buyOrder, sellOrder, executedSize, price);
+    }
+
+    public long cost() {
+        return FixedPoint.multiply(price, size);
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.assets.AssetRepo;
+import com.example.demo.assets.model.Asset;
+import com.example.demo.assets.model.AssetNames;
+import com.example.demo.assets.service.AssetNotFoundException;
+import com.example.demo.assets.service.MissingAssetException;
+import com.example.demo.assets.service.NotEnoughAssetException;
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import com.example.demo.orders.ExecutionRepo;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.model.Execution;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class TradeSettlementService {
+
+    private final OrderRepo orderRepo;
+    private final AssetRepo assetRepo;
+    private final ExecutionRepo executionRepo;
+
+    @Transactional(rollbackOn = Exception.class)
+    public SettlementResult settle(Trade trade) throws OrderSettlementException {
+        // ORDER OF LOCKS:
+        // 1. ORDERS, lower id first
+        // 2. ASSETS, lower customer id first,
+        //    TRY asset before the traded asset
+        // Same order is used by the single order
+        // workflows, so settlements cannot deadlock
+        // with cancels or admin matches.
+        long buyOrderId = trade.buyOrder().orderId();
+        long sellOrderId = trade.sellOrder().orderId();
+
+        Optional<Order> buyOrder;
+        Optional<Order> sellOrder;
+        if (buyOrderId < sellOrderId) {
+            buyOrder = orderRepo.findByIdForUpdate(buyOrderId);
+            sellOrder = orderRepo.findByIdForUpdate(sellOrderId);
+        } else {
+            sellOrder = orderRepo.findByIdForUpdate(sellOrderId);
+            buyOrder = orderRepo.findByIdForUpdate(buyOrderId);
+        }
+
+        // The book may be behind the database, orders
+        // can be cancelled, matched by an admin or filled
+        // in an auction while their update is still queued
+        // for the book. Only what is still open executes.
+        int buyOpenSize = openSize(buyOrder);
+        int sellOpenSize = openSize(sellOrder);
+        int executedSize = Math.min(trade.size(), Math.min(buyOpenSize, sellOpenSize));
+        if (executedSize == 0) {
+            return new SettlementResult(buyOpenSize, sellOpenSize);
+        }
+
+        Trade executed = trade.withSize(executedSize);
+        settleReserved(executed);
+
+        // Partial fills only rewrite filledSize of the
+        // order rows, every fill is appended to executions.
+        Order buy = buyOrder.get();
+        buy.fill(executedSize);
+        orderRepo.save(buy);
+        Order sell = sellOrder.get();
+        sell.fill(executedSize);
+        orderRepo.save(sell);
+        executionRepo.saveAll(List.of(
+                Execution.of(buy, executedSize, executed.price()),
+                Execution.of(sell, executedSize, executed.price())));
+        return new SettlementResult(buy.remainingSize(), sell.remainingSize());
+    }
+
+    /**
+     * Executes a MARKET, IOC or FOK order against the resting
+     * orders swept from its book, in one transaction.
+     * <p>
+     * The incoming order never rested, so it has reserved nothing:
+     * its funds are checked on the locked assets and the order is
+     * inserted once, MATCHED when completely filled, otherwise
+     * EXPIRED with the filled part kept.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public ImmediateExecution executeImmediately(
+            Order incoming,
+            List<Trade> trades) throws AssetNotFoundException,
+            NotEnoughMoneyException,
+            NotEnoughAssetException {
+        OrderSide restingSide = incoming.getOrderSide() == OrderSide.BUY
+                ? OrderSide.SELL
+                : OrderSide.BUY;
+
+        // Resting orders are locked at once in ascending id order.
+        Map<Long, Order> restingOrders = new HashMap<>();
+        orderRepo.findAllByIdForUpdate(trades.stream()
+                        .map(trade -> trade.orderOf(restingSide).orderId())
+                        .toList())
+                .forEach(order -> restingOrders.put(order.getId(), order));
+
+        // If any swept order cannot give its planned size the
+        // book is behind the database: nothing is executed, the
+        // book is corrected and swept again.
+        Map<Long, Integer> openSizes = new HashMap<>();
+        boolean stale = false;
+        for (Trade trade : trades) {
+            long restingId = trade.orderOf(restingSide).orderId();
+            int openSize = openSize(Optional.ofNullable(restingOrders.get(restingId)));
+            openSizes.put(restingId, openSize);
+            stale |= openSize < trade.size();
+        }
+        if (stale) {
+            return new ImmediateExecution(Optional.empty(), openSizes);
+        }
+
+        lockAssets(incoming, restingOrders.values());
+        boolean incomingBuys = incoming.getOrderSide() == OrderSide.BUY;
+        List<Execution> executions = new ArrayList<>();
+        long notional = 0;
+        for (Trade trade : trades) {
+            settleAssets(trade, !incomingBuys, incomingBuys);
+            Order resting = restingOrders.get(trade.orderOf(restingSide).orderId());
+            resting.fill(trade.size());
+            openSizes.put(resting.getId(), resting.remainingSize());
+            executions.add(Execution.of(resting, trade.size(), trade.price()));
+            incoming.fill(trade.size());
+            notional = FixedPoint.add(notional, trade.cost());
+        }
+        orderRepo.saveAll(restingOrders.values());
+
+        if (OrderType.of(incoming) == OrderType.MARKET) {
+            // market orders have no limit, keep the average execution price.
+            incoming.setPrice(FixedPoint.divide(notional, incoming.getFilledSize()));
+        }
+        if (isPending(incoming)) {
+            // IOC or MARKET remainder which found no counter order.
+            incoming.setOrderStatus(OrderStatus.EXPIRED);
+        }
+        Order inserted = orderRepo.save(incoming);
+        for (Trade trade : trades) {
+            executions.add(Execution.of(inserted, trade.size(), trade.price()));
+        }
+        executionRepo.saveAll(executions);
+        return new ImmediateExecution(Optional.of(inserted), openSizes);
+    }
+
+    /**
+     * Inserts a MARKET, IOC or FOK order which found nothing
+     * to execute against, nothing was reserved for it.
+     */
+    @Transactional
+    public Order expire(Order incoming) {
+        incoming.setOrderStatus(OrderStatus.EXPIRED);
+        return orderRepo.save(incoming);
+    }
+
+    // A sweep touches many customers at once, their TRY and
+    // traded assets are locked in ascending customer id order,
+    // TRY asset first, before any of them is updated.
+    private void lockAssets(Order incoming, Collection<Order> restingOrders) {
+        Set<Long> customerIds = new TreeSet<>();
+        customerIds.add(incoming.getCustomerId());
+        restingOrders.forEach(order -> customerIds.add(order.getCustomerId()));
+        for (long customerId : customerIds) {
+            assetRepo.findByCustomerIdAndAssetName(customerId, AssetNames.TRY.name());
+            assetRepo.findByCustomerIdAndAssetName(customerId, incoming.getAssetName());
+        }
+    }
+
+    private void settleAssets(
+            Trade trade,
+            boolean buyerReserved,
+            boolean sellerReserved) throws AssetNotFoundException,
+            NotEnoughMoneyException,
+            NotEnoughAssetException {
+        if (trade.buyOrder().customerId() < trade.sellOrder().customerId()) {
+            settleBuyer(trade, buyerReserved);
+            settleSeller(trade, sellerReserved);
+        } else {
+            settleSeller(trade, sellerReserved);
+            settleBuyer(trade, buyerReserved);
+        }
+    }
+
+    // Both orders of a book trade reserved on creation, a
+    // failure is pinned on the order whose customer assets
+    // are missing, so the engine knows which one to drop.
+    private void settleReserved(Trade trade) throws OrderSettlementException {
+        if (trade.buyOrder().customerId() < trade.sellOrder().customerId()) {
+            settleReservedBuyer(trade);
+            settleReservedSeller(trade);
+        } else {
+            settleReservedSeller(trade);
+            settleReservedBuyer(trade);
+        }
+    }
+
+    private void settleReservedBuyer(Trade trade) throws OrderSettlementException {
+        try {
+            settleBuyer(trade, true);
+        } catch (AssetNotFoundException | NotEnoughMoneyException e) {
+            throw new OrderSettlementException(trade.buyOrder(), e);
+        }
+    }
+
+    private void settleReservedSeller(Trade trade) throws OrderSettlementException {
+        try {
+            settleSeller(trade, true);
+        } catch (AssetNotFoundException | NotEnoughAssetException e) {
+            throw new OrderSettlementException(trade.sellOrder(), e);
+        }
+    }
+
+    private static boolean isPending(Order order) {
+        return OrderStatus.PENDING.equals(order.getOrderStatus());
+    }
+
+    private static int openSize(Optional<Order> order) {
+        return order.filter(TradeSettlementService::isPending)
+                .map(Order::remainingSize)
+                .orElse(0);
+    }
+
+    private void settleBuyer(
+            Trade trade,
+            boolean reservedOnCreation) throws AssetNotFoundException,
+            NotEnoughMoneyException {
+        BookOrder buyOrder = trade.buyOrder();
+        Asset tryAsset = assetRepo.findByCustomerIdAndAssetName(
+                buyOrder.customerId(),
+                AssetNames.TRY.name()
+        ).orElseThrow(AssetNotFoundException::new);
+
+        // Resting buyer reserved size * limit price on order
+        // creation, pays the trade price and gets the difference
+        // back. Immediate buyer reserved nothing.
+        long reserved = 0;
+        if (reservedOnCreation) {
+            reserved = FixedPoint.multiply(buyOrder.price(), trade.size());
+        } else if (tryAsset.getUsableSize() < trade.cost()) {
+            throw new NotEnoughMoneyException();
+        }
+        tryAsset.setSize(FixedPoint.subtract(tryAsset.getSize(), trade.cost()));
+        tryAsset.setUsableSize(FixedPoint.add(tryAsset.getUsableSize(), reserved - trade.cost()));
+        assetRepo.save(tryAsset);
+
+        Optional<Asset> optAssetToBuy = assetRepo.findByCustomerIdAndAssetName(
+                buyOrder.customerId(), trade.assetName()
+        );
+        if (optAssetToBuy.isPresent()) {
+            Asset assetToBuy = optAssetToBuy.get();
+            assetToBuy.setSize(FixedPoint.add(assetToBuy.getSize(), FixedPoint.of(trade.size())));
+            assetToBuy.setUsableSize(FixedPoint.add(assetToBuy.getUsableSize(), FixedPoint.of(trade.size())));
+            assetRepo.save(assetToBuy);
+        } else {
+            Asset newAsset = Asset.builder()
+                    .assetName(trade.assetName())
+                    .size(FixedPoint.of(trade.size()))
+                    .usableSize(FixedPoint.of(trade.size()))
+                    .customerId(buyOrder.customerId())
+                    .build();
+            assetRepo.save(newAsset);
+        }
+    }
+
+    private void settleSeller(
+            Trade trade,
+            boolean reservedOnCreation) throws AssetNotFoundException,
+            NotEnoughAssetException {
+        BookOrder sellOrder = trade.sellOrder();
+        Asset tryAsset = assetRepo.findByCustomerIdAndAssetName(
+                sellOrder.customerId(),
+                AssetNames.TRY.name()
+        ).orElseThrow(AssetNotFoundException::new);
+
+        tryAsset.setSize(FixedPoint.add(tryAsset.getSize(), trade.cost()));
+        tryAsset.setUsableSize(FixedPoint.add(tryAsset.getUsableSize(), trade.cost()));
+        assetRepo.save(tryAsset);
+
+        Asset assetToSell = assetRepo.findByCustomerIdAndAssetName(
+                sellOrder.customerId(), trade.assetName()
+        ).orElseThrow(MissingAssetException::new);
+        // usableSize of a resting seller was already
+        // decreased on order creation.
+        long soldSize = FixedPoint.of(trade.size());
+        if (!reservedOnCreation) {
+            if (assetToSell.getUsableSize() < soldSize) {
+                throw new NotEnoughAssetException();
+            }
+            assetToSell.setUsableSize(FixedPoint.subtract(assetToSell.getUsableSize(), soldSize));
+        }
+        assetToSell.setSize(FixedPoint.subtract(assetToSell.getSize(), soldSize));
+        assetRepo.save(assetToSell);
+    }
+}
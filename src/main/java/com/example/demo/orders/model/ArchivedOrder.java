@@ -0,0 +1,74 @@
+package com.example.demo.orders.model;
+
+import com.example.demo.assets.model.AssetSymbolConverter;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Date;
+
+// Cold copy of a MATCHED, CANCELLED or EXPIRED order,
+// moved out of the orders table by the OrderArchiver.
+// Same columns and id as the order, never updated.
+@Entity
+@Immutable
+@Table(name = "orders_archive",
+        uniqueConstraints = {
+            @UniqueConstraint(columnNames = { "customerId", "clientOrderId" })
+        },
+        indexes = {
+            @Index(name = "idx_orders_archive_customer_date", columnList = "customerId, createDate")
+        })
+@Data
+@NoArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    private long id;
+
+    private long customerId;
+
+    @Convert(converter = AssetSymbolConverter.class)
+    @Column(name = "symbol_id")
+    private String assetName;
+
+    private OrderSide orderSide;
+
+    private int size;
+
+    // FixedPoint units per share
+    private long price;
+
+    private int filledSize;
+
+    private OrderStatus orderStatus;
+
+    private OrderType orderType;
+
+    @Column(length = 64)
+    private String clientOrderId;
+
+    private Date createDate;
+
+    private long version;
+
+    // Detached order of the same row, read paths
+    // answer with orders whichever table they are in.
+    public Order toOrder() {
+        return Order.builder()
+                .id(id)
+                .customerId(customerId)
+                .assetName(assetName)
+                .orderSide(orderSide)
+                .size(size)
+                .price(price)
+                .filledSize(filledSize)
+                .orderStatus(orderStatus)
+                .orderType(orderType)
+                .clientOrderId(clientOrderId)
+                .createDate(createDate)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.orders.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk order request, every order of the
+ * request is either accepted (PENDING) or rejected.
+ */
+public record BulkOrderResult(
+        List<Order> accepted,
+        List<RejectedOrder> rejected
+) {
+}
@@ -0,0 +1,75 @@
+package com.example.demo.orders.model;
+
+import com.example.demo.assets.model.AssetSymbolConverter;
+import com.example.demo.journal.JournalEntityListener;
+import com.example.demo.utils.FixedPointJson;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Date;
+
+// One fill of one order. Rows are only ever inserted,
+// never updated, so fills do not contend on order rows.
+// Ids come from a pooled sequence, so inserts of a
+// settlement are sent to the database in JDBC batches.
+@Entity
+@EntityListeners(JournalEntityListener.class)
+@Immutable
+@Table(name = "executions",
+        indexes = {
+            @Index(columnList = "orderId")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Execution {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "executions_seq")
+    @SequenceGenerator(name = "executions_seq", sequenceName = "executions_seq", allocationSize = 50)
+    private long id;
+
+    @NotNull
+    private long orderId;
+
+    @NotNull
+    private long customerId;
+
+    @NotNull
+    @Convert(converter = AssetSymbolConverter.class)
+    @Column(name = "symbol_id")
+    private String assetName;
+
+    @NotNull
+    private OrderSide orderSide;
+
+    @Positive
+    private int size;
+
+    @PositiveOrZero
+    @FixedPointJson
+    private long price;
+
+    @NotNull
+    private Date createDate;
+
+    public static Execution of(Order order, int size, long price) {
+        return Execution.builder()
+                .orderId(order.getId())
+                .customerId(order.getCustomerId())
+                .assetName(order.getAssetName())
+                .orderSide(order.getOrderSide())
+                .size(size)
+                .price(price)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.demo.orders.model;
 
+import com.example.demo.assets.model.AssetSymbolConverter;
+import com.example.demo.assets.service.AssetSymbolListener;
+import com.example.demo.journal.JournalEntityListener;
+import com.example.demo.orders.risk.OrderRiskListener;
+import com.example.demo.utils.FixedPointJson;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -8,11 +13,30 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Date;
 
+// Only the changed columns are written on update,
+// a fill rewrites filledSize (and orderStatus once
+// fully filled) instead of the whole row.
+// Indexes follow the filters of OrderRepo and of the
+// order search, EXPLAIN of every repository query is
+// checked by QueryPlanTest.
 @Entity
-@Table(name = "orders")
+@EntityListeners({ AssetSymbolListener.class, JournalEntityListener.class, OrderRiskListener.class })
+@DynamicUpdate
+@Table(name = "orders",
+        uniqueConstraints = {
+            @UniqueConstraint(columnNames = { "customerId", "clientOrderId" })
+        },
+        indexes = {
+            @Index(name = "idx_orders_customer_date", columnList = "customerId, createDate"),
+            @Index(name = "idx_orders_customer_status_date", columnList = "customerId, orderStatus, createDate"),
+            @Index(name = "idx_orders_symbol_status", columnList = "symbol_id, orderStatus"),
+            @Index(name = "idx_orders_status_date", columnList = "orderStatus, createDate"),
+            @Index(name = "idx_orders_date", columnList = "createDate")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +44,8 @@ import java.util.Date;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private long id;
 
     @NotNull(message = "order shall have a customer")
@@ -28,6 +53,8 @@ public class Order {
 
     @NotNull(message = "order shall be for an asset")
     @NotEmpty(message = "assetName cannot be omitted")
+    @Convert(converter = AssetSymbolConverter.class)
+    @Column(name = "symbol_id")
     private String assetName;
 
     @NotNull(message = "orderSide must not be null")
@@ -36,12 +63,45 @@ public class Order {
     @PositiveOrZero(message = "number of assets must be positive or zero")
     private int size;
 
+    // FixedPoint units per share
     @PositiveOrZero(message = "asset must have a positive or zero price")
-    private double price;
+    @FixedPointJson
+    private long price;
+
+    // Quantity executed so far, see the executions table
+    // for every single fill. The order stays PENDING, and
+    // matchable, until the whole size is filled.
+    @PositiveOrZero
+    private int filledSize;
 
     private OrderStatus orderStatus;
 
+    // null is read as LIMIT for orders created before order types
+    private OrderType orderType;
+
+    // Optional id given by the client, unique per customer.
+    // Orders without one are never deduplicated.
+    @Column(length = 64)
+    private String clientOrderId;
+
     @NotNull
     private Date createDate;
 
+    // Checked and incremented on every update, a
+    // concurrent change fails the optimistic writer.
+    @Version
+    private long version;
+
+    public int remainingSize() {
+        return size - filledSize;
+    }
+
+    // Records a fill of the given quantity,
+    // MATCHED once nothing remains open.
+    public void fill(int executedSize) {
+        filledSize += executedSize;
+        if (filledSize >= size) {
+            orderStatus = OrderStatus.MATCHED;
+        }
+    }
 }
@@ -1,8 +1,10 @@
 package com.example.demo.orders.model;
 
+import com.example.demo.utils.FixedPointJson;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 public record OrderDto(
         @NotNull(message = "order shall be for an asset")
@@ -14,7 +16,25 @@ public record OrderDto(
         @PositiveOrZero(message = "size of the asset must be positive or zero")
         int size,
 
+        // FixedPoint units, a decimal number in JSON
         @PositiveOrZero(message = "asset must have a positive or zero price")
-        double price
+        @FixedPointJson
+        long price,
+
+        // optional, LIMIT when omitted, price is ignored for MARKET
+        OrderType orderType,
+
+        // optional, unique per customer, a repeated id returns
+        // the original order instead of creating a new one
+        @Size(max = 64, message = "clientOrderId must be at most 64 characters")
+        String clientOrderId
 ) {
+
+    public OrderDto(String assetName, OrderSide orderSide, int size, long price) {
+        this(assetName, orderSide, size, price, OrderType.LIMIT);
+    }
+
+    public OrderDto(String assetName, OrderSide orderSide, int size, long price, OrderType orderType) {
+        this(assetName, orderSide, size, price, orderType, null);
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.demo.orders.model;
+
+import java.util.Date;
+
+// Filters of the order search, null ones are not applied.
+// The date range includes startDate and excludes endDate.
+public record OrderSearch(
+        Long customerId,
+        OrderStatus orderStatus,
+        OrderSide orderSide,
+        String assetName,
+        Date startDate,
+        Date endDate
+) {
+
+    // Side alone matches half of the table, at least
+    // one filter backed by an index is required.
+    public boolean isIndexed() {
+        return customerId != null || orderStatus != null || assetName != null
+                || startDate != null || endDate != null;
+    }
+}
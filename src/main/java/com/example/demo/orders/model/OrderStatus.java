@@ -5,6 +5,8 @@ public enum OrderStatus {
 
     PENDING,
     MATCHED,
-    CANCELLED
+    CANCELLED,
+    // MARKET, IOC or FOK order which found nothing to execute against
+    EXPIRED
 
 }
@@ -0,0 +1,23 @@
+package com.example.demo.orders.model;
+
+
+public enum OrderType {
+
+    // rests in the book until matched or cancelled
+    LIMIT,
+    // executes immediately at the best counter price
+    MARKET,
+    // immediate-or-cancel, executes what it can at its limit
+    IOC,
+    // fill-or-kill, executes completely at its limit or not at all
+    FOK;
+
+    public boolean isImmediate() {
+        return this != LIMIT;
+    }
+
+    public static OrderType of(Order order) {
+        return order.getOrderType() == null ? LIMIT : order.getOrderType();
+    }
+
+}
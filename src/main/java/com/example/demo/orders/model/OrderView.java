@@ -0,0 +1,29 @@
+package com.example.demo.orders.model;
+
+import com.example.demo.utils.FixedPointJson;
+
+import java.util.Date;
+
+// Read model of an order, live or archived, read with a
+// constructor expression, not managed and never dirty
+// checked. Same JSON as an Order.
+public record OrderView(
+        long id,
+        long customerId,
+        String assetName,
+        OrderSide orderSide,
+        int size,
+        @FixedPointJson long price,
+        int filledSize,
+        OrderStatus orderStatus,
+        OrderType orderType,
+        String clientOrderId,
+        Date createDate,
+        long version
+) {
+
+    // Select list of Order and ArchivedOrder alike, aliased o
+    public static final String SELECT = "SELECT new com.example.demo.orders.model.OrderView("
+            + "o.id, o.customerId, o.assetName, o.orderSide, o.size, o.price, o.filledSize,"
+            + " o.orderStatus, o.orderType, o.clientOrderId, o.createDate, o.version)";
+}
@@ -0,0 +1,12 @@
+package com.example.demo.orders.model;
+
+/**
+ * An order of a bulk request which was not accepted,
+ * index is its position in the request.
+ */
+public record RejectedOrder(
+        int index,
+        OrderDto order,
+        String reason
+) {
+}
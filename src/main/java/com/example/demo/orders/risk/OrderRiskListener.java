@@ -0,0 +1,27 @@
+package com.example.demo.orders.risk;
+
+import com.example.demo.orders.model.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands every insert and update of an Order to the
+ * {@link PreTradeRisk} counters: creates, cancels, fills of
+ * the matching engine, auctions and admin matches all end
+ * up in a flush of the entity.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderRiskListener {
+
+    private final ObjectProvider<PreTradeRisk> preTradeRisk;
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Order order) {
+        preTradeRisk.getObject().onChange(order);
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.demo.orders.risk;
+
+import com.example.demo.assets.service.AssetSymbols;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-trade risk limits per customer, checked in memory in
+ * front of order creation instead of aggregating the orders
+ * table: the notional of a single order, the number of open
+ * (PENDING) orders and the gross open notional, buys and sells
+ * added up, per asset.
+ * <p>
+ * The counters are atomics per customer and asset symbol. An
+ * order reserves its open order and its notional with a
+ * compare-and-set against the limit, without a lock, and holds
+ * them until its transaction completes. Once it commits, its row
+ * is counted by the Order entity listener instead, as are fills,
+ * cancels, auctions and admin matches of all orders; a rolled
+ * back order only gives its reservation back. Changes reaching
+ * the counters out of order are dropped by the row version.
+ * <p>
+ * MARKET, IOC and FOK orders never rest, only their notional is
+ * checked. Counters are rebuilt from the pending orders on startup.
+ * <p>
+ * Configuration: orders.risk.enabled, orders.risk.max-order-notional,
+ * orders.risk.max-open-orders, orders.risk.max-gross-exposure.
+ * Metric: <code>orders.risk.rejections</code>, tagged by limit.
+ */
+@Service
+public class PreTradeRisk {
+
+    // one open order, last counted at a row version
+    private record Position(long customerId, int symbolId, boolean open, long notional, long version,
+                            long closedAtMillis) {
+    }
+
+    private static final class CustomerRisk {
+
+        private final AtomicInteger openOrders = new AtomicInteger();
+        private final Map<Integer, AtomicLong> exposures = new ConcurrentHashMap<>();
+
+        private AtomicLong exposure(int symbolId) {
+            AtomicLong exposure = exposures.get(symbolId);
+            return exposure != null
+                    ? exposure
+                    : exposures.computeIfAbsent(symbolId, id -> new AtomicLong());
+        }
+    }
+
+    // closed orders are kept for a minute, so that an older
+    // change of the same order cannot open it again.
+    private static final long CLOSED_RETENTION_MILLIS = 60_000;
+
+    private final OrderRepo orderRepo;
+    private final AssetSymbols assetSymbols;
+    private final boolean enabled;
+    private final long maxOrderNotional;
+    private final int maxOpenOrders;
+    private final long maxGrossExposure;
+    private final Counter notionalRejections;
+    private final Counter openOrderRejections;
+    private final Counter exposureRejections;
+
+    private final Map<Long, CustomerRisk> customers = new ConcurrentHashMap<>();
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+
+    public PreTradeRisk(
+            OrderRepo orderRepo,
+            AssetSymbols assetSymbols,
+            MeterRegistry meterRegistry,
+            @Value("${orders.risk.enabled:true}") boolean enabled,
+            @Value("${orders.risk.max-order-notional:1000000}") String maxOrderNotional,
+            @Value("${orders.risk.max-open-orders:1000}") int maxOpenOrders,
+            @Value("${orders.risk.max-gross-exposure:10000000}") String maxGrossExposure) {
+        this.orderRepo = orderRepo;
+        this.assetSymbols = assetSymbols;
+        this.enabled = enabled;
+        this.maxOrderNotional = FixedPoint.of(maxOrderNotional);
+        this.maxOpenOrders = maxOpenOrders;
+        this.maxGrossExposure = FixedPoint.of(maxGrossExposure);
+        this.notionalRejections = rejections(meterRegistry, "order-notional");
+        this.openOrderRejections = rejections(meterRegistry, "open-orders");
+        this.exposureRejections = rejections(meterRegistry, "gross-exposure");
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("orders.risk.rejections")
+                .description("Orders rejected by a pre-trade risk limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks a new order against the limits of its customer and
+     * reserves it until the current transaction completes.
+     * Without a transaction the limits are only checked.
+     */
+    public void reserve(Order order) throws RiskLimitExceededException {
+        if (!enabled) {
+            return;
+        }
+        long notional = FixedPoint.multiply(order.getPrice(), order.getSize());
+        if (notional > maxOrderNotional) {
+            notionalRejections.increment();
+            throw new RiskLimitExceededException();
+        }
+        if (OrderType.of(order).isImmediate()) {
+            return;
+        }
+
+        CustomerRisk risk = riskOf(order.getCustomerId());
+        if (!tryAdd(risk.openOrders, maxOpenOrders)) {
+            openOrderRejections.increment();
+            throw new RiskLimitExceededException();
+        }
+        // never registers a symbol for an unknown name,
+        // nothing is open on it yet.
+        OptionalInt symbolId = assetSymbols.find(order.getAssetName());
+        AtomicLong exposure = symbolId.isPresent() ? risk.exposure(symbolId.getAsInt()) : new AtomicLong();
+        if (!tryAdd(exposure, notional, maxGrossExposure)) {
+            risk.openOrders.decrementAndGet();
+            exposureRejections.increment();
+            throw new RiskLimitExceededException();
+        }
+
+        Runnable release = () -> {
+            risk.openOrders.decrementAndGet();
+            exposure.addAndGet(-notional);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // once committed, the row is counted already.
+                release.run();
+            }
+        });
+    }
+
+    /**
+     * Counts the open size of a changed order once the current
+     * transaction commits, nothing if it is rolled back.
+     */
+    public void onChange(Order order) {
+        if (!enabled) {
+            return;
+        }
+        long orderId = order.getId();
+        Position position = positionOf(order);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(orderId, position);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(orderId, position);
+            }
+        });
+    }
+
+    /**
+     * Counts the orders left pending by the previous run
+     * and by the journal replay.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (enabled) {
+            orderRepo.findByOrderStatus(OrderStatus.PENDING)
+                    .forEach(order -> apply(order.getId(), positionOf(order)));
+        }
+    }
+
+    @Scheduled(fixedDelay = CLOSED_RETENTION_MILLIS)
+    public void purgeClosed() {
+        long expiredBefore = System.currentTimeMillis() - CLOSED_RETENTION_MILLIS;
+        positions.values().removeIf(position -> !position.open() && position.closedAtMillis() < expiredBefore);
+    }
+
+    public int openOrders(long customerId) {
+        CustomerRisk risk = customers.get(customerId);
+        return risk == null ? 0 : risk.openOrders.get();
+    }
+
+    public long grossExposure(long customerId, String assetName) {
+        CustomerRisk risk = customers.get(customerId);
+        OptionalInt symbolId = assetSymbols.find(assetName);
+        if (risk == null || symbolId.isEmpty()) {
+            return 0;
+        }
+        AtomicLong exposure = risk.exposures.get(symbolId.getAsInt());
+        return exposure == null ? 0 : exposure.get();
+    }
+
+    private Position positionOf(Order order) {
+        boolean open = OrderStatus.PENDING.equals(order.getOrderStatus());
+        return new Position(
+                order.getCustomerId(),
+                assetSymbols.idOf(order.getAssetName()),
+                open,
+                open ? FixedPoint.multiply(order.getPrice(), order.remainingSize()) : 0,
+                order.getVersion(),
+                open ? 0 : System.currentTimeMillis());
+    }
+
+    private void apply(long orderId, Position position) {
+        positions.compute(orderId, (id, counted) -> {
+            if (counted != null && counted.version() >= position.version()) {
+                return counted;
+            }
+            CustomerRisk risk = riskOf(position.customerId());
+            if (counted != null) {
+                if (counted.open()) {
+                    risk.openOrders.decrementAndGet();
+                }
+                risk.exposure(counted.symbolId()).addAndGet(-counted.notional());
+            }
+            if (position.open()) {
+                risk.openOrders.incrementAndGet();
+            }
+            risk.exposure(position.symbolId()).addAndGet(position.notional());
+            return position;
+        });
+    }
+
+    private CustomerRisk riskOf(long customerId) {
+        CustomerRisk risk = customers.get(customerId);
+        return risk != null
+                ? risk
+                : customers.computeIfAbsent(customerId, id -> new CustomerRisk());
+    }
+
+    private static boolean tryAdd(AtomicInteger counter, int limit) {
+        int current;
+        do {
+            current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private static boolean tryAdd(AtomicLong counter, long amount, long limit) {
+        long current;
+        do {
+            current = counter.get();
+            if (current + amount > limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + amount));
+        return true;
+    }
+}
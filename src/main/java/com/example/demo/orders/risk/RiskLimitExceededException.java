@@ -0,0 +1,11 @@
+package com.example.demo.orders.risk;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(
+        value = HttpStatus.BAD_REQUEST,
+        code = HttpStatus.BAD_REQUEST,
+        reason = "Pre-Trade Risk Limit Exceeded")
+public class RiskLimitExceededException extends Exception {
+}
@@ -0,0 +1,72 @@
+package com.example.demo.orders.service;
+
+import com.example.demo.orders.model.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded LRU of recently created orders by client order id,
+ * the fast path of order entry deduplication: a retried order
+ * is answered from memory, without a lock or a query.
+ * <p>
+ * Misses are not authoritative, the unique index on
+ * (customerId, clientOrderId) of the orders table is.
+ * Capacity is configured with orders.client-order-id.cache-size.
+ */
+@Component
+public class ClientOrderIdCache {
+
+    private record Key(long customerId, String clientOrderId) {
+    }
+
+    private final Map<Key, Order> recentOrders;
+
+    public ClientOrderIdCache(@Value("${orders.client-order-id.cache-size:10000}") int capacity) {
+        // access ordered, the least recently used id is evicted.
+        this.recentOrders = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Order> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Optional<Order> find(long customerId, String clientOrderId) {
+        synchronized (recentOrders) {
+            return Optional.ofNullable(recentOrders.get(new Key(customerId, clientOrderId)));
+        }
+    }
+
+    /**
+     * Remembers an order once its transaction commits, so that
+     * a rolled back order is never answered from the cache.
+     */
+    public void remember(Order order) {
+        if (order.getClientOrderId() == null) {
+            return;
+        }
+        Key key = new Key(order.getCustomerId(), order.getClientOrderId());
+        Runnable put = () -> {
+            synchronized (recentOrders) {
+                recentOrders.put(key, order);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            put.run();
+                        }
+                    });
+        } else {
+            put.run();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.orders.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(
+        value = HttpStatus.BAD_REQUEST,
+        code = HttpStatus.BAD_REQUEST,
+        reason = "Order Search Needs A customerId, status, asset Or Date Range")
+public class InvalidOrderSearchException extends Exception {
+}
@@ -3,6 +3,7 @@ package com.example.demo.orders.service;
 import com.example.demo.orders.model.Order;
 import com.example.demo.orders.model.OrderDto;
 import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -17,6 +18,8 @@ public class OrderMapper {
                 .size(dto.size())
                 .price(dto.price())
                 .orderStatus(OrderStatus.PENDING)
+                .orderType(dto.orderType() == null ? OrderType.LIMIT : dto.orderType())
+                .clientOrderId(dto.clientOrderId())
                 .createDate(new Date(System.currentTimeMillis()))
                 .build();
     }
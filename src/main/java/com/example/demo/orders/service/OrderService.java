@@ -2,103 +2,377 @@ package com.example.demo.orders.service;
 
 import com.example.demo.assets.*;
 import com.example.demo.assets.model.Asset;
+import com.example.demo.assets.model.AssetBalance;
 import com.example.demo.assets.model.AssetNames;
 import com.example.demo.assets.service.AssetNotFoundException;
+import com.example.demo.assets.service.AssetSymbols;
+import com.example.demo.assets.service.BalanceCache;
 import com.example.demo.assets.service.MissingAssetException;
 import com.example.demo.assets.service.NotEnoughAssetException;
 import com.example.demo.assets.service.NotEnoughMoneyException;
 import com.example.demo.customers.service.CustomerNotFoundException;
+import com.example.demo.orders.ArchivedOrderRepo;
+import com.example.demo.orders.ExecutionRepo;
 import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.matching.MarketDepth;
+import com.example.demo.orders.matching.MatchingEngine;
+import com.example.demo.orders.model.ArchivedOrder;
+import com.example.demo.orders.model.BulkOrderResult;
+import com.example.demo.orders.model.Execution;
 import com.example.demo.orders.model.Order;
 import com.example.demo.orders.model.OrderDto;
+import com.example.demo.orders.model.OrderSearch;
 import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.orders.model.OrderView;
+import com.example.demo.orders.model.RejectedOrder;
+import com.example.demo.orders.risk.PreTradeRisk;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.orders.risk.RiskLimitExceededException;
+import com.example.demo.sharding.CustomerSharded;
+import com.example.demo.sharding.OptimisticRetry;
+import com.example.demo.utils.FixedPoint;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
+@Log
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
     private final OrderRepo orderRepo;
+    private final ArchivedOrderRepo archivedOrderRepo;
     private final AssetRepo assetRepo;
+    private final ExecutionRepo executionRepo;
     private final OrderMapper orderMapper;
+    private final MatchingEngine matchingEngine;
+    private final ClientOrderIdCache clientOrderIds;
+    private final BalanceCache balanceCache;
+    private final PreTradeRisk preTradeRisk;
+    private final AssetSymbols assetSymbols;
 
+    @CustomerSharded
     @Transactional
-    public Order createOrder(long customerId, OrderDto dto) throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException {
+    public Order createOrder(long customerId, OrderDto dto) throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException, RiskLimitExceededException {
         Order order = orderMapper.toOrder(dto);
         order.setCustomerId(customerId);
         return createOrder(order);
     }
 
+    // Not transactional on purpose: MARKET, IOC and FOK
+    // orders are executed and written by the writer thread
+    // of their book, the request thread shall not hold a
+    // database connection while waiting for the outcome.
+    @CustomerSharded
+    public Order executeImmediately(long customerId, OrderDto dto) throws AssetNotFoundException, NotEnoughMoneyException, NotEnoughAssetException, RiskLimitExceededException {
+        Order order = orderMapper.toOrder(dto);
+        order.setCustomerId(customerId);
+        // No lock is taken on this path, a concurrent retry
+        // is stopped by the unique index of clientOrderId.
+        Optional<Order> original = findRecent(order).or(() -> findOriginal(order));
+        if (original.isPresent()) {
+            return original.get();
+        }
+        preTradeRisk.reserve(order);
+        Order executedOrder = matchingEngine.executeImmediately(order);
+        clientOrderIds.remember(executedOrder);
+        return executedOrder;
+    }
+
+    // LIMIT orders only. MARKET, IOC and FOK orders are dispatched
+    // to executeImmediately(long, OrderDto) before any transaction
+    // is opened: here they would hold a transaction and a database
+    // connection while waiting for the writer thread of their book.
     @Transactional
-    public Order createOrder(Order order) throws NotEnoughMoneyException, AssetNotFoundException, NotEnoughAssetException {
-        return switch (order.getOrderSide()) {
+    public Order createOrder(Order order) throws NotEnoughMoneyException, AssetNotFoundException, NotEnoughAssetException, RiskLimitExceededException {
+        if (OrderType.of(order).isImmediate()) {
+            throw new IllegalArgumentException(
+                    OrderType.of(order) + " orders are executed by executeImmediately, not created");
+        }
+
+        // Retried order answered from memory,
+        // no lock taken and nothing reserved again.
+        Optional<Order> recentOrder = findRecent(order);
+        if (recentOrder.isPresent()) {
+            return recentOrder.get();
+        }
+
+        // Limits checked from memory before any row is
+        // locked, held until this transaction completes.
+        preTradeRisk.reserve(order);
+
+        Order createdOrder = switch (order.getOrderSide()) {
             case BUY -> processBuyOrder(order);
             case SELL -> processSellOrder(order);
         };
+        if (createdOrder != order) {
+            // client order id was already used,
+            // the original order is returned.
+            return createdOrder;
+        }
+        clientOrderIds.remember(createdOrder);
 
+        // Cross against resting orders of other
+        // customers once the order is committed.
+        matchingEngine.submit(createdOrder);
+        return createdOrder;
     }
 
-    private Order processBuyOrder(Order order) throws NotEnoughMoneyException, AssetNotFoundException {
-        // Get and Lock TRY Asset of the Customer
-        // We do not want conflicting updates such
-        // as lost updates.
-        Asset tryAsset = assetRepo.findByCustomerIdAndAssetName(
-                order.getCustomerId(),
-                AssetNames.TRY.name()
-        ).orElseThrow(AssetNotFoundException::new);
+    // Fast path of deduplication: bounded
+    // in-memory LRU, no lock and no query.
+    private Optional<Order> findRecent(Order order) {
+        if (order.getClientOrderId() == null) {
+            return Optional.empty();
+        }
+        return clientOrderIds.find(order.getCustomerId(), order.getClientOrderId());
+    }
+
+    // Authoritative check against the unique index. Called
+    // before anything is reserved, a concurrent retry which
+    // passed it as well is stopped by the index on insert.
+    private Optional<Order> findOriginal(Order order) {
+        if (order.getClientOrderId() == null) {
+            return Optional.empty();
+        }
+        Optional<Order> original = orderRepo.findByCustomerIdAndClientOrderId(
+                        order.getCustomerId(), order.getClientOrderId())
+                .or(() -> archivedOrderRepo.findByCustomerIdAndClientOrderId(
+                        order.getCustomerId(), order.getClientOrderId()).map(ArchivedOrder::toOrder));
+        original.ifPresent(clientOrderIds::remember);
+        return original;
+    }
+
+    /**
+     * Creates a basket of orders of one customer in a single
+     * transaction. TRY and the assets to sell are locked once,
+     * all balance checks run in memory in request order and the
+     * accepted orders are inserted with one saveAll, in JDBC
+     * batches. An order which cannot be reserved is rejected on
+     * its own, the rest of the basket is still accepted.
+     */
+    @CustomerSharded
+    @Transactional(rollbackOn = Exception.class)
+    public BulkOrderResult createOrders(long customerId, List<OrderDto> dtos) {
+        List<Order> orders = new ArrayList<>(dtos.size());
+        Set<String> assetNames = new TreeSet<>();
+        assetNames.add(AssetNames.TRY.name());
+        for (OrderDto dto : dtos) {
+            Order order = orderMapper.toOrder(dto);
+            order.setCustomerId(customerId);
+            orders.add(order);
+            assetNames.add(order.getAssetName());
+        }
+
+        // ONE LOCK PER ROW, ascending asset id.
+        Map<String, Asset> assets = new HashMap<>();
+        (OptimisticRetry.isActive()
+                ? assetRepo.findAllByCustomerIdAndAssetNamesOptimistic(customerId, assetNames)
+                : assetRepo.findAllByCustomerIdAndAssetNamesForUpdate(customerId, assetNames))
+                .forEach(asset -> assets.put(asset.getAssetName(), asset));
+        Asset tryAsset = assets.get(AssetNames.TRY.name());
+
+        // Originals of repeated client order ids,
+        // looked up under the locks with one query.
+        Map<String, Order> originals = new HashMap<>();
+        Set<String> basketClientOrderIds = new HashSet<>();
+        orders.stream()
+                .map(Order::getClientOrderId)
+                .filter(Objects::nonNull)
+                .forEach(basketClientOrderIds::add);
+        if (!basketClientOrderIds.isEmpty()) {
+            orderRepo.findByCustomerIdAndClientOrderIdIn(customerId, basketClientOrderIds)
+                    .forEach(original -> originals.put(original.getClientOrderId(), original));
+            if (originals.size() < basketClientOrderIds.size()) {
+                archivedOrderRepo.findByCustomerIdAndClientOrderIdIn(customerId, basketClientOrderIds).stream()
+                        .map(ArchivedOrder::toOrder)
+                        .forEach(original -> originals.putIfAbsent(original.getClientOrderId(), original));
+            }
+        }
 
-        double cost = order.getSize() * order.getPrice();
-        // if the amount of money is enough,
-        // then record the order and decrease
-        // usable amount.
-        if (tryAsset.getUsableSize() >= cost) {
-            tryAsset.setUsableSize(tryAsset.getUsableSize() - cost);
-            assetRepo.save(tryAsset);
-            // defensive coding, ensure order is pending..
+        List<Order> accepted = new ArrayList<>();
+        List<Order> repeated = new ArrayList<>();
+        List<RejectedOrder> rejected = new ArrayList<>();
+        Set<String> seenClientOrderIds = new HashSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String clientOrderId = order.getClientOrderId();
+            if (clientOrderId != null) {
+                if (!seenClientOrderIds.add(clientOrderId)) {
+                    rejected.add(new RejectedOrder(i, dtos.get(i), "Duplicate clientOrderId"));
+                    continue;
+                }
+                if (originals.containsKey(clientOrderId)) {
+                    repeated.add(originals.get(clientOrderId));
+                    continue;
+                }
+            }
+            // Funds first: the risk reservation is held until
+            // commit, an order rejected for funds shall not
+            // count against the later orders of the basket.
+            Asset asset = assets.get(order.getAssetName());
+            String reason = reserveInMemory(order, tryAsset, asset);
+            if (reason != null) {
+                rejected.add(new RejectedOrder(i, dtos.get(i), reason));
+                continue;
+            }
+            try {
+                preTradeRisk.reserve(order);
+            } catch (RiskLimitExceededException e) {
+                releaseInMemory(order, tryAsset, asset);
+                rejected.add(new RejectedOrder(i, dtos.get(i), "Pre-Trade Risk Limit Exceeded"));
+                continue;
+            }
             order.setOrderStatus(OrderStatus.PENDING);
-            return orderRepo.save(order);
-        } else {
+            accepted.add(order);
+        }
+
+        List<Order> createdOrders = new ArrayList<>();
+        if (!accepted.isEmpty()) {
+            assetRepo.saveAll(assets.values());
+            createdOrders.addAll(orderRepo.saveAll(accepted));
+            createdOrders.forEach(clientOrderIds::remember);
+            // Cross against resting orders once committed.
+            createdOrders.forEach(matchingEngine::submit);
+        }
+        createdOrders.addAll(repeated);
+        return new BulkOrderResult(createdOrders, rejected);
+    }
+
+    // Same checks as processBuyOrder and processSellOrder on
+    // the locked rows, returns the reject reason or null.
+    private static String reserveInMemory(Order order, Asset tryAsset, Asset asset) {
+        if (OrderType.of(order).isImmediate()) {
+            // would wait for the book while holding the locks.
+            return "MARKET, IOC and FOK orders are not accepted in bulk";
+        }
+        switch (order.getOrderSide()) {
+            case BUY -> {
+                if (tryAsset == null) {
+                    return "Asset Not Found";
+                }
+                long cost = FixedPoint.multiply(order.getPrice(), order.getSize());
+                if (tryAsset.getUsableSize() < cost) {
+                    return "Not Enough usableSize(TRY)";
+                }
+                tryAsset.setUsableSize(FixedPoint.subtract(tryAsset.getUsableSize(), cost));
+            }
+            case SELL -> {
+                if (asset == null) {
+                    return "Asset Not Found";
+                }
+                long size = FixedPoint.of(order.getSize());
+                if (asset.getUsableSize() < size) {
+                    return "Not Enough usableSize(ASSET)";
+                }
+                asset.setUsableSize(FixedPoint.subtract(asset.getUsableSize(), size));
+            }
+        }
+        return null;
+    }
+
+    // Gives back what reserveInMemory took for an accepted order.
+    private static void releaseInMemory(Order order, Asset tryAsset, Asset asset) {
+        switch (order.getOrderSide()) {
+            case BUY -> tryAsset.setUsableSize(FixedPoint.add(tryAsset.getUsableSize(),
+                    FixedPoint.multiply(order.getPrice(), order.getSize())));
+            case SELL -> asset.setUsableSize(FixedPoint.add(asset.getUsableSize(),
+                    FixedPoint.of(order.getSize())));
+        }
+    }
+
+    private Order processBuyOrder(Order order) throws NotEnoughMoneyException, AssetNotFoundException {
+        Optional<Order> original = findOriginal(order);
+        if (original.isPresent()) {
+            return original.get();
+        }
+
+        long cost = FixedPoint.multiply(order.getPrice(), order.getSize());
+        // Check and decrease usable amount of TRY in one
+        // guarded UPDATE, which also locks the TRY asset
+        // of the customer until commit. No lost updates.
+        if (assetRepo.reserve(order.getCustomerId(), AssetNames.TRY.name(), cost) == 0) {
+            requireAsset(order.getCustomerId(), AssetNames.TRY.name());
             // If TRY asset does not have enough money
             // then throw an exception.
             throw new NotEnoughMoneyException();
         }
+        // defensive coding, ensure order is pending..
+        order.setOrderStatus(OrderStatus.PENDING);
+        return orderRepo.save(order);
     }
 
     private Order processSellOrder(Order order) throws AssetNotFoundException, NotEnoughAssetException {
-        // Find and Lock the corresponding asset to SELL.
-        Asset asset = assetRepo.findByCustomerIdAndAssetName(
-                order.getCustomerId(),
-                order.getAssetName()
-        ).orElseThrow(AssetNotFoundException::new);
+        Optional<Order> original = findOriginal(order);
+        if (original.isPresent()) {
+            return original.get();
+        }
 
-        // Check if the amount of the asset is enough
-        if (asset.getUsableSize() >= order.getSize()) {
-            // Decrease the number of usable assets & Update
-            asset.setUsableSize(asset.getUsableSize() - order.getSize());
-            assetRepo.save(asset);
-            // Defensive code, order status shall
-            // be pending while creating..
-            order.setOrderStatus(OrderStatus.PENDING);
-            // Create the order.
-            return orderRepo.save(order);
-        } else {
+        // Check and decrease the number of usable
+        // assets to SELL in one guarded UPDATE.
+        if (assetRepo.reserve(order.getCustomerId(), order.getAssetName(), FixedPoint.of(order.getSize())) == 0) {
+            requireAsset(order.getCustomerId(), order.getAssetName());
             throw new NotEnoughAssetException();
         }
+        // Defensive code, order status shall
+        // be pending while creating..
+        order.setOrderStatus(OrderStatus.PENDING);
+        // Create the order.
+        return orderRepo.save(order);
     }
 
-    @Transactional
-    public List<Order> findAllBetween(Long customerId, Date startDate, Date endDate) {
-        return orderRepo.findByCustomerIdAndCreateDateGreaterThanAndCreateDateLessThan(
-                customerId, startDate, endDate
-        );
+    // Only asked once a guarded update changed no row:
+    // either the asset is missing or it is not enough.
+    // The balance read is cached, the next order which
+    // lacks it is rejected by the PreTradeCheck.
+    private void requireAsset(long customerId, String assetName) throws AssetNotFoundException {
+        AssetBalance balance = assetRepo.findBalance(customerId, assetName)
+                .orElseThrow(AssetNotFoundException::new);
+        balanceCache.onRead(customerId, assetName, balance);
     }
 
+    // Keyset on (createDate, id), the first
+    // page continues right after startDate.
+    // Both tables are read with the same keyset and
+    // limit, the page is the head of the two merged.
+    public KeysetPage<OrderView> findAllBetween(Long customerId, Date startDate, Date endDate,
+                                                PageCursor after, int pageSize) {
+        Date afterDate = after.createDate() != null ? after.createDate() : startDate;
+        // Live table first: an order archived in between
+        // is then read twice, never missed.
+        List<OrderView> live = orderRepo.findPageBetween(customerId, startDate, endDate,
+                afterDate, after.id(), Limit.of(pageSize + 1));
+        List<OrderView> archived = archivedOrderRepo.findPageBetween(customerId, startDate, endDate,
+                afterDate, after.id(), Limit.of(pageSize + 1));
+        return KeysetPage.of(
+                merge(live, archived),
+                pageSize,
+                order -> PageCursor.after(order.createDate(), order.id()));
+    }
+
+    // Rows of both tables in keyset order,
+    // an order read from both counted once.
+    private static List<OrderView> merge(List<OrderView> live, List<OrderView> archived) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<Long, OrderView> orders = new HashMap<>();
+        archived.forEach(order -> orders.put(order.id(), order));
+        live.forEach(order -> orders.put(order.id(), order));
+        List<OrderView> merged = new ArrayList<>(orders.values());
+        merged.sort(Comparator.comparing(OrderView::createDate).thenComparingLong(OrderView::id));
+        return merged;
+    }
+
+    @CustomerSharded
     @Transactional
     public Order cancelOrder(
             long orderId,
@@ -108,7 +382,9 @@ public class OrderService {
         // Find & Lock the Order - We do not want the order
         // to be processed by any other party for instance
         // to execute the order.
-        Order order = orderRepo.findByIdForUpdate(orderId)
+        Order order = (OptimisticRetry.isActive()
+                ? orderRepo.findByIdOptimistic(orderId)
+                : orderRepo.findByIdForUpdate(orderId))
                 .orElseThrow(OrderNotFoundException::new);
 
         if(order.getCustomerId() != customerId) {
@@ -122,22 +398,22 @@ public class OrderService {
             throw new OrderStatusIsNotValidException();
         }
 
-        return switch (order.getOrderSide()) {
+        Order cancelledOrder = switch (order.getOrderSide()) {
             case BUY -> processCancelBuyOrder(order);
             case SELL -> processCancelSellOrder(order);
         };
+
+        // Order shall not rest in the book anymore.
+        matchingEngine.remove(cancelledOrder);
+        return cancelledOrder;
     }
 
     private Order processCancelSellOrder(Order order) throws AssetNotFoundException {
-        // If Sell, find the ASSET of user to SELL
-        Asset asset = assetRepo.findByCustomerIdAndAssetName(
-                order.getCustomerId(),
-                order.getAssetName()
-        ).orElseThrow(AssetNotFoundException::new);
-
-        // Increment the usableSize of the ASSET
-        asset.setUsableSize(asset.getUsableSize() + order.getSize());
-        assetRepo.save(asset);
+        // If Sell, increment the usableSize of the ASSET,
+        // filled part of the order is already sold.
+        if (assetRepo.release(order.getCustomerId(), order.getAssetName(), FixedPoint.of(order.remainingSize())) == 0) {
+            throw new AssetNotFoundException();
+        }
 
         // Mark the order as CANCELLED.
         order.setOrderStatus(OrderStatus.CANCELLED);
@@ -147,17 +423,13 @@ public class OrderService {
     }
 
     private Order processCancelBuyOrder(Order order) throws AssetNotFoundException {
-        // If Buy, lock user-TRY asset & update accordingly
-        Asset tryAsset = assetRepo.findByCustomerIdAndAssetName(
-                order.getCustomerId(),
-                AssetNames.TRY.name()
-        ).orElseThrow(AssetNotFoundException::new);
-
         // If Buy, increment usableSize of TRY asset
-        double cost = order.getPrice() * order.getSize();
+        // by the reservation of the unfilled part.
+        long cost = FixedPoint.multiply(order.getPrice(), order.remainingSize());
 
-        tryAsset.setUsableSize(tryAsset.getUsableSize() + cost);
-        assetRepo.save(tryAsset);
+        if (assetRepo.release(order.getCustomerId(), AssetNames.TRY.name(), cost) == 0) {
+            throw new AssetNotFoundException();
+        }
 
         // Mark the order as CANCELLED.
         order.setOrderStatus(OrderStatus.CANCELLED);
@@ -165,12 +437,40 @@ public class OrderService {
         return orderRepo.save(order);
     }
 
-    public List<Order> findAll() {
-        return orderRepo.findAll();
+    // Fills of an order, oldest first.
+    public List<Execution> findExecutions(long customerId, long orderId) {
+        return executionRepo.findByCustomerIdAndOrderIdOrderByIdAsc(customerId, orderId);
+    }
+
+    public MarketDepth getDepth(String assetName, int maxLevels) {
+        return matchingEngine.depth(assetName, maxLevels);
     }
 
-    public Optional<Order> findOrder(Long customerId, Long orderId) {
-        return orderRepo.findById(orderId);
+    public KeysetPage<OrderView> search(OrderSearch search, PageCursor after, int pageSize) throws InvalidOrderSearchException {
+        if (!search.isIndexed()) {
+            throw new InvalidOrderSearchException();
+        }
+        // never registers a symbol for an unknown name
+        if (search.assetName() != null && assetSymbols.find(search.assetName()).isEmpty()) {
+            return new KeysetPage<>(List.of(), null);
+        }
+        return KeysetPage.of(
+                orderRepo.search(search, after, pageSize + 1),
+                pageSize,
+                order -> PageCursor.after(order.createDate(), order.id()));
+    }
+
+    public KeysetPage<OrderView> findAll(PageCursor after, int pageSize) {
+        return KeysetPage.of(
+                orderRepo.findViewsByIdGreaterThan(after.id(), Limit.of(pageSize + 1)),
+                pageSize,
+                order -> PageCursor.afterId(order.id()));
+    }
+
+    // Live table first, then the archive.
+    public Optional<OrderView> findOrder(Long customerId, Long orderId) {
+        return orderRepo.findViewById(orderId)
+                .or(() -> archivedOrderRepo.findViewById(orderId));
     }
 
     @Transactional
@@ -189,10 +489,146 @@ public class OrderService {
         Order order = orderRepo.findByIdForUpdate(orderId).orElseThrow(
                 OrderNotFoundException::new);
 
-        return switch (order.getOrderSide()) {
+        Order matchedOrder = switch (order.getOrderSide()) {
             case BUY -> processMatchBuyOrder(order);
             case SELL -> processMatchSellOrder(order);
         };
+
+        // Order shall not rest in the book anymore.
+        matchingEngine.remove(matchedOrder);
+        return matchedOrder;
+    }
+
+    @Transactional(rollbackOn = Exception.class)
+    public List<Order> matchOrders(Collection<Long> orderIds) throws OrderNotFoundException,
+            OrderStatusIsNotValidException,
+            AssetNotFoundException {
+        SortedSet<Long> ids = new TreeSet<>(orderIds);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // ORDER OF LOCKS:
+        // 1. ALL ORDERS, ascending order id
+        // 2. FOR EACH CUSTOMER, ascending customer id:
+        //    TRY ASSET first, then the ASSETS TO
+        //    BUY/SELL, ascending asset id
+        // Every row is locked once for the whole
+        // batch, always in the same order as the
+        // settlements of the matching engine, so
+        // neither can deadlock with the other.
+        List<Order> orders = orderRepo.findAllByIdForUpdate(ids);
+        if (orders.size() != ids.size()) {
+            throw new OrderNotFoundException();
+        }
+        for (Order order : orders) {
+            if (!OrderStatus.PENDING.equals(order.getOrderStatus())) {
+                throw new OrderStatusIsNotValidException();
+            }
+        }
+
+        return settleLockedOrders(orders, Order::remainingSize, Order::getPrice);
+    }
+
+    /**
+     * Fills already locked PENDING orders by the given sizes at the
+     * given execution prices, assets are locked and updated once per
+     * customer. BUY orders get back the difference between their
+     * reserved limit price and the execution price. Every fill is
+     * appended to the executions table in one batch.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public List<Order> settleLockedOrders(
+            List<Order> orders,
+            ToIntFunction<Order> executedSize,
+            ToLongFunction<Order> executionPrice) throws AssetNotFoundException {
+        Map<Long, List<Order>> ordersByCustomer = orders.stream()
+                .collect(Collectors.groupingBy(
+                        Order::getCustomerId, TreeMap::new, Collectors.toList()));
+
+        List<Asset> updatedAssets = new ArrayList<>();
+        for (Map.Entry<Long, List<Order>> customerOrders : ordersByCustomer.entrySet()) {
+            updatedAssets.addAll(matchOrdersOfCustomer(
+                    customerOrders.getKey(), customerOrders.getValue(), executedSize, executionPrice));
+        }
+        assetRepo.saveAll(updatedAssets);
+
+        // Orders are filled only after all the bookkeeping,
+        // executed sizes may be read from their open sizes.
+        List<Execution> executions = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            int size = executedSize.applyAsInt(order);
+            executions.add(Execution.of(order, size, executionPrice.applyAsLong(order)));
+            order.fill(size);
+        }
+        List<Order> matchedOrders = orderRepo.saveAll(orders);
+        executionRepo.saveAll(executions);
+
+        for (Order order : matchedOrders) {
+            if (OrderStatus.MATCHED.equals(order.getOrderStatus())) {
+                // Order shall not rest in the book anymore.
+                matchingEngine.remove(order);
+            } else {
+                matchingEngine.update(order);
+            }
+        }
+        return matchedOrders;
+    }
+
+    private Collection<Asset> matchOrdersOfCustomer(
+            long customerId,
+            List<Order> orders,
+            ToIntFunction<Order> executedSize,
+            ToLongFunction<Order> executionPrice) throws AssetNotFoundException {
+        // TRY is locked alone and first, the batch lock of the
+        // traded assets orders by id and could take another
+        // asset before it. TradeSettlementService and the single
+        // order workflows lock TRY first too, so a batch match
+        // cannot deadlock with them, see matchOrders.
+        Asset tryAsset = assetRepo.lockTry(customerId)
+                .orElseThrow(AssetNotFoundException::new);
+
+        Set<String> assetNames = new TreeSet<>();
+        orders.forEach(order -> assetNames.add(order.getAssetName()));
+        Map<String, Asset> assets = new HashMap<>();
+        assets.put(AssetNames.TRY.name(), tryAsset);
+        assetRepo.findAllByCustomerIdAndAssetNamesForUpdate(customerId, assetNames)
+                .forEach(asset -> assets.put(asset.getAssetName(), asset));
+
+        // Same bookkeeping as processMatchBuyOrder and
+        // processMatchSellOrder, on the locked rows.
+        for (Order order : orders) {
+            int size = executedSize.applyAsInt(order);
+            long quantity = FixedPoint.of(size);
+            long cost = FixedPoint.multiply(executionPrice.applyAsLong(order), size);
+            switch (order.getOrderSide()) {
+                case BUY -> {
+                    long reserved = FixedPoint.multiply(order.getPrice(), size);
+                    tryAsset.setSize(FixedPoint.subtract(tryAsset.getSize(), cost));
+                    tryAsset.setUsableSize(FixedPoint.add(tryAsset.getUsableSize(), reserved - cost));
+                    Asset assetToBuy = assets.computeIfAbsent(
+                            order.getAssetName(),
+                            assetName -> Asset.builder()
+                                    .assetName(assetName)
+                                    .customerId(customerId)
+                                    .build());
+                    assetToBuy.setSize(FixedPoint.add(assetToBuy.getSize(), quantity));
+                    assetToBuy.setUsableSize(FixedPoint.add(assetToBuy.getUsableSize(), quantity));
+                }
+                case SELL -> {
+                    tryAsset.setSize(FixedPoint.add(tryAsset.getSize(), cost));
+                    tryAsset.setUsableSize(FixedPoint.add(tryAsset.getUsableSize(), cost));
+                    Asset assetToSell = assets.get(order.getAssetName());
+                    if (assetToSell == null) {
+                        log.severe("Inconsistent state is detected. Asset not exists for which"
+                                + " a pending SELL order is present, order: " + order);
+                        throw new MissingAssetException();
+                    }
+                    assetToSell.setSize(FixedPoint.subtract(assetToSell.getSize(), quantity));
+                }
+            }
+        }
+        return assets.values();
     }
 
     private Order processMatchBuyOrder(Order order) throws AssetNotFoundException {
@@ -204,27 +640,34 @@ public class OrderService {
                 AssetNames.TRY.name()
         ).orElseThrow(AssetNotFoundException::new);
 
-        // update TRY asset to reflect BUY operation
-        double cost = order.getSize() * order.getPrice();
-        tryAsset.setSize(tryAsset.getSize() - cost);
+        // update TRY asset to reflect BUY operation,
+        // only the part which is still open executes.
+        int size = order.remainingSize();
+        long cost = FixedPoint.multiply(order.getPrice(), size);
+        tryAsset.setSize(FixedPoint.subtract(tryAsset.getSize(), cost));
         assetRepo.save(tryAsset);
 
         // UPDATE or CREATE ASSET to BUY
-        updateOrCreateAssetToBuy(order);
+        updateOrCreateAssetToBuy(order, size);
 
-        order.setOrderStatus(OrderStatus.MATCHED);
+        return fillAndRecord(order, size);
+    }
+
+    private Order fillAndRecord(Order order, int size) {
+        executionRepo.save(Execution.of(order, size, order.getPrice()));
+        order.fill(size);
         return orderRepo.save(order);
     }
 
-    private void updateOrCreateAssetToBuy(Order order) {
+    private void updateOrCreateAssetToBuy(Order order, int size) {
         Optional<Asset> optAssetToBuy = assetRepo.findByCustomerIdAndAssetName(
                 order.getCustomerId(), order.getAssetName()
         );
         if(optAssetToBuy.isPresent()) {
             // Update Size & Usable Size of the Asset
             Asset assetToBuy = optAssetToBuy.get();
-            assetToBuy.setSize(assetToBuy.getSize() + order.getSize());
-            assetToBuy.setUsableSize(assetToBuy.getUsableSize() + order.getSize());
+            assetToBuy.setSize(FixedPoint.add(assetToBuy.getSize(), FixedPoint.of(size)));
+            assetToBuy.setUsableSize(FixedPoint.add(assetToBuy.getUsableSize(), FixedPoint.of(size)));
             assetRepo.save(assetToBuy);
         } else {
             // We have unique constraint for customerId, assetName
@@ -234,8 +677,8 @@ public class OrderService {
             // Create a new Asset
             Asset newAsset = Asset.builder()
                     .assetName(order.getAssetName())
-                    .size(order.getSize())
-                    .usableSize(order.getSize())
+                    .size(FixedPoint.of(size))
+                    .usableSize(FixedPoint.of(size))
                     .customerId(order.getCustomerId())
                     .build();
             assetRepo.save(newAsset);
@@ -251,20 +694,21 @@ public class OrderService {
                 AssetNames.TRY.name()
         ).orElseThrow(AssetNotFoundException::new);
 
-        // update TRY asset to reflect SELL operation
-        double cost = order.getSize() * order.getPrice();
-        tryAsset.setSize(tryAsset.getSize() + cost);
-        tryAsset.setUsableSize(tryAsset.getUsableSize() + cost);
+        // update TRY asset to reflect SELL operation,
+        // only the part which is still open executes.
+        int size = order.remainingSize();
+        long cost = FixedPoint.multiply(order.getPrice(), size);
+        tryAsset.setSize(FixedPoint.add(tryAsset.getSize(), cost));
+        tryAsset.setUsableSize(FixedPoint.add(tryAsset.getUsableSize(), cost));
         assetRepo.save(tryAsset);
 
         // UPDATE ASSET TO SELL
-        updateAssetToSell(order);
+        updateAssetToSell(order, size);
 
-        order.setOrderStatus(OrderStatus.MATCHED);
-        return orderRepo.save(order);
+        return fillAndRecord(order, size);
     }
 
-    private void updateAssetToSell(Order order) throws AssetNotFoundException {
+    private void updateAssetToSell(Order order, int size) throws AssetNotFoundException {
         Optional<Asset> optAssetToSell = assetRepo.findByCustomerIdAndAssetName(
                 order.getCustomerId(), order.getAssetName()
         );
@@ -272,13 +716,12 @@ public class OrderService {
             // Update Size & Usable Size of the
             // Asset to reflect SELL operation
             Asset assetToSell = optAssetToSell.get();
-            assetToSell.setSize(assetToSell.getSize() - order.getSize());
+            assetToSell.setSize(FixedPoint.subtract(assetToSell.getSize(), FixedPoint.of(size)));
             assetRepo.save(assetToSell);
         } else {
             // Inconsistent state detected.
-            System.err.println("Inconsistent state is detected.");
-            System.err.println("Asset not exists for which a pending SELL order is present.");
-            System.err.println("Details of the related order: "+ order);
+            log.severe("Inconsistent state is detected. Asset not exists for which"
+                    + " a pending SELL order is present, order: " + order);
             throw new MissingAssetException();
         }
     }
@@ -0,0 +1,44 @@
+package com.example.demo.orders.service;
+
+import com.example.demo.assets.model.AssetNames;
+import com.example.demo.assets.service.BalanceCache;
+import com.example.demo.assets.service.NotEnoughAssetException;
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import com.example.demo.orders.model.OrderDto;
+import com.example.demo.utils.FixedPoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks run in front of {@link OrderService#createOrder(long, OrderDto)},
+ * before a transaction is opened or the order is routed to a shard.
+ * They only reject, with the same exception the service would throw;
+ * an order which passes is still checked by the service.
+ */
+@Component
+@RequiredArgsConstructor
+public class PreTradeCheck {
+
+    private final BalanceCache balanceCache;
+
+    public void check(long customerId, OrderDto dto) throws NotEnoughMoneyException, NotEnoughAssetException {
+        // A retried clientOrderId is answered with its original
+        // order, which only the service can look up.
+        if (dto.clientOrderId() != null || dto.orderSide() == null) {
+            return;
+        }
+        switch (dto.orderSide()) {
+            case BUY -> {
+                long cost = FixedPoint.multiply(dto.price(), dto.size());
+                if (balanceCache.lacks(customerId, AssetNames.TRY.name(), cost)) {
+                    throw new NotEnoughMoneyException();
+                }
+            }
+            case SELL -> {
+                if (balanceCache.lacks(customerId, dto.assetName(), FixedPoint.of(dto.size()))) {
+                    throw new NotEnoughAssetException();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.paging;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(
+        value = HttpStatus.BAD_REQUEST,
+        code = HttpStatus.BAD_REQUEST,
+        reason = "Invalid Page Cursor")
+public class InvalidCursorException extends Exception {
+}
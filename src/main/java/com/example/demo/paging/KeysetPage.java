@@ -0,0 +1,25 @@
+package com.example.demo.paging;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset paged list, nextCursor is
+// null on the last page.
+public record KeysetPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+
+    /**
+     * Page of the rows read with a limit of one more than the
+     * page size: only when that extra row is there, a cursor
+     * continuing after the last row of the page is given.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, PageCursor> keyOf) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, keyOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
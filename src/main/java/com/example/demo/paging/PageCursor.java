@@ -0,0 +1,49 @@
+package com.example.demo.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position after the last row of a page: its id, and its
+ * createDate for lists ordered by (createDate, id). Clients
+ * get it as an opaque token and hand it back unchanged.
+ */
+public record PageCursor(
+        Date createDate,
+        long id
+) {
+
+    public static final PageCursor FIRST = new PageCursor(null, 0);
+
+    private static final String VERSION = "k1";
+
+    public static PageCursor afterId(long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor after(Date createDate, long id) {
+        return new PageCursor(createDate, id);
+    }
+
+    public String encode() {
+        String key = VERSION + ":" + (createDate == null ? "" : createDate.getTime()) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) throws InvalidCursorException {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", -1);
+            if (key.length != 3 || !VERSION.equals(key[0])) {
+                throw new InvalidCursorException();
+            }
+            Date createDate = key[1].isEmpty() ? null : new Date(Long.parseLong(key[1]));
+            return new PageCursor(createDate, Long.parseLong(key[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.sharding;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Unchecked: thrown by the shard aspect around service
+// methods which do not declare it.
+@ResponseStatus(
+        value = HttpStatus.TOO_MANY_REQUESTS,
+        code = HttpStatus.TOO_MANY_REQUESTS,
+        reason = "Too Many Concurrent Requests Of Customer")
+public class CustomerBusyException extends RuntimeException {
+}
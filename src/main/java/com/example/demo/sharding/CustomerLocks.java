@@ -0,0 +1,76 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * STRIPED execution mode, for single instance deployments: a
+ * fixed array of in-JVM locks, customers are assigned to stripes
+ * by the hash of their id. A customer mutation takes the lock of
+ * its stripe before its transaction is opened, so requests of the
+ * same customer wait in memory without a pooled connection, and
+ * the row locks of the database are only a rarely contended
+ * safety net, i.e. for the settlement of the matching engine.
+ * <p>
+ * Unlike SHARDED mode the call runs on the calling thread.
+ * A thread holding a stripe does not take another one, nested
+ * calls for another customer cannot deadlock two stripes.
+ * <p>
+ * Configuration: orders.execution.mode and orders.execution.stripes.
+ * <p>
+ * Metric: <code>orders.stripe.lock.wait</code> time a call waited
+ * for the lock of its stripe, histogram tagged by stripe.
+ */
+@Service
+public class CustomerLocks {
+
+    private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+
+    private final ReentrantLock[] stripes;
+    private final Timer[] lockWaits;
+
+    public CustomerLocks(
+            MeterRegistry meterRegistry,
+            @Value("${orders.execution.mode:LOCKING}") ExecutionMode mode,
+            @Value("${orders.execution.stripes:64}") int stripeCount) {
+        int count = mode == ExecutionMode.STRIPED ? Math.max(1, stripeCount) : 0;
+        this.stripes = new ReentrantLock[count];
+        this.lockWaits = new Timer[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+            lockWaits[i] = Timer.builder("orders.stripe.lock.wait")
+                    .description("Time a customer mutation waited for the lock of its stripe")
+                    .tag("stripe", String.valueOf(i))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the task on the calling thread holding the lock of the
+     * customer's stripe, exceptions of the task are thrown as they
+     * are. Runs without a lock unless in STRIPED mode.
+     */
+    public Object call(long customerId, CustomerShards.ShardTask task) throws Throwable {
+        if (stripes.length == 0 || HOLDING.get() != null) {
+            return task.run();
+        }
+        int stripe = Math.floorMod(Long.hashCode(customerId), stripes.length);
+        ReentrantLock lock = stripes[stripe];
+        long waitingSince = System.nanoTime();
+        lock.lockInterruptibly();
+        lockWaits[stripe].record(System.nanoTime() - waitingSince, TimeUnit.NANOSECONDS);
+        HOLDING.set(Boolean.TRUE);
+        try {
+            return task.run();
+        } finally {
+            HOLDING.remove();
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the concurrent mutations of a single customer, in every
+ * execution mode. With virtual request threads nothing bounds
+ * how many requests of one customer reach the service and block
+ * on its row locks, each with a pooled connection; a customer may
+ * run orders.execution.max-concurrent-per-customer of them, the
+ * next ones wait in memory for a permit, up to
+ * orders.execution.permit-timeout-ms, then fail with 429.
+ * <p>
+ * A thread holding a permit does not take another one for a
+ * nested call. One semaphore is kept per customer with calls
+ * running or waiting, it is removed with the last of them, so
+ * only active customers take memory.
+ * <p>
+ * Configuration: orders.execution.max-concurrent-per-customer
+ * and orders.execution.permit-timeout-ms.
+ * <p>
+ * Metrics:
+ * <ul>
+ *   <li><code>orders.customer.permit.wait</code> time a call waited for a permit</li>
+ *   <li><code>orders.customer.permit.rejections</code> calls which got none in time</li>
+ * </ul>
+ */
+@Service
+public class CustomerPermits {
+
+    private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+
+    private final int maxConcurrent;
+    private final long timeoutMillis;
+    private final Timer permitWait;
+    private final Counter rejections;
+
+    // Semaphore of a customer and the number of calls running or
+    // waiting on it, only changed inside compute of the map.
+    private static final class Permits {
+
+        private final Semaphore semaphore;
+        private int users;
+
+        Permits(int maxConcurrent) {
+            this.semaphore = new Semaphore(maxConcurrent, true);
+        }
+    }
+
+    private final Map<Long, Permits> permits = new ConcurrentHashMap<>();
+
+    public CustomerPermits(
+            MeterRegistry meterRegistry,
+            @Value("${orders.execution.max-concurrent-per-customer:0}") int maxConcurrent,
+            @Value("${orders.execution.permit-timeout-ms:5000}") long timeoutMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMillis = timeoutMillis;
+        this.permitWait = Timer.builder("orders.customer.permit.wait")
+                .description("Time a customer mutation waited for a permit of its customer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = Counter.builder("orders.customer.permit.rejections")
+                .description("Customer mutations which got no permit in time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the task on the calling thread holding a permit of
+     * the customer, exceptions of the task are thrown as they
+     * are. Runs without a permit when no cap is configured.
+     */
+    public Object call(long customerId, CustomerShards.ShardTask task) throws Throwable {
+        if (maxConcurrent <= 0 || HOLDING.get() != null) {
+            return task.run();
+        }
+        Semaphore semaphore = permits.compute(customerId, (id, customerPermits) -> {
+            Permits used = customerPermits != null ? customerPermits : new Permits(maxConcurrent);
+            used.users++;
+            return used;
+        }).semaphore;
+        try {
+            long waitingSince = System.nanoTime();
+            boolean acquired = semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+            permitWait.record(System.nanoTime() - waitingSince, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                rejections.increment();
+                throw new CustomerBusyException();
+            }
+            HOLDING.set(Boolean.TRUE);
+            try {
+                return task.run();
+            } finally {
+                HOLDING.remove();
+                semaphore.release();
+            }
+        } finally {
+            // the last user removes the semaphore, all its permits are back
+            permits.computeIfPresent(customerId,
+                    (id, customerPermits) -> --customerPermits.users == 0 ? null : customerPermits);
+        }
+    }
+
+    // customers with a semaphore, i.e. calls running or waiting
+    int activeCustomers() {
+        return permits.size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Runs {@link CustomerSharded} service methods the way the
+ * {@link ExecutionMode} says: on the shard of their customer, under
+ * the stripe lock of their customer in STRIPED mode, or retried on
+ * version conflicts in OPTIMISTIC mode, in all modes holding one of
+ * the {@link CustomerPermits} of their customer. Ordered before
+ * the transaction advice, so the transaction is opened, and its
+ * connection taken, on the shard thread only once it is the turn
+ * of the call, and every retry runs in a new transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class CustomerShardAspect {
+
+    private final CustomerShards customerShards;
+    private final OptimisticRetry optimisticRetry;
+    private final CustomerLocks customerLocks;
+    private final CustomerPermits customerPermits;
+
+    // Not bound as an advice argument: binding needs the
+    // ExposeInvocationInterceptor, which runs after an
+    // aspect of HIGHEST_PRECEDENCE.
+    @Around("@annotation(com.example.demo.sharding.CustomerSharded)")
+    public Object routeToShard(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        CustomerSharded customerSharded = signature.getMethod().getAnnotation(CustomerSharded.class);
+        int index = Arrays.asList(signature.getParameterNames()).indexOf(customerSharded.value());
+        if (index < 0) {
+            throw new IllegalStateException(
+                    signature.getMethod() + " has no parameter named " + customerSharded.value());
+        }
+        long customerId = ((Number) joinPoint.getArgs()[index]).longValue();
+        return customerPermits.call(customerId, () -> route(signature, customerId, joinPoint));
+    }
+
+    private Object route(MethodSignature signature, long customerId, ProceedingJoinPoint joinPoint) throws Throwable {
+        return switch (customerShards.getMode()) {
+            case OPTIMISTIC -> optimisticRetry.call(signature.getName(), joinPoint::proceed);
+            case STRIPED -> customerLocks.call(customerId, joinPoint::proceed);
+            case LOCKING, SHARDED -> customerShards.call(customerId, joinPoint::proceed);
+        };
+    }
+}
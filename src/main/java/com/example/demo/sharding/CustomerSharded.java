@@ -0,0 +1,23 @@
+package com.example.demo.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method mutating the balances or orders of a
+ * single customer. With orders.execution.mode=SHARDED the call
+ * runs on the shard thread of that customer, see {@link CustomerShards},
+ * with STRIPED under the stripe lock of that customer, see
+ * {@link CustomerLocks}, with OPTIMISTIC it is retried on conflicts,
+ * see {@link OptimisticRetry}.
+ * <p>
+ * The customer is read from the parameter named by {@link #value()}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CustomerSharded {
+
+    String value() default "customerId";
+}
@@ -0,0 +1,102 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+
+/**
+ * Single writer executors, one thread per shard, customers are
+ * assigned to shards by the hash of their id. All mutations of a
+ * customer run one after the other on its shard thread, requests
+ * of the same customer queue in memory instead of each holding a
+ * database connection while waiting on the row lock of the other.
+ * Throughput scales with the number of shards, not with lock
+ * hold time.
+ * <p>
+ * Configuration: orders.execution.mode (LOCKING or SHARDED, to
+ * benchmark both models side by side) and orders.execution.shards.
+ * <p>
+ * Metric: <code>orders.shard.queue.time</code> time a call waited
+ * for its shard thread, tagged by mode.
+ */
+@Log
+@Service
+public class CustomerShards {
+
+    @FunctionalInterface
+    public interface ShardTask {
+        Object run() throws Throwable;
+    }
+
+    private final ExecutionMode mode;
+    private final ExecutorService[] shards;
+    private final Timer queueTime;
+
+    public CustomerShards(
+            MeterRegistry meterRegistry,
+            @Value("${orders.execution.mode:LOCKING}") ExecutionMode mode,
+            @Value("${orders.execution.shards:0}") int shardCount) {
+        this.mode = mode;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ExecutorService[mode == ExecutionMode.SHARDED ? count : 0];
+        for (int i = 0; i < shards.length; i++) {
+            String name = "customer-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.queueTime = Timer.builder("orders.shard.queue.time")
+                .description("Time a customer mutation waited for its shard thread")
+                .tag("mode", mode.name())
+                .register(meterRegistry);
+        log.info("Customer mutations run in " + mode + " mode"
+                + (mode == ExecutionMode.SHARDED ? " on " + count + " shards" : ""));
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Runs the task on the shard of the customer and waits for
+     * it, exceptions of the task are thrown as they are. Runs on
+     * the calling thread in LOCKING mode, or when already called
+     * from a shard thread: waiting there for another shard could
+     * deadlock two shards.
+     */
+    public Object call(long customerId, ShardTask task) throws Throwable {
+        if (shards.length == 0 || Thread.currentThread().getName().startsWith("customer-shard-")) {
+            return task.run();
+        }
+        long enqueuedAt = System.nanoTime();
+        Future<Object> result = shards[Math.floorMod(Long.hashCode(customerId), shards.length)].submit(() -> {
+            queueTime.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                return task.run();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new ExecutionException(t);
+            }
+        });
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.sharding;
+
+/**
+ * How mutations of a customer are serialised,
+ * configured with orders.execution.mode.
+ */
+public enum ExecutionMode {
+    // every request runs on its own thread,
+    // concurrent requests wait on row locks.
+    LOCKING,
+    // requests of a customer are queued to
+    // the single writer thread of its shard.
+    SHARDED,
+    // requests of a customer wait for the in-JVM
+    // lock of its stripe before opening a transaction.
+    STRIPED,
+    // requests read without row locks, a version
+    // conflict at commit retries the request.
+    OPTIMISTIC
+}
@@ -0,0 +1,99 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * OPTIMISTIC execution mode: a customer mutation runs without
+ * row locks, the versions of the assets and orders it changed are
+ * checked when its transaction commits. On a conflict the whole
+ * transaction is rolled back and run again after a randomised
+ * exponential backoff, up to orders.optimistic.max-attempts times.
+ * <p>
+ * Services read without locks only while {@link #isActive()},
+ * i.e. inside a call which is retried on conflict. Any other
+ * caller still takes the row locks.
+ * <p>
+ * Metrics, tagged by operation:
+ * <ul>
+ *   <li><code>orders.optimistic.conflicts</code> version conflicts detected</li>
+ *   <li><code>orders.optimistic.retries</code> calls run again after a conflict</li>
+ * </ul>
+ */
+@Service
+public class OptimisticRetry {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetry(
+            MeterRegistry meterRegistry,
+            @Value("${orders.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${orders.optimistic.backoff-ms:2}") long backoffMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /**
+     * Runs the task, again on every version conflict. The last
+     * conflict is thrown once all attempts failed.
+     */
+    public Object call(String operation, CustomerShards.ShardTask task) throws Throwable {
+        if (isActive()) {
+            // nested call, retried as a whole by the outer one
+            return task.run();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return task.run();
+                } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                    conflicts(operation).increment();
+                    if (attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    retries(operation).increment();
+                    backoff(attempt);
+                }
+            }
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    // Full jitter: conflicting writers retrying at the
+    // same moment would most likely conflict again.
+    private void backoff(int attempt) throws InterruptedException {
+        long maxDelay = backoffMillis << Math.min(attempt - 1, 10);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+    }
+
+    private Counter conflicts(String operation) {
+        return Counter.builder("orders.optimistic.conflicts")
+                .description("Version conflicts of customer mutations")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private Counter retries(String operation) {
+        return Counter.builder("orders.optimistic.retries")
+                .description("Customer mutations run again after a version conflict")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amounts: money, prices and asset sizes are held in a
+ * primitive long counting 1/10_000 units, 1.736 TRY is 17_360.
+ * <p>
+ * Sums and costs are exact integer arithmetic, balances do not
+ * drift over millions of fills as binary doubles do, and nothing
+ * is allocated on the hot path. Overflow throws ArithmeticException
+ * instead of wrapping around.
+ * <p>
+ * Stored as BIGINT columns as they are, written and read in JSON
+ * as plain decimal numbers, see {@link FixedPointJson}. More than
+ * {@link #SCALE} decimals are rejected, never rounded.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 4;
+
+    // 1.0 in units
+    public static final long ONE = 10_000;
+
+    private FixedPoint() {
+    }
+
+    // a whole number of TRY or of shares
+    public static long of(long whole) {
+        return Math.multiplyExact(whole, ONE);
+    }
+
+    // for literals, rounded to the nearest unit
+    public static long of(double value) {
+        return Math.round(value * ONE);
+    }
+
+    public static long of(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.UNNECESSARY)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    public static long of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    public static String toString(long units) {
+        return toBigDecimal(units).stripTrailingZeros().toPlainString();
+    }
+
+    public static long add(long units, long other) {
+        return Math.addExact(units, other);
+    }
+
+    public static long subtract(long units, long other) {
+        return Math.subtractExact(units, other);
+    }
+
+    // price times a whole quantity, e.g. the cost of an order
+    public static long multiply(long units, long quantity) {
+        return Math.multiplyExact(units, quantity);
+    }
+
+    // e.g. an average price, rounded half up to the unit
+    public static long divide(long units, long divisor) {
+        long quotient = units / divisor;
+        long remainder = units % divisor;
+        if (2 * Math.abs(remainder) >= Math.abs(divisor)) {
+            quotient += Long.signum(units) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+}
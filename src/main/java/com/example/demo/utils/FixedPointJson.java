@@ -0,0 +1,53 @@
+package com.example.demo.utils;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a long field or record component holding {@link FixedPoint}
+ * units: JSON keeps showing the plain decimal number, 1.736 instead
+ * of 17360, so clients see no change.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = FixedPointJson.Serializer.class)
+@JsonDeserialize(using = FixedPointJson.Deserializer.class)
+public @interface FixedPointJson {
+
+    class Serializer extends JsonSerializer<Long> {
+
+        @Override
+        public void serialize(Long units, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(FixedPoint.toBigDecimal(units));
+        }
+    }
+
+    class Deserializer extends JsonDeserializer<Long> {
+
+        // A decimal with more than FixedPoint.SCALE digits
+        // fails the request with 400 Bad Request.
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            try {
+                return FixedPoint.of(parser.getDecimalValue());
+            } catch (ArithmeticException e) {
+                return (Long) context.handleWeirdNumberValue(
+                        Long.class, parser.getNumberValue(), "more than " + FixedPoint.SCALE + " decimals");
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo;
+
+import com.example.demo.assets.AssetBalanceRepo;
+import com.example.demo.assets.AssetRepo;
+import com.example.demo.assets.AssetSymbolRepo;
+import com.example.demo.customers.CustomerRepo;
+import com.example.demo.orders.ArchivedOrderRepo;
+import com.example.demo.orders.ExecutionRepo;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.OrderSearchRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on the SQL of every repository query and fails
+ * when H2 plans it as a full table scan, so a missing or dropped
+ * index fails the build instead of production.
+ * <p>
+ * The statements are the ones Hibernate generates for the
+ * queries, with literals for the parameters; a repository method
+ * without an entry here fails the coverage check.
+ */
+// Same context as the controller tests: another one would
+// seed the shared in-memory database a second time.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class QueryPlanTest {
+
+    // Reads every row by design.
+    private static final Set<String> FULL_SCANS = Set.of("OrderRepo.streamAll", "ArchivedOrderRepo.streamAll");
+
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            CustomerRepo.class, AssetRepo.class, AssetBalanceRepo.class, AssetSymbolRepo.class,
+            OrderRepo.class, OrderSearchRepo.class, ArchivedOrderRepo.class, ExecutionRepo.class);
+
+    private static final String DATES =
+            " and o.create_date > TIMESTAMP '2023-01-01 00:00:00' and o.create_date < TIMESTAMP '2026-01-01 00:00:00'";
+
+    private static final Map<String, List<String>> QUERIES = new LinkedHashMap<>();
+
+    private static void plan(String query, String... statements) {
+        QUERIES.put(query, List.of(statements));
+    }
+
+    static {
+        plan("CustomerRepo.findByEmail",
+                "SELECT * FROM customers c WHERE c.email = 'admin@gmail.com'");
+        plan("CustomerRepo.findViewById",
+                "SELECT * FROM customers c WHERE c.id = 1");
+        plan("CustomerRepo.findViewsByIdGreaterThan",
+                "SELECT * FROM customers c WHERE c.id > 100 ORDER BY c.id FETCH FIRST 101 ROWS ONLY");
+
+        plan("AssetRepo.findViewsByCustomerId",
+                "SELECT * FROM assets a WHERE a.customer_id = 1 ORDER BY a.id");
+        plan("AssetRepo.findViewsByIdGreaterThan",
+                "SELECT * FROM assets a WHERE a.id > 100 ORDER BY a.id FETCH FIRST 101 ROWS ONLY");
+        plan("AssetRepo.findByCustomerIdAndAssetName",
+                "SELECT * FROM assets a WHERE a.customer_id = 1 and a.symbol_id = 1");
+        plan("AssetRepo.findByCustomerIdAndAssetNameOptimistic",
+                "SELECT * FROM assets a WHERE a.customer_id = 1 and a.symbol_id = 1");
+        plan("AssetRepo.findAllByCustomerIdAndAssetNamesOptimistic",
+                "SELECT * FROM assets a WHERE a.customer_id = 1 and a.symbol_id IN (1, 2) ORDER BY a.id");
+        plan("AssetRepo.existsByCustomerIdAndAssetName",
+                "SELECT a.id FROM assets a WHERE a.customer_id = 1 and a.symbol_id = 1 FETCH FIRST 1 ROWS ONLY");
+        plan("AssetRepo.findBalance",
+                "SELECT a.usable_size, a.version FROM assets a WHERE a.customer_id = 1 and a.symbol_id = 1");
+        plan("AssetRepo.findSize",
+                "SELECT a.size FROM assets a WHERE a.customer_id = 1 and a.symbol_id = 1");
+        plan("AssetRepo.findAllByCustomerIdAndAssetNamesForUpdate",
+                "SELECT * FROM assets a WHERE a.customer_id = 1 and a.symbol_id IN (1, 2) ORDER BY a.id");
+
+        plan("AssetBalanceRepo.reserve",
+                "UPDATE assets a SET usable_size = usable_size - 1, version = version + 1"
+                        + " WHERE a.customer_id = 1 and a.symbol_id = 1 and a.usable_size >= 1");
+        plan("AssetBalanceRepo.release",
+                "UPDATE assets a SET usable_size = usable_size + 1, version = version + 1"
+                        + " WHERE a.customer_id = 1 and a.symbol_id = 1");
+        plan("AssetBalanceRepo.withdraw",
+                "UPDATE assets a SET size = size - 1, usable_size = usable_size - 1, version = version + 1"
+                        + " WHERE a.customer_id = 1 and a.symbol_id = 1 and a.usable_size >= 1");
+
+        plan("AssetSymbolRepo.findByName",
+                "SELECT * FROM asset_symbols s WHERE s.name = 'KCHOL'");
+
+        plan("OrderRepo.findByCustomerIdAndCreateDateGreaterThanAndCreateDateLessThan",
+                "SELECT * FROM orders o WHERE o.customer_id = 1" + DATES);
+        plan("OrderRepo.findViewById",
+                "SELECT * FROM orders o WHERE o.id = 1");
+        plan("OrderRepo.findViewsByIdGreaterThan",
+                "SELECT * FROM orders o WHERE o.id > 100 ORDER BY o.id FETCH FIRST 101 ROWS ONLY");
+        plan("OrderRepo.findPageBetween",
+                "SELECT * FROM orders o WHERE o.customer_id = 1" + DATES
+                        + " and (o.create_date > TIMESTAMP '2024-01-01 00:00:00'"
+                        + " or (o.create_date = TIMESTAMP '2024-01-01 00:00:00' and o.id > 100))"
+                        + " ORDER BY o.create_date, o.id FETCH FIRST 101 ROWS ONLY");
+        plan("OrderRepo.findByCustomerIdAndClientOrderId",
+                "SELECT * FROM orders o WHERE o.customer_id = 1 and o.client_order_id = 'retry-1'");
+        plan("OrderRepo.findByCustomerIdAndClientOrderIdIn",
+                "SELECT * FROM orders o WHERE o.customer_id = 1 and o.client_order_id IN ('retry-1', 'retry-2')");
+        plan("OrderRepo.findByAssetNameAndOrderStatusOrderByIdAsc",
+                "SELECT * FROM orders o WHERE o.symbol_id = 1 and o.order_status = 0 ORDER BY o.id");
+        plan("OrderRepo.streamAll",
+                "SELECT * FROM orders o ORDER BY o.id");
+        plan("OrderRepo.streamByCustomerIdBetween",
+                "SELECT * FROM orders o WHERE o.customer_id = 1" + DATES + " ORDER BY o.id");
+        plan("OrderRepo.findByOrderStatus",
+                "SELECT * FROM orders o WHERE o.order_status = 0");
+        plan("OrderRepo.findByIdForUpdate",
+                "SELECT * FROM orders o WHERE o.id = 1");
+        plan("OrderRepo.findByIdOptimistic",
+                "SELECT * FROM orders o WHERE o.id = 1");
+        plan("OrderRepo.findAllByIdForUpdate",
+                "SELECT * FROM orders o WHERE o.id IN (1, 2) ORDER BY o.id");
+        plan("OrderRepo.findByAssetNameAndOrderStatusForUpdate",
+                "SELECT * FROM orders o WHERE o.symbol_id = 1 and o.order_status = 0 ORDER BY o.id");
+        plan("OrderRepo.findDistinctAssetNamesByOrderStatus",
+                "SELECT DISTINCT o.symbol_id FROM orders o WHERE o.order_status = 0");
+
+        // every filter of the search with an index behind it
+        plan("OrderSearchRepo.search",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.customer_id = 1 ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.customer_id = 1 and o.order_status = 0"
+                        + " ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.customer_id = 1 and o.order_side = 0"
+                        + " and o.symbol_id = 1" + DATES.replace(">", ">=") + " ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.order_status = 0 ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.order_status = 0 and o.symbol_id = 1"
+                        + " ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.symbol_id = 1 ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.order_side = 1" + DATES.replace(">", ">=")
+                        + " ORDER BY o.create_date, o.id",
+                "SELECT * FROM orders o WHERE 1 = 1 and o.customer_id = 1"
+                        + " and (o.create_date > TIMESTAMP '2024-01-01 00:00:00'"
+                        + " or (o.create_date = TIMESTAMP '2024-01-01 00:00:00' and o.id > 100))"
+                        + " ORDER BY o.create_date, o.id");
+
+        plan("OrderRepo.findIdsToArchive",
+                "SELECT o.id FROM orders o WHERE o.order_status IN (1, 2, 3)"
+                        + " and o.create_date < TIMESTAMP '2024-01-01 00:00:00'"
+                        + " ORDER BY o.create_date, o.id FETCH FIRST 500 ROWS ONLY");
+
+        plan("ArchivedOrderRepo.findViewById",
+                "SELECT * FROM orders_archive o WHERE o.id = 1");
+        plan("ArchivedOrderRepo.findPageBetween",
+                "SELECT * FROM orders_archive o WHERE o.customer_id = 1" + DATES
+                        + " and (o.create_date > TIMESTAMP '2024-01-01 00:00:00'"
+                        + " or (o.create_date = TIMESTAMP '2024-01-01 00:00:00' and o.id > 100))"
+                        + " ORDER BY o.create_date, o.id FETCH FIRST 101 ROWS ONLY");
+        plan("ArchivedOrderRepo.streamAll",
+                "SELECT * FROM orders_archive o ORDER BY o.id");
+        plan("ArchivedOrderRepo.streamByCustomerIdBetween",
+                "SELECT * FROM orders_archive o WHERE o.customer_id = 1" + DATES + " ORDER BY o.id");
+        plan("ArchivedOrderRepo.findByCustomerIdAndClientOrderId",
+                "SELECT * FROM orders_archive o WHERE o.customer_id = 1 and o.client_order_id = 'retry-1'");
+        plan("ArchivedOrderRepo.findByCustomerIdAndClientOrderIdIn",
+                "SELECT * FROM orders_archive o WHERE o.customer_id = 1"
+                        + " and o.client_order_id IN ('retry-1', 'retry-2')");
+
+        // bulk statements of a chunk, not a repository
+        plan("OrderArchiver.archiveChunk",
+                "INSERT INTO orders_archive (id, customer_id, symbol_id, order_status, create_date)"
+                        + " SELECT o.id, o.customer_id, o.symbol_id, o.order_status, o.create_date"
+                        + " FROM orders o WHERE o.id IN (1, 2)"
+                        + " and not exists (SELECT a.id FROM orders_archive a WHERE a.id = o.id)",
+                "DELETE FROM orders o WHERE o.id IN (1, 2) and o.order_status IN (1, 2, 3)");
+
+        plan("ExecutionRepo.findByCustomerIdAndOrderIdOrderByIdAsc",
+                "SELECT * FROM executions e WHERE e.customer_id = 1 and e.order_id = 1 ORDER BY e.id");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testEveryRepositoryQueryIsPlanned() {
+        List<String> missing = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isSynthetic() && !method.isDefault()
+                            && !Modifier.isStatic(method.getModifiers()))
+                    .map(Method::getName)
+                    .map(name -> repository.getSimpleName() + "." + name)
+                    .filter(query -> !QUERIES.containsKey(query))
+                    .forEach(missing::add);
+        }
+        assertTrue(missing.isEmpty(), "No EXPLAIN statement for: " + missing);
+    }
+
+    @Test
+    public void testNoRepositoryQueryScansAWholeTable() {
+        List<String> fullScans = new ArrayList<>();
+        QUERIES.forEach((query, statements) -> {
+            if (FULL_SCANS.contains(query)) {
+                return;
+            }
+            for (String statement : statements) {
+                String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + statement, String.class));
+                if (plan.contains("tableScan")) {
+                    fullScans.add(query + ":\n" + plan);
+                }
+            }
+        });
+        assertTrue(fullScans.isEmpty(), "Full table scans:\n" + String.join("\n\n", fullScans));
+    }
+}
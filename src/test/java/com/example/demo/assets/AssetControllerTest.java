@@ -4,6 +4,7 @@ import com.example.demo.assets.model.Asset;
 import com.example.demo.assets.model.AssetNames;
 import com.example.demo.assets.model.DepositMoneyDto;
 import com.example.demo.assets.model.WithdrawMoneyDto;
+import com.example.demo.utils.FixedPoint;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,8 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.math.BigDecimal;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -129,45 +132,45 @@ class AssetControllerTest {
 
     @Test
     public void testAdminCanDepositAndWithdrawMoneyOfOnder() {
-        DepositMoneyDto deposit = new DepositMoneyDto(1000.0);
-        ResponseEntity<Double> response = this.restTemplate
+        DepositMoneyDto deposit = new DepositMoneyDto(FixedPoint.of(1000));
+        ResponseEntity<BigDecimal> response = this.restTemplate
                 .withBasicAuth("admin@gmail.com", "admin")
                 .postForEntity("http://localhost:" + port +
-                        "/apis/v1/assets/deposit/1", deposit, Double.class);
+                        "/apis/v1/assets/deposit/1", deposit, BigDecimal.class);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(11000.0, response.getBody());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(11_000)), response.getBody());
 
-        WithdrawMoneyDto withdraw = new WithdrawMoneyDto(1000.0, "TR320006400000144440777777");
-        ResponseEntity<Double> response2 = this.restTemplate
+        WithdrawMoneyDto withdraw = new WithdrawMoneyDto(FixedPoint.of(1000), "TR320006400000144440777777");
+        ResponseEntity<BigDecimal> response2 = this.restTemplate
                 .withBasicAuth("admin@gmail.com", "admin")
                 .postForEntity("http://localhost:" + port +
-                        "/apis/v1/assets/withdraw/1", withdraw, Double.class);
+                        "/apis/v1/assets/withdraw/1", withdraw, BigDecimal.class);
         assertEquals(HttpStatus.OK, response2.getStatusCode());
-        assertEquals(10000.0, response2.getBody());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(10_000)), response2.getBody());
     }
 
     @Test
     public void testOnderCanDepositAndWithdrawMoneyOfOnder() {
-        DepositMoneyDto deposit = new DepositMoneyDto(1000.0);
-        ResponseEntity<Double> response = this.restTemplate
+        DepositMoneyDto deposit = new DepositMoneyDto(FixedPoint.of(1000));
+        ResponseEntity<BigDecimal> response = this.restTemplate
                 .withBasicAuth("omerondertola@gmail.com", "onder")
                 .postForEntity("http://localhost:" + port +
-                        "/apis/v1/assets/deposit/1", deposit, Double.class);
+                        "/apis/v1/assets/deposit/1", deposit, BigDecimal.class);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(11000.0, response.getBody());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(11_000)), response.getBody());
 
-        WithdrawMoneyDto withdraw = new WithdrawMoneyDto(1000.0, "TR320006400000144440777777");
-        ResponseEntity<Double> response2 = this.restTemplate
+        WithdrawMoneyDto withdraw = new WithdrawMoneyDto(FixedPoint.of(1000), "TR320006400000144440777777");
+        ResponseEntity<BigDecimal> response2 = this.restTemplate
                 .withBasicAuth("omerondertola@gmail.com", "onder")
                 .postForEntity("http://localhost:" + port +
-                        "/apis/v1/assets/withdraw/1", withdraw, Double.class);
+                        "/apis/v1/assets/withdraw/1", withdraw, BigDecimal.class);
         assertEquals(HttpStatus.OK, response2.getStatusCode());
-        assertEquals(10000.0, response2.getBody());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(10_000)), response2.getBody());
     }
 
     @Test
     public void testOnderCannotDepositMoneyOfDefne() {
-        DepositMoneyDto deposit = new DepositMoneyDto(1000.0);
+        DepositMoneyDto deposit = new DepositMoneyDto(FixedPoint.of(1000));
         ResponseEntity response = this.restTemplate
                 .withBasicAuth("omerondertola@gmail.com", "onder")
                 .postForEntity("http://localhost:" + port +
@@ -177,7 +180,7 @@ class AssetControllerTest {
 
     @Test
     public void testOnderCannotWithdrawMoneyOfDefne() {
-        WithdrawMoneyDto withdraw = new WithdrawMoneyDto(1000.0, "TR320006400000144440777777");
+        WithdrawMoneyDto withdraw = new WithdrawMoneyDto(FixedPoint.of(1000), "TR320006400000144440777777");
         ResponseEntity response2 = this.restTemplate
                 .withBasicAuth("omerondertola@gmail.com", "onder")
                 .postForEntity("http://localhost:" + port +
@@ -190,16 +193,17 @@ class AssetControllerTest {
         assertEquals(1, asset.getId());
         assertEquals(1, asset.getCustomerId());
         assertEquals(AssetNames.TRY.name(), asset.getAssetName());
-        assertEquals(10000, asset.getSize());
-        assertEquals(9882.67, asset.getUsableSize());
+        assertEquals(FixedPoint.of(10000), asset.getSize());
+        // 10000 - 10 * 1.733 - 100 * 1, exact
+        assertEquals(FixedPoint.of("9882.67"), asset.getUsableSize());
     }
 
     private void assertEqualsISYATAssetOnder(Asset asset) {
         assertEquals(2, asset.getId());
         assertEquals(1, asset.getCustomerId());
         assertEquals("ISYAT", asset.getAssetName());
-        assertEquals(10000, asset.getSize());
-        assertEquals(10000, asset.getUsableSize());
+        assertEquals(FixedPoint.of(10000), asset.getSize());
+        assertEquals(FixedPoint.of(10000), asset.getUsableSize());
     }
 
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package com.example.demo.assets.service;
 import com.example.demo.assets.AssetRepo;
 import com.example.demo.assets.model.Asset;
 import com.example.demo.assets.model.AssetNames;
+import com.example.demo.assets.model.AssetView;
 import com.example.demo.assets.model.DepositMoneyDto;
 import com.example.demo.assets.model.WithdrawMoneyDto;
 import com.example.demo.customers.service.CustomerNotFoundException;
+import com.example.demo.utils.FixedPoint;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -14,6 +16,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 class AssetServiceTest {
@@ -33,31 +36,21 @@ class AssetServiceTest {
     @Test
     public void testShallReturnAssetsOfACustomer() {
         // Given
-        Asset tryAsset = Asset.builder()
-                .id(1)
-                .customerId(1)
-                .assetName("TRY")
-                .size(100_000)
-                .usableSize(100_000)
-                .build();
+        AssetView tryAsset = new AssetView(1, 1, "TRY",
+                FixedPoint.of(100_000), FixedPoint.of(100_000), 0);
 
-        Asset kcholAsset = Asset.builder()
-                .id(2)
-                .customerId(1)
-                .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
-                .build();
+        AssetView kcholAsset = new AssetView(2, 1, "KCHOL",
+                FixedPoint.of(1000), FixedPoint.of(1000), 0);
 
-        List<Asset> expectedAssets = List.of(
+        List<AssetView> expectedAssets = List.of(
                 tryAsset, kcholAsset);
 
         // Mock the calls
-        Mockito.when(assetRepo.findAllByCustomerId(1))
+        Mockito.when(assetRepo.findViewsByCustomerId(1))
                 .thenReturn(expectedAssets);
 
         // When
-        List<Asset> returnValue = null;
+        List<AssetView> returnValue = null;
 
         try {
             returnValue = assetService.getAssetsOfCustomer(1);
@@ -71,12 +64,12 @@ class AssetServiceTest {
         checkEquality(tryAsset, returnValue);
     }
 
-    private static void checkEquality(Asset tryAsset, List<Asset> returnValue) {
-        assertEquals(tryAsset.getId(), returnValue.get(0).getId());
-        assertEquals(tryAsset.getCustomerId(), returnValue.get(0).getCustomerId());
-        assertEquals(tryAsset.getAssetName(), returnValue.get(0).getAssetName());
-        assertEquals(tryAsset.getSize(), returnValue.get(0).getSize());
-        assertEquals(tryAsset.getUsableSize(), returnValue.get(0).getUsableSize());
+    private static void checkEquality(AssetView tryAsset, List<AssetView> returnValue) {
+        assertEquals(tryAsset.id(), returnValue.get(0).id());
+        assertEquals(tryAsset.customerId(), returnValue.get(0).customerId());
+        assertEquals(tryAsset.assetName(), returnValue.get(0).assetName());
+        assertEquals(tryAsset.size(), returnValue.get(0).size());
+        assertEquals(tryAsset.usableSize(), returnValue.get(0).usableSize());
     }
 
 
@@ -87,31 +80,31 @@ class AssetServiceTest {
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(100_000)
-                .usableSize(100_000)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000))
                 .build();
 
         Asset kcholAsset = Asset.builder()
                 .id(2)
                 .customerId(1)
                 .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
         Asset tryAssetExpected = Asset.builder()
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(101_000)
-                .usableSize(101_000)
+                .size(FixedPoint.of(101_000))
+                .usableSize(FixedPoint.of(101_000))
                 .build();
 
 
         List<Asset> expectedAssets = List.of(
                 tryAsset, kcholAsset);
 
-        DepositMoneyDto depositMoneyDto = new DepositMoneyDto(1_000);
+        DepositMoneyDto depositMoneyDto = new DepositMoneyDto(FixedPoint.of(1_000));
 
         // Mock the calls
         Mockito.when(assetRepo.findByCustomerIdAndAssetName(
@@ -122,7 +115,7 @@ class AssetServiceTest {
                 .thenReturn(tryAssetExpected);
 
         // When
-        Double remainingAmount = null;
+        Long remainingAmount = null;
         try {
             remainingAmount = assetService.depositMoney(1, depositMoneyDto);
         } catch (AssetNotFoundException e) {
@@ -139,7 +132,7 @@ class AssetServiceTest {
 
         // Then
         assertNotNull(remainingAmount);
-        assertEquals(101_000, remainingAmount);
+        assertEquals(FixedPoint.of(101_000), remainingAmount);
     }
 
     @Test
@@ -149,11 +142,11 @@ class AssetServiceTest {
                 .id(1)
                 .customerId(1)
                 .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
-        DepositMoneyDto depositMoneyDto = new DepositMoneyDto(1_000);
+        DepositMoneyDto depositMoneyDto = new DepositMoneyDto(FixedPoint.of(1_000));
 
         // Mock the calls
         Mockito.when(assetRepo.findByCustomerIdAndAssetName(
@@ -179,42 +172,37 @@ class AssetServiceTest {
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(100_000)
-                .usableSize(100_000)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000))
                 .build();
 
         Asset kcholAsset = Asset.builder()
                 .id(2)
                 .customerId(1)
                 .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
         Asset tryAssetExpected = Asset.builder()
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(99_000)
-                .usableSize(99_000)
+                .size(FixedPoint.of(99_000))
+                .usableSize(FixedPoint.of(99_000))
                 .build();
 
 
         List<Asset> expectedAssets = List.of(
                 tryAsset, kcholAsset);
 
-        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(1_000,"TR320006400000147790577588");
+        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(FixedPoint.of(1_000),"TR320006400000147790577588");
 
         // Mock the calls
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                        1, AssetNames.TRY.name()))
-                .thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(null))
-                .thenReturn(tryAssetExpected);
+        stubBalanceUpdates(tryAsset);
 
         // When
-        Double remainingAmount = null;
+        Long remainingAmount = null;
         try {
             remainingAmount = assetService.withdrawMoney(1, depositMoneyDto);
         } catch (AssetNotFoundException e) {
@@ -225,15 +213,13 @@ class AssetServiceTest {
             e.printStackTrace();
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(tryAssetExpected.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(tryAssetExpected.getUsableSize(), tryAsset.getUsableSize());
 
         // Then
         assertNotNull(remainingAmount);
-        assertEquals(99_000, remainingAmount);
+        assertEquals(FixedPoint.of(99_000), remainingAmount);
     }
 
     @Test
@@ -243,43 +229,38 @@ class AssetServiceTest {
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(999)
-                .usableSize(999)
+                .size(FixedPoint.of(999))
+                .usableSize(FixedPoint.of(999))
                 .build();
 
         Asset kcholAsset = Asset.builder()
                 .id(2)
                 .customerId(1)
                 .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
         Asset tryAssetExpected = Asset.builder()
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(999)
-                .usableSize(999)
+                .size(FixedPoint.of(999))
+                .usableSize(FixedPoint.of(999))
                 .build();
 
 
         List<Asset> expectedAssets = List.of(
                 tryAsset, kcholAsset);
 
-        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(1_000,"TR320006400000147790577588");
+        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(FixedPoint.of(1_000),"TR320006400000147790577588");
 
         // Mock the calls
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                        1, AssetNames.TRY.name()))
-                .thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(null))
-                .thenReturn(tryAssetExpected);
+        stubBalanceUpdates(tryAsset);
 
         // When
         boolean notEnoughMoneyExceptionThrown = false;
-        Double remainingAmount = null;
+        Long remainingAmount = null;
         try {
             remainingAmount = assetService.withdrawMoney(1, depositMoneyDto);
         } catch (AssetNotFoundException e) {
@@ -302,43 +283,38 @@ class AssetServiceTest {
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
         Asset kcholAsset = Asset.builder()
                 .id(2)
                 .customerId(1)
                 .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
         Asset tryAssetExpected = Asset.builder()
                 .id(1)
                 .customerId(1)
                 .assetName("TRY")
-                .size(1000)
-                .usableSize(0)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(0))
                 .build();
 
 
         List<Asset> expectedAssets = List.of(
                 tryAsset, kcholAsset);
 
-        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(1_000,"TR320006400000147790577588");
+        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(FixedPoint.of(1_000),"TR320006400000147790577588");
 
         // Mock the calls
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                        1, AssetNames.TRY.name()))
-                .thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(null))
-                .thenReturn(tryAssetExpected);
+        stubBalanceUpdates(tryAsset);
 
         // When
         boolean notEnoughMoneyExceptionThrown = false;
-        Double remainingAmount = null;
+        Long remainingAmount = null;
         try {
             remainingAmount = assetService.withdrawMoney(1, depositMoneyDto);
         } catch (AssetNotFoundException e) {
@@ -350,11 +326,9 @@ class AssetServiceTest {
             e.printStackTrace();
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(tryAssetExpected.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(tryAssetExpected.getUsableSize(), tryAsset.getUsableSize());
 
 
         // Then
@@ -369,25 +343,22 @@ class AssetServiceTest {
                 .id(2)
                 .customerId(1)
                 .assetName("KCHOL")
-                .size(1000)
-                .usableSize(1000)
+                .size(FixedPoint.of(1000))
+                .usableSize(FixedPoint.of(1000))
                 .build();
 
         List<Asset> expectedAssets = List.of(kcholAsset);
 
-        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(1_000,"TR320006400000147790577588");
+        WithdrawMoneyDto depositMoneyDto = new WithdrawMoneyDto(FixedPoint.of(1_000),"TR320006400000147790577588");
 
         // Mock the calls
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
+        Mockito.when(assetRepo.existsByCustomerIdAndAssetName(
                         1, AssetNames.TRY.name()))
-                .thenReturn(Optional.empty());
-
-        Mockito.when(assetRepo.save(null))
-                .thenReturn(null);
+                .thenReturn(false);
 
         // When
         boolean assetNotFoundExceptionThrown = false;
-        Double remainingAmount = null;
+        Long remainingAmount = null;
         try {
             remainingAmount = assetService.withdrawMoney(1, depositMoneyDto);
         } catch (AssetNotFoundException e) {
@@ -402,5 +373,24 @@ class AssetServiceTest {
         assertTrue(assetNotFoundExceptionThrown);
     }
 
-
-}
\ No newline at end of file
+    // Stands in for the guarded withdraw of AssetBalanceRepo,
+    // applied to the given asset the way the database would.
+    private void stubBalanceUpdates(Asset asset) {
+        long customerId = asset.getCustomerId();
+        String assetName = asset.getAssetName();
+        Mockito.when(assetRepo.existsByCustomerIdAndAssetName(customerId, assetName))
+                .thenReturn(true);
+        Mockito.when(assetRepo.withdraw(Mockito.eq(customerId), Mockito.eq(assetName), Mockito.anyLong()))
+                .thenAnswer(invocation -> {
+                    long amount = invocation.getArgument(2);
+                    if (asset.getUsableSize() < amount) {
+                        return 0;
+                    }
+                    asset.setSize(asset.getSize() - amount);
+                    asset.setUsableSize(asset.getUsableSize() - amount);
+                    return 1;
+                });
+        Mockito.when(assetRepo.findSize(customerId, assetName))
+                .thenAnswer(invocation -> Optional.of(asset.getSize()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.assets.service;
+
+import com.example.demo.assets.AssetSymbolRepo;
+import com.example.demo.assets.model.AssetSymbol;
+import com.example.demo.assets.model.AssetSymbolConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AssetSymbolsTest {
+
+    @Mock
+    private AssetSymbolRepo assetSymbolRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AssetSymbols assetSymbols;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Mockito.when(transactionManager.getTransaction(Mockito.any()))
+                .thenReturn(Mockito.mock(TransactionStatus.class));
+        Mockito.when(assetSymbolRepo.findAll()).thenReturn(List.of(
+                new AssetSymbol(1, "TRY"),
+                new AssetSymbol(2, "KCHOL")));
+        assetSymbols = new AssetSymbols(assetSymbolRepo, transactionManager);
+        assetSymbols.load();
+    }
+
+    @Test
+    public void testShallResolveLoadedSymbolsBothWays() {
+        // When & Then
+        assertEquals(2, assetSymbols.idOf("KCHOL"));
+        assertEquals("TRY", assetSymbols.nameOf(1));
+        assertEquals(OptionalInt.of(1), assetSymbols.find("TRY"));
+        verify(assetSymbolRepo, times(0)).save(Mockito.any());
+    }
+
+    @Test
+    public void testShallRegisterUnknownNameOnce() {
+        // Given
+        Mockito.when(assetSymbolRepo.findByName("SASA")).thenReturn(Optional.empty());
+        Mockito.when(assetSymbolRepo.save(Mockito.any()))
+                .thenReturn(new AssetSymbol(40, "SASA"));
+
+        // When
+        int symbolId = assetSymbols.idOf("SASA");
+
+        // Then
+        assertEquals(40, symbolId);
+        assertEquals(40, assetSymbols.idOf("SASA"));
+        assertEquals("SASA", assetSymbols.nameOf(40));
+        assertEquals("KCHOL", assetSymbols.nameOf(2));
+        verify(assetSymbolRepo, times(1)).save(Mockito.any());
+    }
+
+    @Test
+    public void testShallNotRegisterWhenOnlyLookingUp() {
+        // When & Then
+        assertTrue(assetSymbols.find("ISYAT").isEmpty());
+        verify(assetSymbolRepo, times(0)).save(Mockito.any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConverterShallBindUnknownNameWithoutRegisteringIt() {
+        // Given
+        ObjectProvider<AssetSymbols> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getObject()).thenReturn(assetSymbols);
+        AssetSymbolConverter converter = new AssetSymbolConverter(provider);
+
+        // When & Then
+        assertEquals(2, converter.convertToDatabaseColumn("KCHOL"));
+        assertEquals(AssetSymbols.UNKNOWN, converter.convertToDatabaseColumn("MADEUP"));
+        verify(assetSymbolRepo, times(0)).save(Mockito.any());
+    }
+
+    @Test
+    public void testShallFailOnUnknownId() {
+        // Given
+        Mockito.when(assetSymbolRepo.findById(7)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> assetSymbols.nameOf(7));
+    }
+}
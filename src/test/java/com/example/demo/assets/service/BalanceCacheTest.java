@@ -0,0 +1,80 @@
+package com.example.demo.assets.service;
+
+import com.example.demo.assets.model.AssetBalance;
+import com.example.demo.utils.FixedPoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceCacheTest {
+
+    private final AssetSymbols assetSymbols = Mockito.mock(AssetSymbols.class);
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceCache balanceCache;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(assetSymbols.find("TRY")).thenReturn(OptionalInt.of(1));
+        Mockito.when(assetSymbols.idOf("TRY")).thenReturn(1);
+        Mockito.when(assetSymbols.find("KCHOL")).thenReturn(OptionalInt.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        balanceCache = new BalanceCache(assetSymbols, meterRegistry, true);
+    }
+
+    @Test
+    public void testShallRejectOnlyWhenCachedBalanceIsNotEnough() {
+        // Given
+        balanceCache.onChange(1, "TRY", new AssetBalance(FixedPoint.of(100), 3));
+
+        // When & Then
+        assertTrue(balanceCache.lacks(1, "TRY", FixedPoint.of(100.01)));
+        assertFalse(balanceCache.lacks(1, "TRY", FixedPoint.of(100)));
+        // not cached, the guarded update decides
+        assertFalse(balanceCache.lacks(2, "TRY", FixedPoint.of(100.01)));
+        assertFalse(balanceCache.lacks(1, "KCHOL", FixedPoint.of(1)));
+        assertEquals(1.0, meterRegistry.counter("orders.balance-cache.rejections").count());
+    }
+
+    @Test
+    public void testShallKeepNewerVersionWhenCommitsArriveOutOfOrder() {
+        // Given
+        balanceCache.onChange(1, "TRY", new AssetBalance(FixedPoint.of(500), 5));
+
+        // When
+        balanceCache.onRead(1, "TRY", new AssetBalance(FixedPoint.of(50), 4));
+
+        // Then
+        assertFalse(balanceCache.lacks(1, "TRY", FixedPoint.of(400)));
+        balanceCache.onChange(1, "TRY", new AssetBalance(FixedPoint.of(50), 6));
+        assertTrue(balanceCache.lacks(1, "TRY", FixedPoint.of(400)));
+    }
+
+    @Test
+    public void testShallNotRejectFromEvictedBalance() {
+        // Given
+        balanceCache.onChange(1, "TRY", new AssetBalance(FixedPoint.of(50), 3));
+
+        // When
+        balanceCache.evict(1, "TRY");
+
+        // Then
+        assertFalse(balanceCache.lacks(1, "TRY", FixedPoint.of(400)));
+        balanceCache.onRead(1, "TRY", new AssetBalance(FixedPoint.of(50), 4));
+        assertTrue(balanceCache.lacks(1, "TRY", FixedPoint.of(400)));
+    }
+
+    @Test
+    public void testShallNeverRejectWhenDisabled() {
+        // Given
+        balanceCache = new BalanceCache(assetSymbols, meterRegistry, false);
+        balanceCache.onChange(1, "TRY", new AssetBalance(0, 1));
+
+        // When & Then
+        assertFalse(balanceCache.lacks(1, "TRY", FixedPoint.of(1)));
+    }
+}
@@ -3,12 +3,16 @@ package com.example.demo.customers.service;
 import com.example.demo.customers.CustomerRepo;
 import com.example.demo.customers.model.AppSecurityRoles;
 import com.example.demo.customers.model.Customer;
+import com.example.demo.customers.model.CustomerView;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
@@ -77,88 +81,65 @@ class CustomerServiceTest {
     @Test
     public void testShallGetCustomer() {
         // Given
-        var expected = Customer.builder()
-                .id(1)
-                .email("omerondertola@gmail.com")
-                .firstName("Ömer Önder")
-                .lastName("TOLA")
-                .password("encoded-password")
-                .role(AppSecurityRoles.ADMIN)
-                .build();
+        var expected = new CustomerView(1, "Ömer Önder", "TOLA",
+                "omerondertola@gmail.com", AppSecurityRoles.ADMIN);
 
         // Mock the calls
-        Mockito.when(customerService.getCustomer(1))
+        Mockito.when(customerRepo.findViewById(1))
                 .thenReturn(Optional.of(expected));
 
         // When
-        Optional<Customer> returnValue = customerService.getCustomer(1);
+        Optional<CustomerView> returnValue = customerService.getCustomer(1);
 
         // Then
-        assertEquals(expected.getUsername(), returnValue.get().getUsername());
-        assertEquals(expected.getFirstName(), returnValue.get().getFirstName());
-        assertEquals(expected.getLastName(), returnValue.get().getLastName());
-        assertEquals(expected.getPassword(), returnValue.get().getPassword());
-        assertEquals(expected.getRole(), returnValue.get().getRole());
+        assertEquals(expected.email(), returnValue.get().email());
+        assertEquals(expected.firstName(), returnValue.get().firstName());
+        assertEquals(expected.lastName(), returnValue.get().lastName());
+        assertEquals(expected.role(), returnValue.get().role());
     }
 
     @Test
     public void testShallGetAllCustomers() {
         // Given
-        var c1 = Customer.builder()
-                .id(1)
-                .email("omerondertola@gmail.com")
-                .firstName("Ömer Önder")
-                .lastName("TOLA")
-                .password("encoded-password")
-                .role(AppSecurityRoles.ADMIN)
-                .build();
+        var c1 = new CustomerView(1, "Ömer Önder", "TOLA",
+                "omerondertola@gmail.com", AppSecurityRoles.ADMIN);
 
-        var c2 = Customer.builder()
-                .id(1)
-                .email("defnetola@gmail.com")
-                .firstName("Defne")
-                .lastName("TOLA")
-                .password("defne-encoded-password")
-                .role(AppSecurityRoles.CUSTOMER)
-                .build();
+        var c2 = new CustomerView(2, "Defne", "TOLA",
+                "defnetola@gmail.com", AppSecurityRoles.CUSTOMER);
 
-        var c3 = Customer.builder()
-                .id(1)
-                .email("iremtola@gmail.com")
-                .firstName("İrem")
-                .lastName("TOLA")
-                .password("irem-encoded-password")
-                .role(AppSecurityRoles.CUSTOMER)
-                .build();
+        var c3 = new CustomerView(3, "İrem", "TOLA",
+                "iremtola@gmail.com", AppSecurityRoles.CUSTOMER);
 
         var expected = List.of(c1, c2, c3);
 
         // Mock the Calls
-        Mockito.when(customerRepo.findAll())
+        Mockito.when(customerRepo.findViewsByIdGreaterThan(Mockito.eq(0L), Mockito.argThat((Limit limit) -> limit.max() == 101)))
                 .thenReturn(expected);
 
         // When
-        List<Customer> returnValue = customerService.getAllCustomers();
+        KeysetPage<CustomerView> page = customerService.getAllCustomers(PageCursor.FIRST, 100);
+        List<CustomerView> returnValue = page.items();
 
         // Then
         assertEquals(3, returnValue.size());
+        assertNull(page.nextCursor());
+        assertEquals(expected, returnValue);
+    }
+
+    @Test
+    public void testShallGiveCursorOnlyWhenMoreCustomersFollow() throws Exception {
+        // Given
+        var c7 = new CustomerView(7, "A", "A", "a@gmail.com", AppSecurityRoles.CUSTOMER);
+        var c9 = new CustomerView(9, "B", "B", "b@gmail.com", AppSecurityRoles.CUSTOMER);
+        var c12 = new CustomerView(12, "C", "C", "c@gmail.com", AppSecurityRoles.CUSTOMER);
+        Mockito.when(customerRepo.findViewsByIdGreaterThan(Mockito.eq(5L), Mockito.argThat((Limit limit) -> limit.max() == 3)))
+                .thenReturn(List.of(c7, c9, c12));
 
-        assertEquals(c1.getFirstName(), returnValue.get(0).getFirstName());
-        assertEquals(c1.getLastName(), returnValue.get(0).getLastName());
-        assertEquals(c1.getEmail(), returnValue.get(0).getEmail());
-        assertEquals(c1.getPassword(), returnValue.get(0).getPassword());
-        assertEquals(c1.getRole(), returnValue.get(0).getRole());
-
-        assertEquals(c2.getFirstName(), returnValue.get(1).getFirstName());
-        assertEquals(c2.getLastName(), returnValue.get(1).getLastName());
-        assertEquals(c2.getEmail(), returnValue.get(1).getEmail());
-        assertEquals(c2.getPassword(), returnValue.get(1).getPassword());
-        assertEquals(c2.getRole(), returnValue.get(1).getRole());
-
-        assertEquals(c3.getFirstName(), returnValue.get(2).getFirstName());
-        assertEquals(c3.getLastName(), returnValue.get(2).getLastName());
-        assertEquals(c3.getEmail(), returnValue.get(2).getEmail());
-        assertEquals(c3.getPassword(), returnValue.get(2).getPassword());
-        assertEquals(c3.getRole(), returnValue.get(2).getRole());
+        // When
+        KeysetPage<CustomerView> page = customerService.getAllCustomers(PageCursor.afterId(5), 2);
+
+        // Then
+        assertEquals(List.of(c7, c9), page.items());
+        assertEquals(9, PageCursor.decode(page.nextCursor()).id());
     }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.example.demo.journal;
+
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    private Path path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempDirectory("journal").resolve("orders.journal");
+    }
+
+    private EventJournal open() throws IOException {
+        return new EventJournal(path.toString(), 1, 1);
+    }
+
+    @Test
+    public void testShallReadRecordsAppendedBeforeReopening() throws Exception {
+        // Given
+        EventJournal journal = open();
+        journal.awaitDurable(journal.append(List.of(bytes("first"), bytes("second"))));
+        journal.awaitDurable(journal.append(List.of(bytes("third"))));
+        journal.close();
+
+        // When
+        EventJournal reopened = open();
+
+        // Then
+        List<byte[]> records = reopened.readAll();
+        assertEquals(3, records.size());
+        assertArrayEquals(bytes("first"), records.get(0));
+        assertArrayEquals(bytes("third"), records.get(2));
+
+        reopened.append(List.of(bytes("fourth")));
+        assertArrayEquals(bytes("fourth"), reopened.readAll().get(3));
+        reopened.close();
+    }
+
+    @Test
+    public void testShallEndJournalAtTornRecord() throws Exception {
+        // Given
+        EventJournal journal = open();
+        journal.append(List.of(bytes("first")));
+        int end = journal.append(List.of(bytes("second")));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(end - 1);
+            file.write('X');
+        }
+
+        // When
+        EventJournal reopened = open();
+
+        // Then
+        List<byte[]> records = reopened.readAll();
+        assertEquals(1, records.size());
+        assertArrayEquals(bytes("first"), records.get(0));
+        reopened.close();
+    }
+
+    @Test
+    public void testShallGrowBeyondInitialSize() throws Exception {
+        // Given
+        EventJournal journal = open();
+        byte[] large = new byte[400 * 1024];
+
+        // When
+        journal.awaitDurable(journal.append(List.of(large, large, large)));
+        journal.close();
+
+        // Then
+        EventJournal reopened = open();
+        assertEquals(3, reopened.readAll().size());
+        reopened.close();
+    }
+
+    @Test
+    public void testShallDecodeEncodedRecord() {
+        // Given
+        JournalRecord order = new JournalRecord.OrderImage(
+                7, 1, "KCHOL", OrderSide.SELL, 100, FixedPoint.of(10.5), 40,
+                OrderStatus.PENDING, null, null, 1_700_000_000_000L, 2);
+        JournalRecord asset = new JournalRecord.AssetImage(3, 1, "TRY", FixedPoint.of(10_000), FixedPoint.of(8_950), 5);
+
+        // When
+        JournalRecord decodedOrder = JournalRecord.decode(JournalRecord.encode(order));
+        JournalRecord decodedAsset = JournalRecord.decode(JournalRecord.encode(asset));
+
+        // Then
+        assertEquals(order, decodedOrder);
+        assertEquals(asset, decodedAsset);
+        assertNull(((JournalRecord.OrderImage) decodedOrder).orderType());
+
+        JournalRecord market = new JournalRecord.OrderImage(
+                8, 2, "SASA", OrderSide.BUY, 10, 0, 10,
+                OrderStatus.MATCHED, OrderType.MARKET, "basket-1", 1_700_000_000_000L, 0);
+        assertEquals(market, JournalRecord.decode(JournalRecord.encode(market)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
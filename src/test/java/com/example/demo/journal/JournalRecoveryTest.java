@@ -0,0 +1,33 @@
+package com.example.demo.journal;
+
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalRecoveryTest {
+
+    @Test
+    public void testShallKeepImageOfHighestVersion() {
+        // Given
+        // T2 committed after T1 but appended its image first
+        JournalRecord inserted = new JournalRecord.AssetImage(3, 1, "TRY", FixedPoint.of(10_000), FixedPoint.of(10_000), 0);
+        JournalRecord second = new JournalRecord.AssetImage(3, 1, "TRY", FixedPoint.of(10_000), FixedPoint.of(8_000), 2);
+        JournalRecord first = new JournalRecord.AssetImage(3, 1, "TRY", FixedPoint.of(10_000), FixedPoint.of(9_000), 1);
+        JournalRecord customer = new JournalRecord.CustomerImage(1, "Omer", "Tola", "omer@example.com", "old", null);
+        JournalRecord renamed = new JournalRecord.CustomerImage(1, "Omer", "Tola", "omer@example.com", "new", null);
+
+        // When
+        Map<String, Map<Long, JournalRecord>> latest = JournalRecovery.latestImages(
+                List.of(customer, inserted, second, first, renamed));
+
+        // Then
+        assertEquals(List.of("customers", "assets"), List.copyOf(latest.keySet()));
+        assertEquals(second, latest.get("assets").get(3L));
+        // rows without a version keep the image appended last
+        assertEquals(renamed, latest.get("customers").get(1L));
+    }
+}
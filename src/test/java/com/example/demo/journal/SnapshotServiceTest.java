@@ -0,0 +1,136 @@
+package com.example.demo.journal;
+
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class SnapshotServiceTest {
+
+    private Path directory;
+    private EventJournal eventJournal;
+    private JdbcTemplate jdbcTemplate;
+    private SnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+        eventJournal = new EventJournal(directory.resolve("orders.journal").toString(), 1, 1);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        snapshotService = new SnapshotService(
+                eventJournal,
+                jdbcTemplate,
+                mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(),
+                directory.resolve("orders.snapshot").toString());
+    }
+
+    @Test
+    public void testShallLoadSnapshotWithItsJournalPosition() throws Exception {
+        // Given
+        int journalPosition = eventJournal.append(List.of("change".getBytes(StandardCharsets.UTF_8)));
+        ResultSet asset = mock(ResultSet.class);
+        when(asset.getLong("id")).thenReturn(3L);
+        when(asset.getLong("customer_id")).thenReturn(1L);
+        when(asset.getString("asset_name")).thenReturn("TRY");
+        when(asset.getLong("size")).thenReturn(FixedPoint.of(10_000));
+        when(asset.getLong("usable_size")).thenReturn(FixedPoint.of(8_950));
+        when(asset.getLong("version")).thenReturn(5L);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(asset);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select a.id, a.customer_id, s.name asset_name, a.size,"), any(RowCallbackHandler.class));
+
+        // When
+        snapshotService.takeSnapshot();
+
+        // Then
+        Snapshot snapshot = snapshotService.load().orElseThrow();
+        assertEquals(journalPosition, snapshot.journalPosition());
+        assertEquals(List.of(new JournalRecord.AssetImage(3, 1, "TRY", FixedPoint.of(10_000), FixedPoint.of(8_950), 5)), snapshot.records());
+        eventJournal.close();
+    }
+
+    @Test
+    public void testShallKeepMatchedOrdersAndExecutions() throws Exception {
+        // Given
+        ResultSet order = mock(ResultSet.class);
+        when(order.getLong("id")).thenReturn(7L);
+        when(order.getLong("customer_id")).thenReturn(1L);
+        when(order.getString("asset_name")).thenReturn("ASELS");
+        when(order.getInt("order_side")).thenReturn(OrderSide.BUY.ordinal());
+        when(order.getInt("size")).thenReturn(10);
+        when(order.getLong("price")).thenReturn(FixedPoint.of(100));
+        when(order.getInt("filled_size")).thenReturn(10);
+        when(order.getInt("order_status")).thenReturn(OrderStatus.MATCHED.ordinal());
+        when(order.getInt("order_type")).thenReturn(OrderType.LIMIT.ordinal());
+        when(order.getTimestamp("create_date")).thenReturn(new Timestamp(1_000));
+        when(order.getLong("version")).thenReturn(2L);
+        ResultSet execution = mock(ResultSet.class);
+        when(execution.getLong("id")).thenReturn(9L);
+        when(execution.getLong("order_id")).thenReturn(7L);
+        when(execution.getLong("customer_id")).thenReturn(1L);
+        when(execution.getString("asset_name")).thenReturn("ASELS");
+        when(execution.getInt("order_side")).thenReturn(OrderSide.BUY.ordinal());
+        when(execution.getInt("size")).thenReturn(10);
+        when(execution.getLong("price")).thenReturn(FixedPoint.of(100));
+        when(execution.getTimestamp("create_date")).thenReturn(new Timestamp(2_000));
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(order);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select o.id,"), any(RowCallbackHandler.class));
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(execution);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select e.id,"), any(RowCallbackHandler.class));
+
+        // When
+        snapshotService.takeSnapshot();
+
+        // Then
+        Snapshot snapshot = snapshotService.load().orElseThrow();
+        assertEquals(List.of(
+                new JournalRecord.OrderImage(7, 1, "ASELS", OrderSide.BUY, 10, FixedPoint.of(100), 10,
+                        OrderStatus.MATCHED, OrderType.LIMIT, null, 1_000, 2),
+                new JournalRecord.ExecutionImage(9, 7, 1, "ASELS", OrderSide.BUY, 10, FixedPoint.of(100), 2_000)),
+                snapshot.records());
+        eventJournal.close();
+    }
+
+    @Test
+    public void testShallIgnoreDamagedSnapshot() throws Exception {
+        // Given
+        snapshotService.takeSnapshot();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("orders.snapshot").toFile(), "rw")) {
+            file.seek(Integer.BYTES);
+            file.write(0x7F);
+        }
+
+        // When
+        var snapshot = snapshotService.load();
+
+        // Then
+        assertTrue(snapshot.isEmpty());
+        eventJournal.close();
+    }
+}
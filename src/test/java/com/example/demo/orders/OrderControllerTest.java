@@ -4,6 +4,7 @@ import com.example.demo.orders.model.Order;
 import com.example.demo.orders.model.OrderDto;
 import com.example.demo.orders.model.OrderSide;
 import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.utils.FixedPoint;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -12,6 +13,8 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -32,6 +35,11 @@ class OrderControllerTest {
     @Autowired
     private OrderRepo orderRepo;
 
+    // The seeded orders are created at startup, the window
+    // ends tomorrow so it always covers them.
+    private static final String SEEDED_DATES = "start-date=20230101&end-date="
+            + LocalDate.now().plusDays(1).format(DateTimeFormatter.BASIC_ISO_DATE);
+
 
     @Test
     public void testContextLoaded() {
@@ -63,7 +71,7 @@ class OrderControllerTest {
         assertEquals(OrderSide.BUY,order.getOrderSide());
         assertEquals(100,order.getSize());
         assertEquals(OrderStatus.PENDING,order.getOrderStatus());
-        assertEquals(1.0,order.getPrice());
+        assertEquals(FixedPoint.of(1),order.getPrice());
         assertEquals("SASA",order.getAssetName());
         assertNotNull(order.getCreateDate());
         assertTrue(order.getCreateDate().after(new Date(System.currentTimeMillis() - 1000*60*60)));
@@ -76,7 +84,7 @@ class OrderControllerTest {
         assertEquals(OrderSide.BUY,order.getOrderSide());
         assertEquals(10,order.getSize());
         assertEquals(OrderStatus.PENDING,order.getOrderStatus());
-        assertEquals(1.733,order.getPrice());
+        assertEquals(FixedPoint.of(1.733),order.getPrice());
         assertEquals("KCHOL",order.getAssetName());
         assertNotNull(order.getCreateDate());
         assertTrue(order.getCreateDate().after(new Date(System.currentTimeMillis() - 1000*60*60)));
@@ -98,7 +106,7 @@ class OrderControllerTest {
         ResponseEntity<Order[]> response = restTemplate.withBasicAuth(
                         "admin@gmail.com", "admin")
                 .getForEntity("http://localhost:" + port + "/apis/v1/orders/1" +
-                                "?start-date=20230101&end-date=20260101",
+                                "?" + SEEDED_DATES,
                         Order[].class);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Order[] orders = response.getBody();
@@ -113,7 +121,7 @@ class OrderControllerTest {
         ResponseEntity<Order[]> response = restTemplate.withBasicAuth(
                         "omerondertola@gmail.com", "onder")
                 .getForEntity("http://localhost:" + port + "/apis/v1/orders/1" +
-                                "?start-date=20230101&end-date=20260101",
+                                "?" + SEEDED_DATES,
                         Order[].class);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Order[] orders = response.getBody();
@@ -123,11 +131,95 @@ class OrderControllerTest {
         assertEqualsOndersSASABuyOrder(orders[1]);
     }
 
+    @Test
+    public void testAdminCanPageThroughAllOrders() {
+        ResponseEntity<Order[]> first = restTemplate.withBasicAuth(
+                        "admin@gmail.com", "admin")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders?limit=1",
+                        Order[].class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(1, first.getBody().length);
+        assertEqualsOndersKCHOLBuyOrder(first.getBody()[0]);
+        String cursor = first.getHeaders().getFirst("X-Next-Cursor");
+        assertNotNull(cursor);
+
+        ResponseEntity<Order[]> second = restTemplate.withBasicAuth(
+                        "admin@gmail.com", "admin")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders?limit=1&cursor=" + cursor,
+                        Order[].class);
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(1, second.getBody().length);
+        assertEqualsOndersSASABuyOrder(second.getBody()[0]);
+    }
+
+    @Test
+    public void testOnderCanSearchOwnOrders() {
+        ResponseEntity<Order[]> response = restTemplate.withBasicAuth(
+                        "omerondertola@gmail.com", "onder")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders/search" +
+                                "?customerId=1&asset=KCHOL&side=BUY&start-date=20230101",
+                        Order[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Order[] orders = response.getBody();
+        assertNotNull(orders);
+        assertTrue(orders.length >= 1);
+        assertEqualsOndersKCHOLBuyOrder(orders[0]);
+        for (Order order : orders) {
+            assertEquals("KCHOL", order.getAssetName());
+        }
+    }
+
+    @Test
+    public void testShallRefuseSearchWithoutIndexedFilter() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(
+                        "admin@gmail.com", "admin")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders/search?side=BUY",
+                        String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testAdminCanExportAllOrdersAsCsv() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(
+                        "admin@gmail.com", "admin")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders?format=csv",
+                        String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String csv = response.getBody();
+        assertNotNull(csv);
+        assertTrue(csv.startsWith("id,customerId,assetName,orderSide,size,price,"));
+        assertTrue(csv.contains("\n1,1,KCHOL,BUY,10,1.733,"));
+        assertTrue(csv.contains("\n2,1,SASA,BUY,100,1,"));
+    }
+
+    @Test
+    public void testOnderCanExportOwnOrdersAsNdjson() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(
+                        "omerondertola@gmail.com", "onder")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders/1" +
+                                "?" + SEEDED_DATES + "&format=ndjson",
+                        String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String[] lines = response.getBody().split("\n");
+        assertTrue(lines.length >= 2);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"assetName\":\"KCHOL\""));
+        assertTrue(lines[1].startsWith("{") && lines[1].contains("\"assetName\":\"SASA\""));
+    }
+
+    @Test
+    public void testShallRefuseUnknownExportFormat() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(
+                        "admin@gmail.com", "admin")
+                .getForEntity("http://localhost:" + port + "/apis/v1/orders?format=xml",
+                        String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     public void testAdminCanPlaceAndCancelOrderForOnder() {
         // Place the Order
         Long customerId = 1L;
-        OrderDto orderDto = new OrderDto("KCHOL",OrderSide.BUY,100, 1.736);
+        OrderDto orderDto = new OrderDto("KCHOL",OrderSide.BUY,100, FixedPoint.of(1.736));
         ResponseEntity<Order> response = restTemplate.withBasicAuth(
                 "admin@gmail.com", "admin")
                 .postForEntity("http://localhost:" + port + "/apis/v1/orders/1",
@@ -168,7 +260,7 @@ class OrderControllerTest {
     public void testOnderCanPlaceOrderForHimself() {
         // Place the Order
         Long customerId = 1L;
-        OrderDto orderDto = new OrderDto("SASA",OrderSide.BUY,1, 1.736);
+        OrderDto orderDto = new OrderDto("SASA",OrderSide.BUY,1, FixedPoint.of(1.736));
         ResponseEntity<Order> response = restTemplate.withBasicAuth(
                         "omerondertola@gmail.com", "onder")
                 .postForEntity("http://localhost:" + port + "/apis/v1/orders/1",
@@ -200,7 +292,7 @@ class OrderControllerTest {
     public void testOnderIsForbiddenToPlaceOrderForDefne() {
         // Place the Order
         Long customerId = 2L;
-        OrderDto orderDto = new OrderDto("SASA",OrderSide.BUY,100, 1.736);
+        OrderDto orderDto = new OrderDto("SASA",OrderSide.BUY,100, FixedPoint.of(1.736));
         ResponseEntity<Order> response = restTemplate.withBasicAuth(
                         "onder@gmail.com", "onder")
                 .postForEntity("http://localhost:" + port + "/apis/v1/orders/2",
@@ -212,7 +304,7 @@ class OrderControllerTest {
     public void testOnderIsForbiddenToCancelDefnesOrders() {
         // Place the Order AS Admin
         Long customerId = 2L;
-        OrderDto orderDto = new OrderDto("KCHOL",OrderSide.BUY,100, 1.736);
+        OrderDto orderDto = new OrderDto("KCHOL",OrderSide.BUY,100, FixedPoint.of(1.736));
         ResponseEntity<Order> response = restTemplate.withBasicAuth(
                         "admin@gmail.com", "admin")
                 .postForEntity("http://localhost:" + port + "/apis/v1/orders/2",
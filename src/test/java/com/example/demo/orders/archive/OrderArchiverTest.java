@@ -0,0 +1,128 @@
+package com.example.demo.orders.archive;
+
+import com.example.demo.orders.ArchivedOrderRepo;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.export.ExportFormat;
+import com.example.demo.orders.export.OrderExporter;
+import com.example.demo.orders.model.ArchivedOrder;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.orders.model.OrderView;
+import com.example.demo.orders.service.OrderService;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same context as the controller tests: another one would
+// seed the shared in-memory database a second time.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrderArchiverTest {
+
+    // No seeded orders, nothing of other tests is moved.
+    private static final long CUSTOMER_ID = 9_001;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private ArchivedOrderRepo archivedOrderRepo;
+
+    @Autowired
+    private OrderExporter orderExporter;
+
+    @Test
+    public void testShallMoveOnlyOldTerminalOrders() {
+        // Given
+        Order cancelledKCHOL = orderRepo.save(order(OrderStatus.CANCELLED, new Date(1_000), "archive-1"));
+        Order pendingKCHOL = orderRepo.save(order(OrderStatus.PENDING, new Date(2_000), "archive-2"));
+        try {
+            // When
+            orderArchiver.archive(new Date(10_000));
+
+            // Then
+            assertTrue(orderRepo.findById(cancelledKCHOL.getId()).isEmpty());
+            Optional<ArchivedOrder> archived = archivedOrderRepo.findById(cancelledKCHOL.getId());
+            assertTrue(archived.isPresent());
+            assertEquals(OrderStatus.CANCELLED, archived.get().getOrderStatus());
+            assertEquals("KCHOL", archived.get().getAssetName());
+            assertEquals("archive-1", archived.get().getClientOrderId());
+            assertTrue(orderRepo.findById(pendingKCHOL.getId()).isPresent());
+        } finally {
+            orderRepo.deleteById(pendingKCHOL.getId());
+        }
+    }
+
+    @Test
+    public void testShallReadArchivedOrdersTransparently() {
+        // Given
+        Order matchedKCHOL = orderRepo.save(order(OrderStatus.MATCHED, new Date(3_000), "archive-3"));
+        orderArchiver.archive(new Date(10_000));
+
+        // When
+        Optional<OrderView> found = orderService.findOrder(CUSTOMER_ID, matchedKCHOL.getId());
+        KeysetPage<OrderView> page = orderService.findAllBetween(
+                CUSTOMER_ID, new Date(2_500), new Date(10_000), PageCursor.FIRST, 10);
+
+        // Then
+        assertTrue(found.isPresent());
+        assertEquals(OrderStatus.MATCHED, found.get().orderStatus());
+        assertEquals(1, page.items().size());
+        assertEquals(matchedKCHOL.getId(), page.items().get(0).id());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    public void testShallExportArchivedOrders() throws Exception {
+        // Given
+        Order expiredKCHOL = orderRepo.save(order(OrderStatus.EXPIRED, new Date(4_000), "archive-4"));
+        orderArchiver.archive(new Date(10_000));
+        Order pendingKCHOL = orderRepo.save(order(OrderStatus.PENDING, new Date(5_000), "archive-5"));
+        try {
+            // When
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            orderExporter.exportBetween(CUSTOMER_ID, new Date(3_500), new Date(10_000), ExportFormat.CSV)
+                    .writeTo(out);
+
+            // Then
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(3, lines.length);
+            assertTrue(lines[1].startsWith(expiredKCHOL.getId() + ",9001,KCHOL,BUY,10,1.5,0,EXPIRED,"));
+            assertTrue(lines[2].startsWith(pendingKCHOL.getId() + ",9001,KCHOL,BUY,10,1.5,0,PENDING,"));
+        } finally {
+            orderRepo.deleteById(pendingKCHOL.getId());
+        }
+    }
+
+    private static Order order(OrderStatus orderStatus, Date createDate, String clientOrderId) {
+        return Order.builder()
+                .customerId(CUSTOMER_ID)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(10)
+                .price(FixedPoint.of(1.5))
+                .filledSize(orderStatus == OrderStatus.MATCHED ? 10 : 0)
+                .orderStatus(orderStatus)
+                .orderType(OrderType.LIMIT)
+                .clientOrderId(clientOrderId)
+                .createDate(createDate)
+                .build();
+    }
+}
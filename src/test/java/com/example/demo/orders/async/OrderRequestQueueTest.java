@@ -0,0 +1,158 @@
+package com.example.demo.orders.async;
+
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderDto;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.service.OrderService;
+import com.example.demo.orders.service.PreTradeCheck;
+import com.example.demo.utils.FixedPoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRequestQueueTest {
+
+    private final OrderService orderService = Mockito.mock(OrderService.class);
+    private final PreTradeCheck preTradeCheck = Mockito.mock(PreTradeCheck.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderRequestQueue orderRequestQueue;
+
+    @AfterEach
+    void tearDown() {
+        if (orderRequestQueue != null) {
+            orderRequestQueue.shutdown();
+        }
+    }
+
+    private OrderRequestStatus awaitCompletion(long customerId, String requestId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            OrderRequestStatus status = orderRequestQueue.findStatus(customerId, requestId).orElseThrow();
+            if (status.state() != OrderRequestStatus.State.QUEUED) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        return fail("order request was not processed");
+    }
+
+    @Test
+    public void testShallAcceptQueuedOrder() throws Exception {
+        // Given
+        orderRequestQueue = new OrderRequestQueue(orderService, preTradeCheck, meterRegistry, 10, 1, 10);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736));
+        Order createdOrder = Order.builder()
+                .id(3)
+                .customerId(1)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+        Mockito.when(orderService.createOrder(1L, orderDto)).thenReturn(createdOrder);
+
+        // When
+        OrderRequestStatus queued = orderRequestQueue.submit(1, orderDto);
+        OrderRequestStatus status = awaitCompletion(1, queued.requestId());
+
+        // Then
+        assertEquals(OrderRequestStatus.State.QUEUED, queued.state());
+        assertEquals(OrderRequestStatus.State.ACCEPTED, status.state());
+        assertEquals(createdOrder, status.order());
+        assertEquals(1, meterRegistry.get("orders.async.queue.time").timer().count());
+        // other customers cannot see the request
+        assertTrue(orderRequestQueue.findStatus(2, queued.requestId()).isEmpty());
+    }
+
+    @Test
+    public void testShallRejectWithTheReasonOfTheSynchronousPath() throws Exception {
+        // Given
+        orderRequestQueue = new OrderRequestQueue(orderService, preTradeCheck, meterRegistry, 10, 1, 10);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736));
+        Mockito.when(orderService.createOrder(1L, orderDto)).thenThrow(new NotEnoughMoneyException());
+
+        // When
+        OrderRequestStatus queued = orderRequestQueue.submit(1, orderDto);
+        OrderRequestStatus status = awaitCompletion(1, queued.requestId());
+
+        // Then
+        assertEquals(OrderRequestStatus.State.REJECTED, status.state());
+        assertEquals("Not Enough usableSize(TRY)", status.reason());
+        assertNull(status.order());
+    }
+
+    @Test
+    public void testShallRefuseWhenQueueIsFull() throws Exception {
+        // Given
+        orderRequestQueue = new OrderRequestQueue(orderService, preTradeCheck, meterRegistry, 1, 1, 10);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        blockWorker(orderDto, started, release);
+        try {
+            orderRequestQueue.submit(1, orderDto);
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+            OrderRequestStatus queued = orderRequestQueue.submit(1, orderDto);
+
+            // When & Then
+            assertThrows(OrderQueueFullException.class,
+                    () -> orderRequestQueue.submit(1, orderDto),
+                    "should have thrown OrderQueueFullException");
+            assertEquals(1, meterRegistry.get("orders.async.queue.depth").gauge().value());
+            assertTrue(orderRequestQueue.findStatus(1, queued.requestId()).isPresent());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testShallRequireAWorker() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> new OrderRequestQueue(orderService, preTradeCheck, meterRegistry, 1, 0, 10),
+                "should have thrown IllegalArgumentException");
+    }
+
+    @Test
+    public void testShallNotDropStatusOfQueuedRequest() throws Exception {
+        // Given
+        orderRequestQueue = new OrderRequestQueue(orderService, preTradeCheck, meterRegistry, 10, 1, 1);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        blockWorker(orderDto, started, release);
+
+        // When
+        OrderRequestStatus first = orderRequestQueue.submit(1, orderDto);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        OrderRequestStatus second = orderRequestQueue.submit(1, orderDto);
+
+        // Then
+        // both are still QUEUED, none is dropped
+        assertTrue(orderRequestQueue.findStatus(1, first.requestId()).isPresent());
+        assertTrue(orderRequestQueue.findStatus(1, second.requestId()).isPresent());
+
+        release.countDown();
+        assertEquals(OrderRequestStatus.State.ACCEPTED, awaitCompletion(1, second.requestId()).state());
+        // finished first, dropped once the second finished
+        assertTrue(orderRequestQueue.findStatus(1, first.requestId()).isEmpty());
+    }
+
+    private void blockWorker(OrderDto orderDto, CountDownLatch started, CountDownLatch release) throws Exception {
+        Mockito.when(orderService.createOrder(1L, orderDto)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Order.builder().id(4).customerId(1).build();
+        });
+    }
+}
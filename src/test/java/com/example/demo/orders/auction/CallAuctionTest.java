@@ -0,0 +1,148 @@
+package com.example.demo.orders.auction;
+
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallAuctionTest {
+
+    private static Order order(long id, OrderSide side, int size, double price) {
+        return Order.builder()
+                .id(id)
+                .customerId(id)
+                .assetName("KCHOL")
+                .orderSide(side)
+                .size(size)
+                .price(FixedPoint.of(price))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+    }
+
+    @Test
+    public void testShallUncrossAtPriceOfMaximumVolume() {
+        // Given
+        Order buy = order(1, OrderSide.BUY, 100, 10);
+        Order sell60 = order(2, OrderSide.SELL, 60, 9);
+        Order sell40 = order(3, OrderSide.SELL, 40, 9.5);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(buy, sell60, sell40));
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(100, result.get().volume());
+        assertEquals(FixedPoint.of(9.5), result.get().clearingPrice());
+        assertEquals(List.of(buy, sell60, sell40), result.get().executedOrders());
+    }
+
+    @Test
+    public void testShallFollowBuyPressureOnEqualVolume() {
+        // Given
+        Order buy10 = order(1, OrderSide.BUY, 100, 10);
+        Order buy9 = order(2, OrderSide.BUY, 50, 9);
+        Order sell8 = order(3, OrderSide.SELL, 100, 8);
+        Order sell95 = order(4, OrderSide.SELL, 50, 9.5);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(sell95, buy9, sell8, buy10));
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(100, result.get().volume());
+        assertEquals(FixedPoint.of(9), result.get().clearingPrice());
+        assertEquals(List.of(buy10, sell8), result.get().executedOrders());
+    }
+
+    @Test
+    public void testShallNotUncrossWhenBookIsNotCrossed() {
+        // Given
+        Order buy = order(1, OrderSide.BUY, 100, 8);
+        Order sell = order(2, OrderSide.SELL, 100, 9);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(buy, sell));
+
+        // Then
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testShallRespectTimePriorityWithinAPriceLevel() {
+        // Given
+        Order firstBuy = order(1, OrderSide.BUY, 30, 10);
+        Order secondBuy = order(2, OrderSide.BUY, 30, 10);
+        Order sell = order(3, OrderSide.SELL, 30, 10);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(secondBuy, sell, firstBuy));
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(30, result.get().volume());
+        assertEquals(List.of(firstBuy, sell), result.get().executedOrders());
+    }
+
+    @Test
+    public void testShallFillLastOrderOfLargerSideInPart() {
+        // Given
+        Order buy = order(1, OrderSide.BUY, 100, 10);
+        Order sell = order(2, OrderSide.SELL, 70, 10);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(buy, sell));
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(70, result.get().volume());
+        assertEquals(Map.of(1L, 70, 2L, 70), result.get().executedSizes());
+    }
+
+    @Test
+    public void testShallNotTradeOrdersOfTheSameCustomer() {
+        // Given
+        Order buy = order(1, OrderSide.BUY, 100, 10);
+        Order ownSell = order(2, OrderSide.SELL, 100, 9);
+        ownSell.setCustomerId(1);
+        Order sell = order(3, OrderSide.SELL, 40, 9.5);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(buy, ownSell, sell));
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(40, result.get().volume());
+        assertEquals(List.of(buy, sell), result.get().executedOrders());
+        assertEquals(Map.of(1L, 40, 3L, 40), result.get().executedSizes());
+    }
+
+    @Test
+    public void testShallNotUncrossOrdersOfOneCustomerOnly() {
+        // Given
+        Order buy = order(1, OrderSide.BUY, 100, 10);
+        Order sell = order(2, OrderSide.SELL, 100, 9);
+        sell.setCustomerId(1);
+
+        // When
+        Optional<AuctionResult> result = CallAuction.uncross(
+                "KCHOL", List.of(buy, sell));
+
+        // Then
+        assertTrue(result.isEmpty());
+    }
+}
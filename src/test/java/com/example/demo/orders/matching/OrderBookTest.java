@@ -0,0 +1,216 @@
+package com.example.demo.orders.matching;
+
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private OrderBook orderBook;
+
+    @BeforeEach
+    void setUp() {
+        orderBook = new OrderBook("KCHOL");
+    }
+
+    private static BookOrder order(long id, long customerId, OrderSide side, double price, int size) {
+        return new BookOrder(id, customerId, "KCHOL", side, OrderType.LIMIT, FixedPoint.of(price), size);
+    }
+
+    @Test
+    public void testShallMatchBestPriceFirst() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.SELL, 10.5, 100));
+        orderBook.add(order(2, 2, OrderSide.SELL, 10.1, 100));
+        orderBook.add(order(3, 3, OrderSide.SELL, 10.3, 100));
+
+        // When
+        Optional<BookOrder> counterOrder = orderBook.findCounterOrder(
+                order(4, 1, OrderSide.BUY, 11, 100));
+
+        // Then
+        assertTrue(counterOrder.isPresent());
+        assertEquals(2, counterOrder.get().orderId());
+        assertEquals(FixedPoint.of(10.1), orderBook.bestAsk().orElseThrow());
+    }
+
+    @Test
+    public void testShallMatchOldestOrderOfALevelFirst() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.BUY, 10, 50));
+        orderBook.add(order(2, 3, OrderSide.BUY, 10, 50));
+
+        // When
+        Optional<BookOrder> counterOrder = orderBook.findCounterOrder(
+                order(3, 1, OrderSide.SELL, 9, 50));
+
+        // Then
+        assertTrue(counterOrder.isPresent());
+        assertEquals(1, counterOrder.get().orderId());
+    }
+
+    @Test
+    public void testShallNotMatchWhenPricesDoNotCross() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.SELL, 10.5, 100));
+
+        // When
+        Optional<BookOrder> counterOrder = orderBook.findCounterOrder(
+                order(2, 1, OrderSide.BUY, 10.4, 100));
+
+        // Then
+        assertTrue(counterOrder.isEmpty());
+    }
+
+    @Test
+    public void testShallNotMatchOrdersOfTheSameCustomer() {
+        // Given
+        orderBook.add(order(1, 1, OrderSide.SELL, 10, 100));
+        orderBook.add(order(2, 2, OrderSide.SELL, 10, 100));
+
+        // When
+        Optional<BookOrder> counterOrder = orderBook.findCounterOrder(
+                order(3, 1, OrderSide.BUY, 10, 100));
+
+        // Then
+        assertTrue(counterOrder.isPresent());
+        assertEquals(2, counterOrder.get().orderId());
+    }
+
+    @Test
+    public void testMarketOrderShallCrossAnyPrice() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.SELL, 250, 100));
+
+        // When
+        Optional<BookOrder> counterOrder = orderBook.findCounterOrder(
+                new BookOrder(2, 1, "KCHOL", OrderSide.BUY, OrderType.MARKET, 0, 100));
+
+        // Then
+        assertTrue(counterOrder.isPresent());
+        assertEquals(1, counterOrder.get().orderId());
+    }
+
+    @Test
+    public void testShallMatchRestingOrderOfDifferentSize() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.SELL, 10, 30));
+
+        // When
+        Optional<BookOrder> counterOrder = orderBook.findCounterOrder(
+                order(2, 1, OrderSide.BUY, 10, 100));
+
+        // Then
+        assertTrue(counterOrder.isPresent());
+        assertEquals(30, Trade.between(order(2, 1, OrderSide.BUY, 10, 100), counterOrder.get()).size());
+    }
+
+    @Test
+    public void testPartialFillShallKeepTimePriority() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.SELL, 10, 100));
+        orderBook.add(order(2, 3, OrderSide.SELL, 10, 100));
+
+        // When
+        orderBook.resize(1, 40);
+
+        // Then
+        BookOrder counterOrder = orderBook.findCounterOrder(
+                order(3, 1, OrderSide.BUY, 10, 100)).orElseThrow();
+        assertEquals(1, counterOrder.orderId());
+        assertEquals(40, counterOrder.size());
+        assertEquals(List.of(new PriceLevel(FixedPoint.of(10), 140, 2)), orderBook.depth(10).asks());
+
+        orderBook.resize(1, 0);
+        assertFalse(orderBook.contains(1));
+        assertEquals(List.of(new PriceLevel(FixedPoint.of(10), 100, 1)), orderBook.depth(10).asks());
+    }
+
+    @Test
+    public void testSweepShallFillAcrossLevelsWithoutChangingTheBook() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.SELL, 10, 30));
+        orderBook.add(order(2, 1, OrderSide.SELL, 10.5, 500));
+        orderBook.add(order(3, 3, OrderSide.SELL, 11, 50));
+        orderBook.add(order(4, 3, OrderSide.SELL, 12, 50));
+
+        // When
+        List<Trade> trades = orderBook.sweep(order(5, 1, OrderSide.BUY, 11.5, 60));
+
+        // Then
+        assertEquals(2, trades.size());
+        assertEquals(1, trades.get(0).sellOrder().orderId());
+        assertEquals(30, trades.get(0).size());
+        assertEquals(3, trades.get(1).sellOrder().orderId());
+        assertEquals(30, trades.get(1).size());
+        assertEquals(FixedPoint.of(11), trades.get(1).price());
+        assertEquals(4, orderBook.size());
+    }
+
+    @Test
+    public void testShallRemoveOrderAndEmptyLevel() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.BUY, 10, 100));
+        orderBook.add(order(2, 2, OrderSide.BUY, 9, 100));
+
+        // When
+        boolean removed = orderBook.remove(1);
+
+        // Then
+        assertTrue(removed);
+        assertFalse(orderBook.contains(1));
+        assertEquals(1, orderBook.size());
+        assertEquals(FixedPoint.of(9), orderBook.bestBid().orElseThrow());
+        assertFalse(orderBook.remove(1));
+    }
+
+    @Test
+    public void testTradeShallExecuteAtRestingPrice() {
+        // Given
+        BookOrder resting = order(1, 2, OrderSide.SELL, 10, 100);
+        BookOrder incoming = order(2, 1, OrderSide.BUY, 12, 100);
+
+        // When
+        Trade trade = Trade.between(incoming, resting);
+
+        // Then
+        assertEquals(incoming, trade.buyOrder());
+        assertEquals(resting, trade.sellOrder());
+        assertEquals(FixedPoint.of(10), trade.price());
+        assertEquals(100, trade.size());
+        assertEquals(FixedPoint.of(1_000), trade.cost());
+    }
+
+    @Test
+    public void testShallAggregateDepthPerPriceLevel() {
+        // Given
+        orderBook.add(order(1, 2, OrderSide.BUY, 10, 100));
+        orderBook.add(order(2, 3, OrderSide.BUY, 10, 50));
+        orderBook.add(order(3, 2, OrderSide.BUY, 11, 20));
+        orderBook.add(order(4, 3, OrderSide.SELL, 12, 70));
+        orderBook.remove(1);
+
+        // When
+        MarketDepth depth = orderBook.depth(10);
+
+        // Then
+        assertEquals("KCHOL", depth.assetName());
+        assertEquals(List.of(
+                new PriceLevel(FixedPoint.of(11), 20, 1),
+                new PriceLevel(FixedPoint.of(10), 50, 1)), depth.bids());
+        assertEquals(List.of(new PriceLevel(FixedPoint.of(12), 70, 1)), depth.asks());
+
+        orderBook.remove(2);
+        orderBook.remove(4);
+        assertEquals(List.of(new PriceLevel(FixedPoint.of(11), 20, 1)), orderBook.depth(10).bids());
+        assertTrue(orderBook.depth(10).asks().isEmpty());
+        assertEquals(1, orderBook.depth(1).bids().size());
+    }
+}
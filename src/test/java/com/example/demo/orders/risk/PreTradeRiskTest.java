@@ -0,0 +1,155 @@
+package com.example.demo.orders.risk;
+
+import com.example.demo.assets.service.AssetSymbols;
+import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Date;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreTradeRiskTest {
+
+    private final OrderRepo orderRepo = Mockito.mock(OrderRepo.class);
+    private final AssetSymbols assetSymbols = Mockito.mock(AssetSymbols.class);
+    private SimpleMeterRegistry meterRegistry;
+    private PreTradeRisk preTradeRisk;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(assetSymbols.find("KCHOL")).thenReturn(OptionalInt.of(2));
+        Mockito.when(assetSymbols.idOf("KCHOL")).thenReturn(2);
+        meterRegistry = new SimpleMeterRegistry();
+        // 1000 TRY per order, 2 open orders, 1500 TRY per asset
+        preTradeRisk = new PreTradeRisk(orderRepo, assetSymbols, meterRegistry,
+                true, "1000", 2, "1500");
+    }
+
+    private static Order order(long id, OrderSide side, int size, double price, OrderStatus status, long version) {
+        return Order.builder()
+                .id(id)
+                .customerId(1L)
+                .assetName("KCHOL")
+                .orderSide(side)
+                .size(size)
+                .price(FixedPoint.of(price))
+                .orderStatus(status)
+                .createDate(new Date())
+                .version(version)
+                .build();
+    }
+
+    @Test
+    public void testShallRejectOrderAboveMaxNotional() {
+        // Given
+        Order order = order(0, OrderSide.BUY, 100, 10.01, null, 0);
+
+        // When & Then
+        assertThrows(RiskLimitExceededException.class, () -> preTradeRisk.reserve(order));
+        assertEquals(1.0, meterRegistry.counter("orders.risk.rejections", "limit", "order-notional").count());
+    }
+
+    @Test
+    public void testShallRejectImmediateOrderOnlyOnNotional() throws Exception {
+        // Given
+        preTradeRisk.onChange(order(1, OrderSide.BUY, 100, 10, OrderStatus.PENDING, 0));
+        preTradeRisk.onChange(order(2, OrderSide.SELL, 50, 10, OrderStatus.PENDING, 0));
+        Order ioc = order(0, OrderSide.BUY, 100, 10, null, 0);
+        ioc.setOrderType(OrderType.IOC);
+
+        // When
+        preTradeRisk.reserve(ioc);
+
+        // Then
+        assertEquals(2, preTradeRisk.openOrders(1L));
+    }
+
+    @Test
+    public void testShallRejectAboveMaxOpenOrders() {
+        // Given
+        preTradeRisk.onChange(order(1, OrderSide.BUY, 1, 10, OrderStatus.PENDING, 0));
+        preTradeRisk.onChange(order(2, OrderSide.SELL, 1, 10, OrderStatus.PENDING, 0));
+
+        // When & Then
+        assertThrows(RiskLimitExceededException.class,
+                () -> preTradeRisk.reserve(order(0, OrderSide.BUY, 1, 10, null, 0)));
+        assertEquals(1.0, meterRegistry.counter("orders.risk.rejections", "limit", "open-orders").count());
+    }
+
+    @Test
+    public void testShallAddBuysAndSellsToGrossExposure() {
+        // Given
+        preTradeRisk.onChange(order(1, OrderSide.BUY, 100, 10, OrderStatus.PENDING, 0));
+
+        // When & Then
+        assertThrows(RiskLimitExceededException.class,
+                () -> preTradeRisk.reserve(order(0, OrderSide.SELL, 60, 10, null, 0)));
+        // the open order taken by the rejected one is given back
+        assertEquals(1, preTradeRisk.openOrders(1L));
+        assertEquals(FixedPoint.of(1000), preTradeRisk.grossExposure(1L, "KCHOL"));
+        assertEquals(1.0, meterRegistry.counter("orders.risk.rejections", "limit", "gross-exposure").count());
+    }
+
+    @Test
+    public void testShallFollowFillsAndCancels() throws Exception {
+        // Given
+        Order order = order(1, OrderSide.BUY, 100, 10, OrderStatus.PENDING, 0);
+        preTradeRisk.onChange(order);
+
+        // When
+        order.fill(40);
+        order.setVersion(1);
+        preTradeRisk.onChange(order);
+
+        // Then
+        assertEquals(FixedPoint.of(600), preTradeRisk.grossExposure(1L, "KCHOL"));
+        preTradeRisk.reserve(order(0, OrderSide.SELL, 90, 10, null, 0));
+
+        // When
+        order.setOrderStatus(OrderStatus.CANCELLED);
+        order.setVersion(2);
+        preTradeRisk.onChange(order);
+
+        // Then
+        assertEquals(0, preTradeRisk.openOrders(1L));
+        assertEquals(0, preTradeRisk.grossExposure(1L, "KCHOL"));
+    }
+
+    @Test
+    public void testShallDropChangesArrivingOutOfOrder() {
+        // Given
+        preTradeRisk.onChange(order(1, OrderSide.BUY, 100, 10, OrderStatus.CANCELLED, 2));
+
+        // When
+        preTradeRisk.onChange(order(1, OrderSide.BUY, 100, 10, OrderStatus.PENDING, 1));
+
+        // Then
+        assertEquals(0, preTradeRisk.openOrders(1L));
+        assertEquals(0, preTradeRisk.grossExposure(1L, "KCHOL"));
+    }
+
+    @Test
+    public void testShallRebuildFromPendingOrders() {
+        // Given
+        Order pending = order(1, OrderSide.SELL, 10, 10, OrderStatus.PENDING, 3);
+        Mockito.when(orderRepo.findByOrderStatus(OrderStatus.PENDING)).thenReturn(List.of(pending));
+        preTradeRisk.onChange(pending);
+
+        // When
+        preTradeRisk.rebuild();
+
+        // Then
+        assertEquals(1, preTradeRisk.openOrders(1L));
+        assertEquals(FixedPoint.of(100), preTradeRisk.grossExposure(1L, "KCHOL"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.orders.service;
+
+import com.example.demo.orders.model.Order;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientOrderIdCacheTest {
+
+    private static Order order(long id, long customerId, String clientOrderId) {
+        return Order.builder()
+                .id(id)
+                .customerId(customerId)
+                .clientOrderId(clientOrderId)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(100)
+                .price(FixedPoint.of(10))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+    }
+
+    @Test
+    public void testShallFindRememberedOrderOfTheSameCustomerOnly() {
+        // Given
+        ClientOrderIdCache cache = new ClientOrderIdCache(10);
+        Order order = order(1, 1, "basket-1");
+
+        // When
+        cache.remember(order);
+
+        // Then
+        assertSame(order, cache.find(1, "basket-1").orElseThrow());
+        assertTrue(cache.find(2, "basket-1").isEmpty());
+        assertTrue(cache.find(1, "basket-2").isEmpty());
+    }
+
+    @Test
+    public void testShallEvictLeastRecentlyUsedId() {
+        // Given
+        ClientOrderIdCache cache = new ClientOrderIdCache(2);
+        cache.remember(order(1, 1, "a"));
+        cache.remember(order(2, 1, "b"));
+
+        // When
+        cache.find(1, "a");
+        cache.remember(order(3, 1, "c"));
+
+        // Then
+        assertTrue(cache.find(1, "a").isPresent());
+        assertTrue(cache.find(1, "b").isEmpty());
+        assertTrue(cache.find(1, "c").isPresent());
+    }
+
+    @Test
+    public void testShallIgnoreOrdersWithoutClientOrderId() {
+        // Given
+        ClientOrderIdCache cache = new ClientOrderIdCache(2);
+
+        // When
+        cache.remember(order(1, 1, null));
+
+        // Then
+        assertTrue(cache.find(1, null).isEmpty());
+    }
+}
@@ -4,6 +4,7 @@ import com.example.demo.orders.model.Order;
 import com.example.demo.orders.model.OrderDto;
 import com.example.demo.orders.model.OrderSide;
 import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.utils.FixedPoint;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,7 +36,7 @@ class OrderMapperTest {
                 "KCHOL",
                 OrderSide.SELL,
                 123,
-                473.12);
+                FixedPoint.of(473.12));
         Order order = orderMapper.toOrder(orderDto);
 
         compareEquals(orderDto, order);
@@ -48,7 +49,7 @@ class OrderMapperTest {
                 "KCHOL",
                 OrderSide.BUY,
                 10,
-                473.12);
+                FixedPoint.of(473.12));
         Order order = orderMapper.toOrder(orderDto);
 
         compareEquals(orderDto, order);
@@ -2,16 +2,30 @@ package com.example.demo.orders.service;
 
 import com.example.demo.assets.AssetRepo;
 import com.example.demo.assets.model.Asset;
+import com.example.demo.assets.model.AssetBalance;
 import com.example.demo.assets.model.AssetNames;
 import com.example.demo.assets.service.AssetNotFoundException;
+import com.example.demo.assets.service.AssetSymbols;
+import com.example.demo.assets.service.BalanceCache;
 import com.example.demo.assets.service.NotEnoughAssetException;
 import com.example.demo.assets.service.NotEnoughMoneyException;
 import com.example.demo.customers.service.CustomerNotFoundException;
+import com.example.demo.orders.ArchivedOrderRepo;
+import com.example.demo.orders.ExecutionRepo;
 import com.example.demo.orders.OrderRepo;
+import com.example.demo.orders.matching.MatchingEngine;
+import com.example.demo.orders.model.BulkOrderResult;
 import com.example.demo.orders.model.Order;
 import com.example.demo.orders.model.OrderDto;
 import com.example.demo.orders.model.OrderSide;
 import com.example.demo.orders.model.OrderStatus;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.orders.model.OrderView;
+import com.example.demo.orders.risk.PreTradeRisk;
+import com.example.demo.orders.risk.RiskLimitExceededException;
+import com.example.demo.paging.KeysetPage;
+import com.example.demo.paging.PageCursor;
+import com.example.demo.utils.FixedPoint;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -19,6 +33,7 @@ import org.mockito.*;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.times;
@@ -32,12 +47,33 @@ class OrderServiceTest {
     @Mock
     OrderRepo orderRepo;
 
+    @Mock
+    ArchivedOrderRepo archivedOrderRepo;
+
     @Mock
     AssetRepo assetRepo;
 
+    @Mock
+    ExecutionRepo executionRepo;
+
     @Mock
     OrderMapper orderMapper;
 
+    @Mock
+    MatchingEngine matchingEngine;
+
+    @Mock
+    ClientOrderIdCache clientOrderIds;
+
+    @Mock
+    BalanceCache balanceCache;
+
+    @Mock
+    PreTradeRisk preTradeRisk;
+
+    @Mock
+    AssetSymbols assetSymbols;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -47,13 +83,13 @@ class OrderServiceTest {
     public void testShallCreateBuyOrder() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736));
 
         Order buyKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -64,7 +100,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -75,16 +111,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .usableSize(100_000)
-                .size(100_000)
+                .usableSize(FixedPoint.of(100_000))
+                .size(FixedPoint.of(100_000))
                 .build();
 
         Asset savedTryAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(100_000)
-                .usableSize(100_000 - 1.736*100)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000 - 1.736*100))
                 .build();
 
 
@@ -92,13 +128,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(buyKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                AssetNames.TRY.name()
-        )).thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(tryAsset))
-                .thenReturn(savedTryAsset);
+        stubBalanceUpdates(tryAsset);
 
         Mockito.when(orderRepo.save(buyKCHOL))
                 .thenReturn(resultBuyKCHOL);
@@ -117,13 +147,13 @@ class OrderServiceTest {
             fail("shall not throw not enough money exception");
         } catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(savedTryAsset.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(savedTryAsset.getUsableSize(), tryAsset.getUsableSize());
 
         // Then
         assertNotNull(returnValue);
@@ -140,13 +170,13 @@ class OrderServiceTest {
     public void testShallCreateSellOrder() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 100, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 100, FixedPoint.of(1.736));
 
         Order sellKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -157,7 +187,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -168,16 +198,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(150)
-                .size(150)
+                .usableSize(FixedPoint.of(150))
+                .size(FixedPoint.of(150))
                 .build();
 
         Asset savedKCHOLAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(50)
-                .size(150)
+                .usableSize(FixedPoint.of(50))
+                .size(FixedPoint.of(150))
                 .build();
 
 
@@ -185,13 +215,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(sellKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                "KCHOL"
-        )).thenReturn(Optional.of(kcholAsset));
-
-        Mockito.when(assetRepo.save(kcholAsset))
-                .thenReturn(savedKCHOLAsset);
+        stubBalanceUpdates(kcholAsset);
 
         Mockito.when(orderRepo.save(sellKCHOL))
                 .thenReturn(resultSELLKCHOL);
@@ -207,13 +231,13 @@ class OrderServiceTest {
             fail("shall not throw not enough money exception");
         } catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(savedKCHOLAsset.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(savedKCHOLAsset.getUsableSize(), kcholAsset.getUsableSize());
 
 
         // Then
@@ -231,13 +255,13 @@ class OrderServiceTest {
     public void testShallThrowNotEnoughAssetException() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 11, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 11, FixedPoint.of(1.736));
 
         Order sellKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -248,7 +272,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -259,16 +283,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(10)
-                .size(150)
+                .usableSize(FixedPoint.of(10))
+                .size(FixedPoint.of(150))
                 .build();
 
         Asset savedKCHOLAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(10)
-                .size(150)
+                .usableSize(FixedPoint.of(10))
+                .size(FixedPoint.of(150))
                 .build();
 
 
@@ -276,13 +300,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(sellKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                "KCHOL"
-        )).thenReturn(Optional.of(kcholAsset));
-
-        Mockito.when(assetRepo.save(kcholAsset))
-                .thenReturn(savedKCHOLAsset);
+        stubBalanceUpdates(kcholAsset);
 
         Mockito.when(orderRepo.save(sellKCHOL))
                 .thenReturn(resultSELLKCHOL);
@@ -299,13 +317,13 @@ class OrderServiceTest {
     public void testShallNotThrowNotEnoughAssetExceptionOnBoundary() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 10, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 10, FixedPoint.of(1.736));
 
         Order sellKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(10)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -316,7 +334,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(10)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -327,16 +345,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(10)
-                .size(150)
+                .usableSize(FixedPoint.of(10))
+                .size(FixedPoint.of(150))
                 .build();
 
         Asset savedKCHOLAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(0)
-                .size(150)
+                .usableSize(FixedPoint.of(0))
+                .size(FixedPoint.of(150))
                 .build();
 
 
@@ -344,13 +362,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(sellKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                "KCHOL"
-        )).thenReturn(Optional.of(kcholAsset));
-
-        Mockito.when(assetRepo.save(kcholAsset))
-                .thenReturn(savedKCHOLAsset);
+        stubBalanceUpdates(kcholAsset);
 
         Mockito.when(orderRepo.save(sellKCHOL))
                 .thenReturn(resultSELLKCHOL);
@@ -367,13 +379,13 @@ class OrderServiceTest {
             fail("shall not throw not enough money exception");
         }catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(savedKCHOLAsset.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(savedKCHOLAsset.getUsableSize(), kcholAsset.getUsableSize());
 
         // Then
         assertNotNull(returnValue);
@@ -390,13 +402,13 @@ class OrderServiceTest {
     public void testShallThrowNotEnoughMoneyExceptionWhenSo() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100_000, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100_000, FixedPoint.of(1.736));
 
         Order buyKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100_000)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -407,7 +419,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100_000)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -418,16 +430,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .usableSize(100_000)
-                .size(100_000)
+                .usableSize(FixedPoint.of(100_000))
+                .size(FixedPoint.of(100_000))
                 .build();
 
         Asset savedTryAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(100_000)
-                .usableSize(100_000 - 1.736*100_000)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000 - 1.736*100_000))
                 .build();
 
 
@@ -435,13 +447,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(buyKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                AssetNames.TRY.name()
-        )).thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(tryAsset))
-                .thenReturn(savedTryAsset);
+        stubBalanceUpdates(tryAsset);
 
         Mockito.when(orderRepo.save(buyKCHOL))
                 .thenReturn(resultBuyKCHOL);
@@ -461,24 +467,29 @@ class OrderServiceTest {
             notEnoughMoneyExcThrown = true;
         }catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
         // Then
         assertNull(returnValue);
         assertTrue(notEnoughMoneyExcThrown);
+        // the balance read back is cached for the pre-trade check
+        verify(balanceCache, times(1)).onRead(customerId, AssetNames.TRY.name(),
+                new AssetBalance(FixedPoint.of(100_000), 0));
     }
 
     @Test
     public void testShallThrowNotEnoughMoneyExceptionWhenJustEqual() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100_000, 1);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100_000, FixedPoint.of(1));
 
         Order buyKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100_000)
-                .price(1)
+                .price(FixedPoint.of(1))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -489,7 +500,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100_000)
-                .price(1)
+                .price(FixedPoint.of(1))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -500,16 +511,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .usableSize(100_000)
-                .size(100_000)
+                .usableSize(FixedPoint.of(100_000))
+                .size(FixedPoint.of(100_000))
                 .build();
 
         Asset savedTryAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(100_000)
-                .usableSize(100_000 - 1.0*100_000)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000 - 1.0*100_000))
                 .build();
 
 
@@ -517,13 +528,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(buyKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                AssetNames.TRY.name()
-        )).thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(tryAsset))
-                .thenReturn(savedTryAsset);
+        stubBalanceUpdates(tryAsset);
 
         Mockito.when(orderRepo.save(buyKCHOL))
                 .thenReturn(resultBuyKCHOL);
@@ -543,6 +548,8 @@ class OrderServiceTest {
             fail("shall not throw not enough money exception.");
         }catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
         // Then
@@ -560,13 +567,13 @@ class OrderServiceTest {
     public void testShallThrowAssetNotFoundExceptionWhenSo() {
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100_000, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100_000, FixedPoint.of(1.736));
 
         Order buyKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100_000)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -577,7 +584,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100_000)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -588,7 +595,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(buyKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
+        Mockito.when(assetRepo.findBalance(
                 customerId,
                 AssetNames.TRY.name()
         )).thenReturn(Optional.empty());
@@ -608,6 +615,8 @@ class OrderServiceTest {
             fail("shall not throw not enough money exception.");
         }catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
         // Then
@@ -624,7 +633,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -635,7 +644,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.CANCELLED)
@@ -646,16 +655,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(100_000)
-                .usableSize(100_000 - 1.736*100)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000 - 1.736*100))
                 .build();
 
         Asset savedTryAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(100_000)
-                .usableSize(100_000)
+                .size(FixedPoint.of(100_000))
+                .usableSize(FixedPoint.of(100_000))
                 .build();
 
 
@@ -663,13 +672,7 @@ class OrderServiceTest {
         Mockito.when(orderRepo.findByIdForUpdate(buyKCHOL.getId()))
                 .thenReturn(Optional.of(buyKCHOL));
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                AssetNames.TRY.name()
-        )).thenReturn(Optional.of(tryAsset));
-
-        Mockito.when(assetRepo.save(tryAsset))
-                .thenReturn(savedTryAsset);
+        stubBalanceUpdates(tryAsset);
 
         Mockito.when(orderRepo.save(buyKCHOL))
                 .thenReturn(resultBuyKCHOL);
@@ -692,11 +695,9 @@ class OrderServiceTest {
             fail("shall not throw AssetNotFoundException");
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(savedTryAsset.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(savedTryAsset.getUsableSize(), tryAsset.getUsableSize());
 
         // Then
         assertNotNull(returnValue);
@@ -716,13 +717,13 @@ class OrderServiceTest {
 
         // Given
         var customerId = 1L;
-        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 100, 1.736);
+        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 100, FixedPoint.of(1.736));
 
         Order sellKCHOL = Order.builder()
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -733,7 +734,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.SELL)
                 .size(100)
-                .price(1.736)
+                .price(FixedPoint.of(1.736))
                 .id(2)
                 .customerId(customerId)
                 .orderStatus(OrderStatus.PENDING)
@@ -744,16 +745,16 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(150)
-                .size(150)
+                .usableSize(FixedPoint.of(150))
+                .size(FixedPoint.of(150))
                 .build();
 
         Asset savedKCHOLAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .usableSize(50)
-                .size(150)
+                .usableSize(FixedPoint.of(50))
+                .size(FixedPoint.of(150))
                 .build();
 
 
@@ -761,13 +762,7 @@ class OrderServiceTest {
         Mockito.when(orderMapper.toOrder(orderDto))
                 .thenReturn(sellKCHOL);
 
-        Mockito.when(assetRepo.findByCustomerIdAndAssetName(
-                customerId,
-                "KCHOL"
-        )).thenReturn(Optional.of(kcholAsset));
-
-        Mockito.when(assetRepo.save(kcholAsset))
-                .thenReturn(savedKCHOLAsset);
+        stubBalanceUpdates(kcholAsset);
 
         Mockito.when(orderRepo.save(sellKCHOL))
                 .thenReturn(resultSELLKCHOL);
@@ -783,13 +778,13 @@ class OrderServiceTest {
             fail("shall not throw NotEnoughMoneyException");
         } catch (NotEnoughAssetException e) {
             fail("shall not throw NotEnoughAssetException");
+        } catch (RiskLimitExceededException e) {
+            fail("shall not throw RiskLimitExceededException");
         }
 
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepo).save(assetCaptor.capture());
-        Asset updatedAsset = assetCaptor.getValue();
-        assertNotNull(updatedAsset);
-        assertEquals(savedKCHOLAsset.getUsableSize(), updatedAsset.getUsableSize());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        assertEquals(savedKCHOLAsset.getUsableSize(), kcholAsset.getUsableSize());
 
 
         // Then
@@ -819,7 +814,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(10)
-                .price(1.733)
+                .price(FixedPoint.of(1.733))
                 .orderStatus(OrderStatus.PENDING)
                 .createDate(new Date(System.currentTimeMillis()))
                 .build();
@@ -830,7 +825,7 @@ class OrderServiceTest {
                 .assetName("KCHOL")
                 .orderSide(OrderSide.BUY)
                 .size(10)
-                .price(1.733)
+                .price(FixedPoint.of(1.733))
                 .orderStatus(OrderStatus.MATCHED)
                 .createDate(new Date(System.currentTimeMillis()))
                 .build();
@@ -841,7 +836,7 @@ class OrderServiceTest {
                 .assetName("SASA")
                 .orderSide(OrderSide.BUY)
                 .size(100)
-                .price(1)
+                .price(FixedPoint.of(1))
                 .orderStatus(OrderStatus.PENDING)
                 .createDate(new Date(System.currentTimeMillis()))
                 .build();
@@ -850,31 +845,31 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(10_000)
-                .usableSize(10_000 - (1.733 * 10) - (1.0 * 100))
+                .size(FixedPoint.of(10_000))
+                .usableSize(FixedPoint.of(10_000 - (1.733 * 10) - (1.0 * 100)))
                 .build();
 
         Asset savedTryAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(10_000 - (1.733 * 10))
-                .usableSize(10_000 - (1.733 * 10) - (1.0 * 100))
+                .size(FixedPoint.of(10_000 - (1.733 * 10)))
+                .usableSize(FixedPoint.of(10_000 - (1.733 * 10) - (1.0 * 100)))
                 .build();
 
         Asset newKCHOLAsset = Asset.builder()
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .size(10)
-                .usableSize(10)
+                .size(FixedPoint.of(10))
+                .usableSize(FixedPoint.of(10))
                 .build();
 
         Asset savedKCHOLAsset = Asset.builder()
                 .id(5)
                 .customerId(customerId)
                 .assetName("KCHOL")
-                .size(10)
-                .usableSize(10)
+                .size(FixedPoint.of(10))
+                .usableSize(FixedPoint.of(10))
                 .build();
 
         // Mock the Calls
@@ -952,7 +947,7 @@ class OrderServiceTest {
                 .assetName("ISYAT")
                 .orderSide(OrderSide.SELL)
                 .size(1_000)
-                .price(9.35)
+                .price(FixedPoint.of(9.35))
                 .orderStatus(OrderStatus.PENDING)
                 .createDate(new Date(System.currentTimeMillis()))
                 .build();
@@ -963,7 +958,7 @@ class OrderServiceTest {
                 .assetName("ISYAT")
                 .orderSide(OrderSide.SELL)
                 .size(1_000)
-                .price(9.35)
+                .price(FixedPoint.of(9.35))
                 .orderStatus(OrderStatus.MATCHED)
                 .createDate(new Date(System.currentTimeMillis()))
                 .build();
@@ -972,32 +967,32 @@ class OrderServiceTest {
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(10_000)
-                .usableSize(10_000 - (1.733 * 10) - (1.0 * 100))
+                .size(FixedPoint.of(10_000))
+                .usableSize(FixedPoint.of(10_000 - (1.733 * 10) - (1.0 * 100)))
                 .build();
 
         Asset savedTryAsset = Asset.builder()
                 .id(1)
                 .customerId(customerId)
                 .assetName(AssetNames.TRY.name())
-                .size(10_000 + (9.35 * 1_000))
-                .usableSize(10_000 - (1.733 * 10) - (1.0 * 100) + (9.35 * 1_000))
+                .size(FixedPoint.of(10_000 + (9.35 * 1_000)))
+                .usableSize(FixedPoint.of(10_000 - (1.733 * 10) - (1.0 * 100) + (9.35 * 1_000)))
                 .build();
 
         Asset isyatAsset = Asset.builder()
                 .id(2L)
                 .customerId(customerId)
                 .assetName("ISYAT")
-                .size(10_000)
-                .usableSize(9_000)
+                .size(FixedPoint.of(10_000))
+                .usableSize(FixedPoint.of(9_000))
                 .build();
 
         Asset savedISYATAsset = Asset.builder()
                 .id(2L)
                 .customerId(customerId)
                 .assetName("ISYAT")
-                .size(9_000)
-                .usableSize(9_000)
+                .size(FixedPoint.of(9_000))
+                .usableSize(FixedPoint.of(9_000))
                 .build();
 
         // Mock the Calls
@@ -1061,4 +1056,570 @@ class OrderServiceTest {
         assertEquals(savedSellISYAT.getCustomerId(), returnValue.getCustomerId());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testShallMatchOrdersInBatch() {
+        // Given
+        // Ömer Önder buys KCHOL, Defne sells KCHOL
+        Order buyKCHOL = Order.builder()
+                .id(1)
+                .customerId(1L)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(10)
+                .price(FixedPoint.of(2))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Order sellKCHOL = Order.builder()
+                .id(2)
+                .customerId(2L)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.SELL)
+                .size(5)
+                .price(FixedPoint.of(3))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Asset omerTRY = Asset.builder()
+                .id(1)
+                .customerId(1L)
+                .assetName(AssetNames.TRY.name())
+                .size(FixedPoint.of(1_000))
+                .usableSize(FixedPoint.of(1_000 - 20))
+                .build();
+
+        Asset defneTRY = Asset.builder()
+                .id(2)
+                .customerId(2L)
+                .assetName(AssetNames.TRY.name())
+                .size(FixedPoint.of(1_000))
+                .usableSize(FixedPoint.of(1_000))
+                .build();
+
+        Asset defneKCHOL = Asset.builder()
+                .id(3)
+                .customerId(2L)
+                .assetName("KCHOL")
+                .size(FixedPoint.of(50))
+                .usableSize(FixedPoint.of(45))
+                .build();
+
+        List<Order> orders = List.of(buyKCHOL, sellKCHOL);
+
+        // Mock the Calls
+        Mockito.when(orderRepo.findAllByIdForUpdate(Set.of(1L, 2L)))
+                .thenReturn(orders);
+
+        Mockito.when(assetRepo.lockTry(1L))
+                .thenReturn(Optional.of(omerTRY));
+
+        Mockito.when(assetRepo.lockTry(2L))
+                .thenReturn(Optional.of(defneTRY));
+
+        Mockito.when(assetRepo.findAllByCustomerIdAndAssetNamesForUpdate(
+                1L, Set.of("KCHOL")))
+                .thenReturn(List.of());
+
+        Mockito.when(assetRepo.findAllByCustomerIdAndAssetNamesForUpdate(
+                2L, Set.of("KCHOL")))
+                .thenReturn(List.of(defneKCHOL));
+
+        Mockito.when(orderRepo.saveAll(orders))
+                .thenReturn(orders);
+
+        // When
+        List<Order> returnValue = null;
+        try {
+            returnValue = orderService.matchOrders(List.of(2L, 1L, 2L));
+        } catch (OrderNotFoundException e) {
+            fail("shall not throw OrderNotFoundException");
+        } catch (OrderStatusIsNotValidException e) {
+            fail("shall not throw OrderStatusIsNotValidException");
+        } catch (AssetNotFoundException e) {
+            fail("shall not throw AssetNotFoundException");
+        }
+
+        // Then
+        assertNotNull(returnValue);
+        assertEquals(2, returnValue.size());
+        assertEquals(OrderStatus.MATCHED, buyKCHOL.getOrderStatus());
+        assertEquals(OrderStatus.MATCHED, sellKCHOL.getOrderStatus());
+
+        ArgumentCaptor<List<Asset>> assetCaptor = ArgumentCaptor.forClass(List.class);
+        verify(assetRepo, times(1)).saveAll(assetCaptor.capture());
+        List<Asset> savedAssets = assetCaptor.getValue();
+        assertEquals(4, savedAssets.size());
+
+        assertEquals(FixedPoint.of(1_000 - 20), omerTRY.getSize());
+        assertEquals(FixedPoint.of(1_000 - 20), omerTRY.getUsableSize());
+        Asset omerKCHOL = savedAssets.stream()
+                .filter(asset -> asset.getCustomerId() == 1L && "KCHOL".equals(asset.getAssetName()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(FixedPoint.of(10), omerKCHOL.getSize());
+        assertEquals(FixedPoint.of(10), omerKCHOL.getUsableSize());
+
+        assertEquals(FixedPoint.of(1_000 + 15), defneTRY.getSize());
+        assertEquals(FixedPoint.of(1_000 + 15), defneTRY.getUsableSize());
+        assertEquals(FixedPoint.of(45), defneKCHOL.getSize());
+        assertEquals(FixedPoint.of(45), defneKCHOL.getUsableSize());
+
+        // TRY of each customer is locked before its traded assets
+        InOrder locks = Mockito.inOrder(assetRepo);
+        locks.verify(assetRepo).lockTry(1L);
+        locks.verify(assetRepo).findAllByCustomerIdAndAssetNamesForUpdate(1L, Set.of("KCHOL"));
+        locks.verify(assetRepo).lockTry(2L);
+        locks.verify(assetRepo).findAllByCustomerIdAndAssetNamesForUpdate(2L, Set.of("KCHOL"));
+        verify(matchingEngine, times(2)).remove(Mockito.any(Order.class));
+    }
+
+    @Test
+    public void testShallNotMatchBatchWithNonPendingOrder() {
+        // Given
+        Order cancelledKCHOL = Order.builder()
+                .id(1)
+                .customerId(1L)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(10)
+                .price(FixedPoint.of(2))
+                .orderStatus(OrderStatus.CANCELLED)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        // Mock the Calls
+        Mockito.when(orderRepo.findAllByIdForUpdate(Set.of(1L)))
+                .thenReturn(List.of(cancelledKCHOL));
+
+        // When & Then
+        assertThrows(OrderStatusIsNotValidException.class,
+                () -> orderService.matchOrders(List.of(1L)),
+                "should have thrown OrderStatusIsNotValidException");
+        verify(assetRepo, times(0)).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    public void testShallNotMatchBatchWithMissingOrder() {
+        // Mock the Calls
+        Mockito.when(orderRepo.findAllByIdForUpdate(Set.of(1L, 7L)))
+                .thenReturn(List.of());
+
+        // When & Then
+        assertThrows(OrderNotFoundException.class,
+                () -> orderService.matchOrders(List.of(1L, 7L)),
+                "should have thrown OrderNotFoundException");
+    }
+
+    @Test
+    public void testShallHandImmediateOrdersToTheBook() throws Exception {
+        // Given
+        var customerId = 1L;
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736), OrderType.IOC);
+
+        Order iocKCHOL = Order.builder()
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .orderType(OrderType.IOC)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Order expiredKCHOL = Order.builder()
+                .id(2)
+                .customerId(customerId)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .orderType(OrderType.IOC)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.EXPIRED)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        // Mock the Calls
+        Mockito.when(orderMapper.toOrder(orderDto))
+                .thenReturn(iocKCHOL);
+        Mockito.when(matchingEngine.executeImmediately(iocKCHOL))
+                .thenReturn(expiredKCHOL);
+
+        // When
+        Order result = orderService.executeImmediately(customerId, orderDto);
+
+        // Then
+        assertEquals(OrderStatus.EXPIRED, result.getOrderStatus());
+        assertEquals(customerId, iocKCHOL.getCustomerId());
+        verify(matchingEngine, times(1)).executeImmediately(iocKCHOL);
+        verify(assetRepo, times(0)).save(Mockito.any());
+        verify(orderRepo, times(0)).save(Mockito.any());
+    }
+
+    @Test
+    public void testShallNotExecuteImmediateOrdersInTransaction() throws Exception {
+        // Given
+        var customerId = 1L;
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736), OrderType.MARKET);
+
+        Order marketKCHOL = Order.builder()
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .orderType(OrderType.MARKET)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        // Mock the Calls
+        Mockito.when(orderMapper.toOrder(orderDto))
+                .thenReturn(marketKCHOL);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.createOrder(customerId, orderDto),
+                "should have thrown IllegalArgumentException");
+        verify(matchingEngine, times(0)).executeImmediately(Mockito.any());
+        verify(preTradeRisk, times(0)).reserve(Mockito.any());
+    }
+
+    @Test
+    public void testShallReleaseOnlyUnfilledPartOnCancel() throws Exception {
+        // Given
+        var customerId = 1L;
+
+        Order partiallyFilledSell = Order.builder()
+                .id(2)
+                .customerId(customerId)
+                .assetName("KCHOL")
+                .orderSide(OrderSide.SELL)
+                .size(100)
+                .filledSize(60)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Asset kcholAsset = Asset.builder()
+                .id(1)
+                .customerId(customerId)
+                .assetName("KCHOL")
+                .usableSize(FixedPoint.of(50))
+                .size(FixedPoint.of(90))
+                .build();
+
+        // Mock the Calls
+        Mockito.when(orderRepo.findByIdForUpdate(2L))
+                .thenReturn(Optional.of(partiallyFilledSell));
+        stubBalanceUpdates(kcholAsset);
+        Mockito.when(orderRepo.save(partiallyFilledSell))
+                .thenReturn(partiallyFilledSell);
+
+        // When
+        Order cancelledOrder = orderService.cancelOrder(2L, customerId);
+
+        // Then
+        assertEquals(OrderStatus.CANCELLED, cancelledOrder.getOrderStatus());
+        assertEquals(60, cancelledOrder.getFilledSize());
+        // 60 of 100 are already sold, only 40 become usable again
+        assertEquals(FixedPoint.of(90), kcholAsset.getUsableSize());
+        assertEquals(FixedPoint.of(90), kcholAsset.getSize());
+        verify(matchingEngine, times(1)).remove(partiallyFilledSell);
+    }
+
+    @Test
+    public void testShallAcceptAndRejectBulkOrdersIndividually() {
+        // Given
+        var customerId = 1L;
+        var buy5 = new OrderDto("KCHOL", OrderSide.BUY, 5, FixedPoint.of(100));
+        var buy10 = new OrderDto("KCHOL", OrderSide.BUY, 10, FixedPoint.of(100));
+        var sell50 = new OrderDto("KCHOL", OrderSide.SELL, 50, FixedPoint.of(120));
+        var ioc = new OrderDto("KCHOL", OrderSide.BUY, 1, FixedPoint.of(100), OrderType.IOC);
+        List<OrderDto> basket = List.of(buy5, buy10, sell50, ioc);
+
+        Asset tryAsset = Asset.builder()
+                .id(1)
+                .customerId(customerId)
+                .assetName(AssetNames.TRY.name())
+                .size(FixedPoint.of(1_000))
+                .usableSize(FixedPoint.of(1_000))
+                .build();
+
+        Asset kcholAsset = Asset.builder()
+                .id(2)
+                .customerId(customerId)
+                .assetName("KCHOL")
+                .size(FixedPoint.of(100))
+                .usableSize(FixedPoint.of(100))
+                .build();
+
+        // Mock the Calls
+        for (OrderDto dto : basket) {
+            Mockito.when(orderMapper.toOrder(dto)).thenReturn(Order.builder()
+                    .assetName(dto.assetName())
+                    .orderSide(dto.orderSide())
+                    .orderType(dto.orderType())
+                    .size(dto.size())
+                    .price(dto.price())
+                    .orderStatus(OrderStatus.PENDING)
+                    .createDate(new Date(System.currentTimeMillis()))
+                    .build());
+        }
+        Mockito.when(assetRepo.findAllByCustomerIdAndAssetNamesForUpdate(
+                customerId, Set.of(AssetNames.TRY.name(), "KCHOL")))
+                .thenReturn(List.of(tryAsset, kcholAsset));
+        Mockito.when(orderRepo.saveAll(Mockito.anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BulkOrderResult result = orderService.createOrders(customerId, basket);
+
+        // Then
+        assertEquals(2, result.accepted().size());
+        assertEquals(2, result.rejected().size());
+        assertEquals(1, result.rejected().get(0).index());
+        assertEquals("Not Enough usableSize(TRY)", result.rejected().get(0).reason());
+        assertEquals(3, result.rejected().get(1).index());
+        assertEquals(FixedPoint.of(500), tryAsset.getUsableSize());
+        assertEquals(FixedPoint.of(50), kcholAsset.getUsableSize());
+        verify(assetRepo, times(1)).findAllByCustomerIdAndAssetNamesForUpdate(
+                Mockito.anyLong(), Mockito.anyCollection());
+        verify(assetRepo, times(0)).findByCustomerIdAndAssetName(Mockito.anyLong(), Mockito.anyString());
+        verify(matchingEngine, times(2)).submit(Mockito.any(Order.class));
+    }
+
+    @Test
+    public void testShallReserveRiskOnlyForFundedBulkOrders() throws Exception {
+        // Given
+        var customerId = 1L;
+        var buy10 = new OrderDto("KCHOL", OrderSide.BUY, 10, FixedPoint.of(100));
+        var buy5 = new OrderDto("KCHOL", OrderSide.BUY, 5, FixedPoint.of(100));
+        var sell50 = new OrderDto("KCHOL", OrderSide.SELL, 50, FixedPoint.of(120));
+        List<OrderDto> basket = List.of(buy10, buy5, sell50);
+
+        Asset tryAsset = Asset.builder()
+                .id(1)
+                .customerId(customerId)
+                .assetName(AssetNames.TRY.name())
+                .size(FixedPoint.of(500))
+                .usableSize(FixedPoint.of(500))
+                .build();
+
+        Asset kcholAsset = Asset.builder()
+                .id(2)
+                .customerId(customerId)
+                .assetName("KCHOL")
+                .size(FixedPoint.of(100))
+                .usableSize(FixedPoint.of(100))
+                .build();
+
+        // Mock the Calls
+        for (OrderDto dto : basket) {
+            Mockito.when(orderMapper.toOrder(dto)).thenReturn(Order.builder()
+                    .assetName(dto.assetName())
+                    .orderSide(dto.orderSide())
+                    .orderType(dto.orderType())
+                    .size(dto.size())
+                    .price(dto.price())
+                    .orderStatus(OrderStatus.PENDING)
+                    .createDate(new Date(System.currentTimeMillis()))
+                    .build());
+        }
+        Mockito.when(assetRepo.findAllByCustomerIdAndAssetNamesForUpdate(
+                customerId, Set.of(AssetNames.TRY.name(), "KCHOL")))
+                .thenReturn(List.of(tryAsset, kcholAsset));
+        Mockito.doThrow(new RiskLimitExceededException())
+                .when(preTradeRisk).reserve(Mockito.argThat(order -> order.getOrderSide() == OrderSide.BUY));
+        Mockito.when(orderRepo.saveAll(Mockito.anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BulkOrderResult result = orderService.createOrders(customerId, basket);
+
+        // Then
+        assertEquals(1, result.accepted().size());
+        assertEquals(2, result.rejected().size());
+        assertEquals("Not Enough usableSize(TRY)", result.rejected().get(0).reason());
+        assertEquals("Pre-Trade Risk Limit Exceeded", result.rejected().get(1).reason());
+        // the funds of the order rejected for risk are given back
+        assertEquals(FixedPoint.of(500), tryAsset.getUsableSize());
+        assertEquals(FixedPoint.of(50), kcholAsset.getUsableSize());
+        // the order rejected for funds never reserved risk
+        verify(preTradeRisk, times(2)).reserve(Mockito.any());
+    }
+
+    @Test
+    public void testShallReturnRecentOrderOfRepeatedClientOrderId() throws Exception {
+        // Given
+        var customerId = 1L;
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736), OrderType.LIMIT, "retry-1");
+
+        Order retriedKCHOL = Order.builder()
+                .customerId(customerId)
+                .clientOrderId("retry-1")
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Order originalKCHOL = Order.builder()
+                .id(2)
+                .customerId(customerId)
+                .clientOrderId("retry-1")
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        // Mock the Calls
+        Mockito.when(orderMapper.toOrder(orderDto))
+                .thenReturn(retriedKCHOL);
+        Mockito.when(clientOrderIds.find(customerId, "retry-1"))
+                .thenReturn(Optional.of(originalKCHOL));
+
+        // When
+        Order result = orderService.createOrder(customerId, orderDto);
+
+        // Then
+        assertSame(originalKCHOL, result);
+        verify(assetRepo, times(0)).reserve(Mockito.anyLong(), Mockito.anyString(), Mockito.anyLong());
+        verify(orderRepo, times(0)).save(Mockito.any());
+        verify(matchingEngine, times(0)).submit(Mockito.any());
+    }
+
+    @Test
+    public void testShallNotReserveAgainForStoredClientOrderId() throws Exception {
+        // Given
+        var customerId = 1L;
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736), OrderType.LIMIT, "retry-1");
+
+        Order retriedKCHOL = Order.builder()
+                .customerId(customerId)
+                .clientOrderId("retry-1")
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Order originalKCHOL = Order.builder()
+                .id(2)
+                .customerId(customerId)
+                .clientOrderId("retry-1")
+                .assetName("KCHOL")
+                .orderSide(OrderSide.BUY)
+                .size(100)
+                .price(FixedPoint.of(1.736))
+                .orderStatus(OrderStatus.PENDING)
+                .createDate(new Date(System.currentTimeMillis()))
+                .build();
+
+        Asset tryAsset = Asset.builder()
+                .id(1)
+                .customerId(customerId)
+                .assetName(AssetNames.TRY.name())
+                .usableSize(FixedPoint.of(100_000 - 173.6))
+                .size(FixedPoint.of(100_000))
+                .build();
+
+        // Mock the Calls
+        Mockito.when(orderMapper.toOrder(orderDto))
+                .thenReturn(retriedKCHOL);
+        Mockito.when(clientOrderIds.find(customerId, "retry-1"))
+                .thenReturn(Optional.empty());
+        stubBalanceUpdates(tryAsset);
+        Mockito.when(orderRepo.findByCustomerIdAndClientOrderId(customerId, "retry-1"))
+                .thenReturn(Optional.of(originalKCHOL));
+
+        // When
+        Order result = orderService.createOrder(customerId, orderDto);
+
+        // Then
+        assertSame(originalKCHOL, result);
+        assertEquals(FixedPoint.of(100_000 - 173.6), tryAsset.getUsableSize());
+        verify(assetRepo, times(0)).reserve(Mockito.anyLong(), Mockito.anyString(), Mockito.anyLong());
+        verify(assetRepo, times(0)).save(Mockito.any());
+        verify(orderRepo, times(0)).save(Mockito.any());
+        verify(clientOrderIds, times(1)).remember(originalKCHOL);
+        verify(matchingEngine, times(0)).submit(Mockito.any());
+    }
+
+    @Test
+    public void testShallFindArchivedOrder() {
+        // Given
+        OrderView archivedKCHOL = orderView(7, new Date(1_000), OrderStatus.MATCHED);
+        Mockito.when(orderRepo.findViewById(7L)).thenReturn(Optional.empty());
+        Mockito.when(archivedOrderRepo.findViewById(7L)).thenReturn(Optional.of(archivedKCHOL));
+
+        // When
+        Optional<OrderView> result = orderService.findOrder(1L, 7L);
+
+        // Then
+        assertEquals(Optional.of(archivedKCHOL), result);
+    }
+
+    @Test
+    public void testShallMergeLiveAndArchivedOrdersByDate() {
+        // Given
+        Date startDate = new Date(0);
+        Date endDate = new Date(10_000);
+        OrderView liveKCHOL = orderView(9, new Date(2_000), OrderStatus.PENDING);
+        Mockito.when(orderRepo.findPageBetween(Mockito.eq(1L), Mockito.eq(startDate), Mockito.eq(endDate),
+                        Mockito.eq(startDate), Mockito.eq(0L), Mockito.any()))
+                .thenReturn(List.of(liveKCHOL));
+        Mockito.when(archivedOrderRepo.findPageBetween(Mockito.eq(1L), Mockito.eq(startDate), Mockito.eq(endDate),
+                        Mockito.eq(startDate), Mockito.eq(0L), Mockito.any()))
+                .thenReturn(List.of(orderView(3, new Date(1_000), OrderStatus.MATCHED),
+                        orderView(9, new Date(2_000), OrderStatus.MATCHED),
+                        orderView(12, new Date(3_000), OrderStatus.MATCHED)));
+
+        // When
+        KeysetPage<OrderView> page = orderService.findAllBetween(1L, startDate, endDate, PageCursor.FIRST, 2);
+
+        // Then
+        assertEquals(2, page.items().size());
+        assertEquals(3, page.items().get(0).id());
+        assertSame(liveKCHOL, page.items().get(1));
+        assertNotNull(page.nextCursor());
+    }
+
+    private static OrderView orderView(long id, Date createDate, OrderStatus orderStatus) {
+        return new OrderView(id, 1, "KCHOL", OrderSide.BUY, 10, FixedPoint.of(1.5), 10,
+                orderStatus, OrderType.LIMIT, null, createDate, 0);
+    }
+
+    // Stands in for the guarded updates of AssetBalanceRepo,
+    // applied to the given asset the way the database would.
+    private void stubBalanceUpdates(Asset asset) {
+        long customerId = asset.getCustomerId();
+        String assetName = asset.getAssetName();
+        Mockito.when(assetRepo.findBalance(customerId, assetName))
+                .thenAnswer(invocation -> Optional.of(
+                        new AssetBalance(asset.getUsableSize(), asset.getVersion())));
+        Mockito.when(assetRepo.reserve(Mockito.eq(customerId), Mockito.eq(assetName), Mockito.anyLong()))
+                .thenAnswer(invocation -> {
+                    long amount = invocation.getArgument(2);
+                    if (asset.getUsableSize() < amount) {
+                        return 0;
+                    }
+                    asset.setUsableSize(asset.getUsableSize() - amount);
+                    return 1;
+                });
+        Mockito.when(assetRepo.release(Mockito.eq(customerId), Mockito.eq(assetName), Mockito.anyLong()))
+                .thenAnswer(invocation -> {
+                    long amount = invocation.getArgument(2);
+                    asset.setUsableSize(asset.getUsableSize() + amount);
+                    return 1;
+                });
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.orders.service;
+
+import com.example.demo.assets.service.BalanceCache;
+import com.example.demo.assets.service.NotEnoughAssetException;
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import com.example.demo.orders.model.OrderDto;
+import com.example.demo.orders.model.OrderSide;
+import com.example.demo.orders.model.OrderType;
+import com.example.demo.utils.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PreTradeCheckTest {
+
+    private final BalanceCache balanceCache = Mockito.mock(BalanceCache.class);
+    private final PreTradeCheck preTradeCheck = new PreTradeCheck(balanceCache);
+
+    @Test
+    public void testShallRejectBuyLackingMoney() {
+        // Given
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736));
+        Mockito.when(balanceCache.lacks(1L, "TRY", FixedPoint.of(173.6))).thenReturn(true);
+
+        // When & Then
+        assertThrows(NotEnoughMoneyException.class, () -> preTradeCheck.check(1L, orderDto));
+    }
+
+    @Test
+    public void testShallRejectSellLackingAsset() {
+        // Given
+        var orderDto = new OrderDto("KCHOL", OrderSide.SELL, 10, FixedPoint.of(1.736));
+        Mockito.when(balanceCache.lacks(1L, "KCHOL", FixedPoint.of(10))).thenReturn(true);
+
+        // When & Then
+        assertThrows(NotEnoughAssetException.class, () -> preTradeCheck.check(1L, orderDto));
+    }
+
+    @Test
+    public void testShallLeaveRetriedClientOrderIdToTheService() throws Exception {
+        // Given
+        var orderDto = new OrderDto("KCHOL", OrderSide.BUY, 100, FixedPoint.of(1.736), OrderType.LIMIT, "retry-1");
+        Mockito.when(balanceCache.lacks(Mockito.anyLong(), Mockito.anyString(), Mockito.anyLong())).thenReturn(true);
+
+        // When
+        preTradeCheck.check(1L, orderDto);
+
+        // Then
+        verify(balanceCache, times(0)).lacks(Mockito.anyLong(), Mockito.anyString(), Mockito.anyLong());
+    }
+}
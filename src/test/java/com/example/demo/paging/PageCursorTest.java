@@ -0,0 +1,48 @@
+package com.example.demo.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    public void testShallDecodeWhatItEncoded() throws Exception {
+        // Given
+        PageCursor byId = PageCursor.afterId(42);
+        PageCursor byDate = PageCursor.after(new Date(1_700_000_000_123L), 7);
+
+        // When & Then
+        assertEquals(byId, PageCursor.decode(byId.encode()));
+        assertEquals(byDate, PageCursor.decode(byDate.encode()));
+        assertFalse(byDate.encode().contains("1700000000123"));
+    }
+
+    @Test
+    public void testShallStartFromTheFirstPageWithoutCursor() throws Exception {
+        // When & Then
+        assertEquals(PageCursor.FIRST, PageCursor.decode(null));
+        assertEquals(PageCursor.FIRST, PageCursor.decode(""));
+    }
+
+    @Test
+    public void testShallRejectTamperedCursor() {
+        // When & Then
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("eDp5Og"));
+    }
+
+    @Test
+    public void testShallCapPageSize() {
+        // Given
+        Paging paging = new Paging(100, 1000);
+
+        // When & Then
+        assertEquals(100, paging.pageSize(null));
+        assertEquals(100, paging.pageSize(0));
+        assertEquals(5, paging.pageSize(5));
+        assertEquals(1000, paging.pageSize(1_000_000));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.sharding;
+
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerLocksTest {
+
+    @Test
+    public void testShallRunCallsOfACustomerOneAfterTheOther() {
+        // Given
+        CustomerLocks customerLocks = new CustomerLocks(new SimpleMeterRegistry(), ExecutionMode.STRIPED, 4);
+        List<Integer> balance = new ArrayList<>(List.of(0));
+
+        // When
+        List<CompletableFuture<Void>> deposits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            deposits.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    try {
+                        customerLocks.call(1, () -> balance.set(0, balance.get(0) + 1));
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        deposits.forEach(CompletableFuture::join);
+
+        // Then
+        assertEquals(8_000, balance.get(0));
+    }
+
+    @Test
+    public void testShallRunOnTheCallingThreadAndRecordWaitPerStripe() throws Throwable {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CustomerLocks customerLocks = new CustomerLocks(meterRegistry, ExecutionMode.STRIPED, 4);
+
+        // When
+        Object threadName = customerLocks.call(7, () -> Thread.currentThread().getName());
+
+        // Then
+        assertEquals(Thread.currentThread().getName(), threadName);
+        assertEquals(1, meterRegistry.timer("orders.stripe.lock.wait", "stripe", "3").count());
+        assertEquals(0, meterRegistry.timer("orders.stripe.lock.wait", "stripe", "0").count());
+    }
+
+    @Test
+    public void testNestedCallForAnotherCustomerShallNotTakeASecondStripe() throws Throwable {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CustomerLocks customerLocks = new CustomerLocks(meterRegistry, ExecutionMode.STRIPED, 4);
+
+        // When
+        Object result = customerLocks.call(7, () -> customerLocks.call(8, () -> "nested"));
+
+        // Then
+        assertEquals("nested", result);
+        assertEquals(0, meterRegistry.timer("orders.stripe.lock.wait", "stripe", "0").count());
+    }
+
+    @Test
+    public void testShallThrowExceptionOfTheCallAsItIs() {
+        // Given
+        CustomerLocks customerLocks = new CustomerLocks(new SimpleMeterRegistry(), ExecutionMode.STRIPED, 2);
+
+        // When & Then
+        assertThrows(NotEnoughMoneyException.class,
+                () -> customerLocks.call(1, () -> {
+                    throw new NotEnoughMoneyException();
+                }));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerPermitsTest {
+
+    @Test
+    public void testShallRejectCallsAboveTheCapOfACustomer() throws Throwable {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CustomerPermits customerPermits = new CustomerPermits(meterRegistry, 1, 50);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return customerPermits.call(1, () -> {
+                    holding.countDown();
+                    release.await();
+                    return "first";
+                });
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        holding.await();
+
+        // When & Then
+        assertThrows(CustomerBusyException.class, () -> customerPermits.call(1, () -> "second"));
+        assertEquals("other customer", customerPermits.call(2, () -> "other customer"));
+        release.countDown();
+        assertEquals("first", first.join());
+        assertEquals("third", customerPermits.call(1, () -> "third"));
+        assertEquals(1.0, meterRegistry.counter("orders.customer.permit.rejections").count());
+    }
+
+    @Test
+    public void testShallNotKeepSemaphoresOfIdleCustomers() throws Throwable {
+        // Given
+        CustomerPermits customerPermits = new CustomerPermits(new SimpleMeterRegistry(), 1, 50);
+
+        // When
+        Object result = customerPermits.call(1, () -> {
+            assertEquals(1, customerPermits.activeCustomers());
+            return "done";
+        });
+        assertThrows(IllegalStateException.class, () -> customerPermits.call(2, () -> {
+            throw new IllegalStateException();
+        }));
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(0, customerPermits.activeCustomers());
+    }
+
+    @Test
+    public void testNestedCallShallNotTakeASecondPermit() throws Throwable {
+        // Given
+        CustomerPermits customerPermits = new CustomerPermits(new SimpleMeterRegistry(), 1, 50);
+
+        // When
+        Object result = customerPermits.call(1, () -> customerPermits.call(1, () -> "nested"));
+
+        // Then
+        assertEquals("nested", result);
+    }
+
+    @Test
+    public void testShallNotLimitWithoutACap() throws Throwable {
+        // Given
+        CustomerPermits customerPermits = new CustomerPermits(new SimpleMeterRegistry(), 0, 50);
+
+        // When & Then
+        assertEquals("uncapped", customerPermits.call(1, () -> customerPermits.call(1, () -> "uncapped")));
+    }
+}
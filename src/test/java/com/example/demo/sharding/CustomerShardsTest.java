@@ -0,0 +1,82 @@
+package com.example.demo.sharding;
+
+import com.example.demo.assets.service.NotEnoughMoneyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerShardsTest {
+
+    @Test
+    public void testShallRunCallsOfACustomerOnItsShardThread() throws Throwable {
+        // Given
+        CustomerShards customerShards = new CustomerShards(new SimpleMeterRegistry(), ExecutionMode.SHARDED, 4);
+
+        // When
+        Object first = customerShards.call(7, () -> Thread.currentThread().getName());
+        Object second = customerShards.call(7, () -> Thread.currentThread().getName());
+        Object otherShard = customerShards.call(8, () -> Thread.currentThread().getName());
+
+        // Then
+        assertEquals("customer-shard-3", first);
+        assertEquals(first, second);
+        assertEquals("customer-shard-0", otherShard);
+        customerShards.shutdown();
+    }
+
+    @Test
+    public void testShallRunCallsOfACustomerOneAfterTheOther() throws Throwable {
+        // Given
+        CustomerShards customerShards = new CustomerShards(new SimpleMeterRegistry(), ExecutionMode.SHARDED, 2);
+        List<Integer> balance = new ArrayList<>(List.of(0));
+
+        // When
+        List<CompletableFuture<Void>> deposits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            deposits.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    try {
+                        customerShards.call(1, () -> balance.set(0, balance.get(0) + 1));
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        deposits.forEach(CompletableFuture::join);
+
+        // Then
+        assertEquals(8_000, balance.get(0));
+        customerShards.shutdown();
+    }
+
+    @Test
+    public void testShallThrowExceptionOfTheCallAsItIs() {
+        // Given
+        CustomerShards customerShards = new CustomerShards(new SimpleMeterRegistry(), ExecutionMode.SHARDED, 2);
+
+        // When & Then
+        assertThrows(NotEnoughMoneyException.class,
+                () -> customerShards.call(1, () -> {
+                    throw new NotEnoughMoneyException();
+                }));
+        customerShards.shutdown();
+    }
+
+    @Test
+    public void testLockingModeShallRunOnTheCallingThread() throws Throwable {
+        // Given
+        CustomerShards customerShards = new CustomerShards(new SimpleMeterRegistry(), ExecutionMode.LOCKING, 4);
+
+        // When
+        Object threadName = customerShards.call(7, () -> Thread.currentThread().getName());
+
+        // Then
+        assertEquals(Thread.currentThread().getName(), threadName);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetry optimisticRetry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        optimisticRetry = new OptimisticRetry(meterRegistry, 3, 1);
+    }
+
+    @Test
+    public void testShallRetryOnVersionConflict() throws Throwable {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        Object result = optimisticRetry.call("depositMoney", () -> {
+            assertTrue(OptimisticRetry.isActive());
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("asset changed");
+            }
+            return "deposited";
+        });
+
+        // Then
+        assertEquals("deposited", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.counter("orders.optimistic.conflicts", "operation", "depositMoney").count());
+        assertEquals(2.0, meterRegistry.counter("orders.optimistic.retries", "operation", "depositMoney").count());
+        assertFalse(OptimisticRetry.isActive());
+    }
+
+    @Test
+    public void testShallGiveUpAfterMaxAttempts() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> optimisticRetry.call("cancelOrder", () -> {
+                    attempts.incrementAndGet();
+                    throw new OptimisticLockingFailureException("order changed");
+                }));
+        assertEquals(3, attempts.get());
+        assertEquals(3.0, meterRegistry.counter("orders.optimistic.conflicts", "operation", "cancelOrder").count());
+        assertEquals(2.0, meterRegistry.counter("orders.optimistic.retries", "operation", "cancelOrder").count());
+    }
+
+    @Test
+    public void testShallNotRetryOtherFailures() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+                () -> optimisticRetry.call("createOrder", () -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException();
+                }));
+        assertEquals(1, attempts.get());
+    }
+}
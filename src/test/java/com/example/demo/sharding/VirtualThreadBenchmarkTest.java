@@ -0,0 +1,122 @@
+package com.example.demo.sharding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contended-customer workload: half of the requests are of one
+ * hot customer, the other half spread over 100 customers. Every
+ * request borrows one of 10 pooled connections (the Hikari
+ * default) and then waits for the row lock of its customer,
+ * holding the connection, as on PESSIMISTIC_WRITE.
+ * <p>
+ * Compares the platform thread pool of Tomcat (200 threads) with
+ * a virtual thread per request, without and with a cap of
+ * {@link CustomerPermits} per customer. Virtual threads need
+ * Java 21: mvn test -Pbenchmark,java21
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+
+    private static final int REQUESTS = 4_000;
+    private static final int CONNECTIONS = 10;
+    private static final long HOLD_MICROS = 500;
+
+    private record Result(String name, double throughput, double p99Millis) {
+        @Override
+        public String toString() {
+            return String.format("%-22s %10.0f req/s %10.2f ms p99", name, throughput, p99Millis);
+        }
+    }
+
+    @Test
+    public void benchmarkContendedCustomer() throws Exception {
+        ExecutorService virtualThreads = virtualThreadPerTask();
+        Assumptions.assumeTrue(virtualThreads != null, "virtual threads need Java 21");
+        virtualThreads.shutdown();
+
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform pool (200)", Executors.newFixedThreadPool(200), 0));
+        results.add(run("virtual, no cap", virtualThreadPerTask(), 0));
+        results.add(run("virtual, 2 per customer", virtualThreadPerTask(), 2));
+
+        results.forEach(System.out::println);
+        results.forEach(result -> assertTrue(result.throughput() > 0));
+    }
+
+    private Result run(String name, ExecutorService executor, int maxConcurrentPerCustomer) throws Exception {
+        CustomerPermits customerPermits = new CustomerPermits(
+                new SimpleMeterRegistry(), maxConcurrentPerCustomer, TimeUnit.MINUTES.toMillis(1));
+        Semaphore connections = new Semaphore(CONNECTIONS, true);
+        Map<Long, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+
+        long[] latencies = new long[REQUESTS];
+        List<Future<?>> requests = new ArrayList<>(REQUESTS);
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int request = i;
+            long customerId = i % 2 == 0 ? 1 : 2 + i % 100;
+            long submittedAt = System.nanoTime();
+            requests.add(executor.submit(() -> {
+                try {
+                    customerPermits.call(customerId, () -> {
+                        connections.acquire();
+                        ReentrantLock rowLock = rowLocks.computeIfAbsent(customerId, id -> new ReentrantLock());
+                        try {
+                            rowLock.lock();
+                            try {
+                                TimeUnit.MICROSECONDS.sleep(HOLD_MICROS);
+                            } finally {
+                                rowLock.unlock();
+                            }
+                        } finally {
+                            connections.release();
+                        }
+                        return null;
+                    });
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+                latencies[request] = System.nanoTime() - submittedAt;
+                return null;
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        double p99Millis = latencies[(int) (REQUESTS * 0.99) - 1] / 1_000_000.0;
+        return new Result(name, REQUESTS / (elapsed / 1_000_000_000.0), p99Millis);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() of Java 21,
+    // the project still compiles for Java 17.
+    private static ExecutorService virtualThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
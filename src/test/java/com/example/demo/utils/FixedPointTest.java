@@ -0,0 +1,67 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    @Test
+    public void testShallSumWithoutDrift() {
+        // Given
+        long tenCents = FixedPoint.of("0.1");
+        long sum = 0;
+        double doubleSum = 0;
+
+        // When
+        for (int i = 0; i < 1_000_000; i++) {
+            sum = FixedPoint.add(sum, tenCents);
+            doubleSum += 0.1;
+        }
+
+        // Then
+        assertEquals(FixedPoint.of(100_000), sum);
+        assertEquals("100000", FixedPoint.toString(sum));
+        assertNotEquals(100_000.0, doubleSum);
+    }
+
+    @Test
+    public void testShallMultiplyPriceBySize() {
+        // Given
+        long price = FixedPoint.of("1.733");
+
+        // When
+        long cost = FixedPoint.multiply(price, 10);
+
+        // Then
+        assertEquals(FixedPoint.of("17.33"), cost);
+        assertEquals(new BigDecimal("17.3300"), FixedPoint.toBigDecimal(cost));
+    }
+
+    @Test
+    public void testShallRejectMoreDecimalsThanScale() {
+        // When & Then
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of("1.73361"));
+        assertEquals(17_360, FixedPoint.of("1.73600"));
+    }
+
+    @Test
+    public void testShallThrowOnOverflow() {
+        // When & Then
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testShallDivideRoundingHalfUp() {
+        // When & Then
+        // 10 TRY over 3 shares, 3.33333...
+        assertEquals(FixedPoint.of("3.3333"), FixedPoint.divide(FixedPoint.of(10), 3));
+        // 20 TRY over 3 shares, 6.66666...
+        assertEquals(FixedPoint.of("6.6667"), FixedPoint.divide(FixedPoint.of(20), 3));
+        assertEquals(FixedPoint.of("-6.6667"), FixedPoint.divide(FixedPoint.of(-20), 3));
+    }
+}